@@ -0,0 +1,78 @@
+package com.monkeyj;
+
+import com.monkeyj.ast.Program;
+import com.monkeyj.lexer.Lexer;
+import com.monkeyj.parser.Parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Shared inputs for the benchmarks. The examples are read relative to the working directory, which the jmh profile
+// sets to the project root; -Dmonkeyj.examples=DIR points somewhere else.
+public final class Workloads {
+
+    private Workloads() {}
+
+    private static final Path EXAMPLES = Path.of(System.getProperty("monkeyj.examples", "examples"));
+
+    public static Program parse(final String input) {
+        final var parser = new Parser(new Lexer(input));
+        final var program = parser.parseProgram();
+        if (!parser.errors().isEmpty()) {
+            throw new IllegalStateException(parser.errors().toString());
+        }
+
+        return program;
+    }
+
+    // Every example that parses cleanly, joined into one program.
+    public static String examples() {
+        try (final Stream<Path> files = Files.walk(EXAMPLES)) {
+            return files.filter(file -> file.toString().endsWith(".mnk"))
+                    .sorted()
+                    .map(Workloads::read)
+                    .filter(Workloads::parses)
+                    .map(Workloads::terminate)
+                    .collect(Collectors.joining("\n", "", "\n"));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // A large program made of the examples repeated the given number of times.
+    public static String generate(final int copies) {
+        final var examples = examples();
+        if (examples.isBlank()) {
+            throw new IllegalStateException("no examples found in " + EXAMPLES.toAbsolutePath());
+        }
+
+        return examples.repeat(copies);
+    }
+
+    private static String read(final Path file) {
+        try {
+            return Files.readString(file);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Without the semicolon the first expression of the next example could continue the last one of this example.
+    private static String terminate(final String input) {
+        final var stripped = input.strip();
+
+        return stripped.endsWith(";") ? stripped : stripped + ";";
+    }
+
+    private static boolean parses(final String input) {
+        final var parser = new Parser(new Lexer(input));
+        parser.parseProgram();
+
+        return parser.errors().isEmpty();
+    }
+
+}
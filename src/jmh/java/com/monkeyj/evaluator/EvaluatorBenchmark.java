@@ -0,0 +1,231 @@
+package com.monkeyj.evaluator;
+
+import com.monkeyj.Workloads;
+import com.monkeyj.ast.Program;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Error;
+import com.monkeyj.object.Obj;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+// The workloads scale up the programs in examples/: recursive functions, the array builtins, hashes of records and
+// string concatenation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EvaluatorBenchmark {
+
+    private static final String FIBONACCI = """
+            let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } };
+            fib(20);
+            """;
+
+    private static final String RETURNS = """
+            let fib = fn(x) { if (x < 2) { return x; } return fib(x - 1) + fib(x - 2); };
+            fib(20);
+            """;
+
+    private static final String ARRAYS = """
+            let build = fn(n, arr) { if (n == 0) { arr } else { build(n - 1, push(arr, n)) } };
+            let sum = fn(arr, acc) { if (len(arr) == 0) { acc } else { sum(rest(arr), acc + first(arr)) } };
+            sum(build(150, []), 0) + sum(build(150, []), 1) + len(build(150, [])) + last(build(150, []));
+            """;
+
+    // Long enough for copying on every push to show; both functions are tail recursive.
+    private static final String LONG_ARRAYS = """
+            let build = fn(n, arr) { if (n == 0) { arr } else { build(n - 1, push(arr, n)) } };
+            let sum = fn(arr, acc) { if (len(arr) == 0) { acc } else { sum(rest(arr), acc + first(arr)) } };
+            let arr = build(5000, []);
+            sum(arr, 0) + arr[2500] + last(arr);
+            """;
+
+    private static final String MAP_REDUCE = """
+            let map = fn(arr, f, acc) { if (len(arr) == 0) { acc } else { map(rest(arr), f, push(acc, f(first(arr)))) } };
+            let reduce = fn(arr, f, acc) { if (len(arr) == 0) { acc } else { reduce(rest(arr), f, f(acc, first(arr))) } };
+            let range = fn(n, acc) { if (n == 0) { acc } else { range(n - 1, push(acc, n)) } };
+            let doubled = map(range(150, []), fn(x) { x * 2 }, []);
+            reduce(doubled, fn(acc, x) { acc + x }, 0);
+            """;
+
+    private static final String HASHES = """
+            let people = fn(n, acc) { if (n == 0) { acc } else { people(n - 1, push(acc, {"name": "Alice", "age": n, n: true})) } };
+            let total = fn(arr, acc) {
+                if (len(arr) == 0) { acc } else {
+                    let person = first(arr);
+                    if (person[person["age"]]) { total(rest(arr), acc + person["age"]) } else { acc }
+                }
+            };
+            total(people(150, []), 0);
+            """;
+
+    // Grows one hash a key at a time and then takes half of the keys out again, keeping every version alive.
+    private static final String HASH_UPDATES = """
+            let fill = fn(h, n) { if (n == 0) { h } else { fill(set(h, n, n * 2), n - 1) } };
+            let drain = fn(h, n) { if (n == 0) { h } else { drain(delete(h, n * 2), n - 1) } };
+            let versions = fn(h, n, acc) { if (n == 0) { acc } else { versions(set(h, n, 0), n - 1, push(acc, h)) } };
+            let full = fill({}, 500);
+            len(keys(drain(full, 250))) + len(versions(full, 50, [])) + len(values(full));
+            """;
+
+    // "Aa" and "BB" share a hash code, and so does every string made of the same number of them: all the keys of this
+    // hash collide, so every lookup has to tell them apart by their characters.
+    private static final String COLLIDING_HASHES = collidingHashes(6);
+
+    // Each of these fails straight away; the caller only checks that it did, as guard code would.
+    private static final String[] ERRORS = {
+            "5 + true;", "-true", "foobar", "\"Hello\" - \"World\"", "[1, 2][true]", "{fn(x) { x }: 1}",
+            "len(1)", "first(1)", "5()", "let f = fn(x) { x + y }; f(1);",
+    };
+
+    private static final String STRINGS = """
+            let repeat = fn(s, n) { if (n == 0) { "" } else { s + repeat(s, n - 1) } };
+            let count = fn(s, n, acc) { if (n == 0) { acc } else { if (len(s) > 0) { count(s, n - 1, acc + 1) } else { acc } } };
+            count(repeat("monkey", 100), 150, 0);
+            """;
+
+    // Builds a string a line at a time, the way output is put together in a loop, and only reads it at the end.
+    private static final String STRING_BUILDING = """
+            let build = fn(n, acc) { if (n == 0) { acc } else { build(n - 1, acc + "line " + "of output; ") } };
+            let text = build(3000, "");
+            len(text) + {text: 1}[text];
+            """;
+
+    private Program fibonacci;
+    private Program returns;
+    private Program arrays;
+    private Program longArrays;
+    private Program mapReduce;
+    private Program hashes;
+    private Program collidingHashes;
+    private Program hashUpdates;
+    private Program strings;
+    private Program stringBuilding;
+    private Program[] errors;
+
+    @Setup
+    public void setUp() {
+        this.fibonacci = Workloads.parse(FIBONACCI);
+        this.returns = Workloads.parse(RETURNS);
+        this.arrays = Workloads.parse(ARRAYS);
+        this.longArrays = Workloads.parse(LONG_ARRAYS);
+        this.mapReduce = Workloads.parse(MAP_REDUCE);
+        this.hashes = Workloads.parse(HASHES);
+        this.collidingHashes = Workloads.parse(COLLIDING_HASHES);
+        this.hashUpdates = Workloads.parse(HASH_UPDATES);
+        this.strings = Workloads.parse(STRINGS);
+        this.stringBuilding = Workloads.parse(STRING_BUILDING);
+        this.errors = new Program[ERRORS.length];
+        for (int i = 0; i < ERRORS.length; i++) {
+            this.errors[i] = Workloads.parse(ERRORS[i]);
+        }
+    }
+
+    @Benchmark
+    public Obj fibonacci() {
+        return Evaluator.eval(this.fibonacci, new Environment());
+    }
+
+    @Benchmark
+    public Obj fibonacciOnExplicitStack() {
+        return new StackEvaluator().eval(this.fibonacci, new Environment());
+    }
+
+    @Benchmark
+    public Obj returns() {
+        return Evaluator.eval(this.returns, new Environment());
+    }
+
+    @Benchmark
+    public Obj arrays() {
+        return Evaluator.eval(this.arrays, new Environment());
+    }
+
+    @Benchmark
+    public Obj longArrays() {
+        return Evaluator.eval(this.longArrays, new Environment());
+    }
+
+    @Benchmark
+    public Obj mapReduce() {
+        return Evaluator.eval(this.mapReduce, new Environment());
+    }
+
+    @Benchmark
+    public Obj hashes() {
+        return Evaluator.eval(this.hashes, new Environment());
+    }
+
+    @Benchmark
+    public Obj collidingHashes() {
+        return Evaluator.eval(this.collidingHashes, new Environment());
+    }
+
+    @Benchmark
+    public Obj hashUpdates() {
+        return Evaluator.eval(this.hashUpdates, new Environment());
+    }
+
+    @Benchmark
+    public Obj strings() {
+        return Evaluator.eval(this.strings, new Environment());
+    }
+
+    @Benchmark
+    public Obj stringBuilding() {
+        return Evaluator.eval(this.stringBuilding, new Environment());
+    }
+
+    @Benchmark
+    public int errors() {
+        int failed = 0;
+        for (final var program : this.errors) {
+            if (Evaluator.eval(program, new Environment()) instanceof Error) {
+                failed++;
+            }
+        }
+
+        return failed;
+    }
+
+    // A hash with 2^blocks keys of equal hash code, each looked up 20 times.
+    private static String collidingHashes(final int blocks) {
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1 << blocks; i++) {
+            final var key = new StringBuilder("\"");
+            for (int block = 0; block < blocks; block++) {
+                key.append((i >> block & 1) == 0 ? "Aa" : "BB");
+            }
+            keys.add(key.append('"').toString());
+        }
+
+        final var pairs = new StringJoiner(", ", "{", "}");
+        for (int i = 0; i < keys.size(); i++) {
+            pairs.add(keys.get(i) + ": " + i);
+        }
+
+        return String.format("""
+                let h = %s;
+                let keys = %s;
+                let sum = fn(arr, acc) { if (len(arr) == 0) { acc } else { sum(rest(arr), acc + h[first(arr)]) } };
+                let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + sum(keys, 0)) } };
+                loop(20, 0);
+                """, pairs, keys);
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.monkeyj.lexer;
+
+import com.monkeyj.Workloads;
+import com.monkeyj.token.TokenConstants;
+import com.monkeyj.token.TokenKind;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Tokenizes the examples repeated `copies` times, so the score is whole programs per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class LexerBenchmark {
+
+    @Param({"10", "1000"})
+    private int copies;
+
+    private String input;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.input = Workloads.generate(this.copies);
+        this.file = Files.createTempFile("monkeyj-lexer", ".mnk");
+        Files.writeString(this.file, this.input, StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public int nextToken(final Blackhole blackhole) {
+        final var lexer = new Lexer(this.input);
+        int tokens = 0;
+        for (var tok = lexer.nextToken(); !tok.type().equals(TokenConstants.EOF); tok = lexer.nextToken()) {
+            blackhole.consume(tok);
+            tokens++;
+        }
+
+        return tokens;
+    }
+
+    // The same tokens as kinds and offsets, without building a Token or a literal for any of them.
+    @Benchmark
+    public int next(final Blackhole blackhole) {
+        final var lexer = new Lexer(this.input);
+        int tokens = 0;
+        for (int kind = lexer.next(); kind != TokenKind.EOF; kind = lexer.next()) {
+            blackhole.consume(kind);
+            blackhole.consume(lexer.end() - lexer.start());
+            tokens++;
+        }
+
+        return tokens;
+    }
+
+    // The same program read from a file: mapped and lexed in place, or read into a String first. Without literals,
+    // the only allocation left is the copy of the file that readFile makes.
+    @Benchmark
+    public int mappedFile(final Blackhole blackhole) throws IOException {
+        return this.lex(new Lexer(MappedSource.open(this.file)), blackhole);
+    }
+
+    @Benchmark
+    public int readFile(final Blackhole blackhole) throws IOException {
+        return this.lex(new Lexer(Files.readString(this.file)), blackhole);
+    }
+
+    private int lex(final Lexer lexer, final Blackhole blackhole) {
+        int tokens = 0;
+        for (int kind = lexer.next(); kind != TokenKind.EOF; kind = lexer.next()) {
+            blackhole.consume(kind);
+            blackhole.consume(lexer.end() - lexer.start());
+            tokens++;
+        }
+
+        return tokens;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.monkeyj.object;
+
+import com.monkeyj.Workloads;
+import com.monkeyj.ast.Program;
+import com.monkeyj.evaluator.Evaluator;
+import com.monkeyj.interpreter.Interpreter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Integer-heavy programs, with and without the Int cache. Run with -prof gc to compare the allocation rates:
+// mvn -P jmh test-compile exec:exec -Djmh.args="IntBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class IntBenchmark {
+
+    private static final String FIBONACCI = """
+            let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } };
+            fib(20);
+            """;
+
+    private static final String COUNTDOWN = """
+            let count = fn(n, acc) { if (n == 0) { acc } else { count(n - 1, acc + n * 2 - n - n + 1) } };
+            count(900, 0);
+            """;
+
+    private Program fibonacci;
+    private Program countdown;
+
+    @Setup
+    public void setUp() {
+        this.fibonacci = Workloads.parse(FIBONACCI);
+        this.countdown = Workloads.parse(COUNTDOWN);
+    }
+
+    @Benchmark
+    public Obj evaluatorFibonacci() {
+        return Evaluator.eval(this.fibonacci, new Environment());
+    }
+
+    @Benchmark
+    public Obj evaluatorCountdown() {
+        return Evaluator.eval(this.countdown, new Environment());
+    }
+
+    @Benchmark
+    public Obj treeFibonacci() {
+        return Interpreter.eval(this.fibonacci, new Environment());
+    }
+
+    @Benchmark
+    public Obj treeCountdown() {
+        return Interpreter.eval(this.countdown, new Environment());
+    }
+
+    // The same programs with the cache switched off, so every integer result allocates.
+    @Fork(value = 1, jvmArgsAppend = {"--enable-preview", "-Dmonkeyj.int.cache.low=0", "-Dmonkeyj.int.cache.high=-1"})
+    public static class Uncached extends IntBenchmark {
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.monkeyj.parser;
+
+import com.monkeyj.Workloads;
+import com.monkeyj.ast.Program;
+import com.monkeyj.ast.Statement;
+import com.monkeyj.lexer.Lexer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Parses the examples repeated `copies` times; lexing is included, as it is when the REPL reads a program.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ParserBenchmark {
+
+    @Param({"10", "1000"})
+    private int copies;
+
+    private String input;
+    private String[] lines;
+    private IncrementalParser incremental;
+    private int digit;
+
+    @Setup
+    public void setUp() {
+        this.input = Workloads.generate(this.copies);
+        Workloads.parse(this.input);
+        this.lines = Workloads.examples().lines().filter(line -> !line.isBlank()).toArray(String[]::new);
+        this.incremental = new IncrementalParser(this.input);
+        this.digit = this.input.indexOf('1', this.input.length() / 2);
+    }
+
+    @Benchmark
+    public Program parseProgram() {
+        return new Parser(new Lexer(this.input)).parseProgram();
+    }
+
+    // Every line of the examples parsed on its own, with a parser each, as the REPL reads them: mostly the cost of
+    // setting a parser up. Does not depend on copies.
+    @Benchmark
+    public void parseLines(final Blackhole blackhole) {
+        for (final String line : this.lines) {
+            blackhole.consume(new Parser(new Lexer(line)).parseProgram());
+        }
+    }
+
+    // The same program split into chunks parsed on the common fork-join pool. Its parallelism follows the cores;
+    // -Djava.util.concurrent.ForkJoinPool.common.parallelism=N sets it.
+    @Benchmark
+    public Program parseInParallel() {
+        return new ParallelParser(this.input).parseProgram();
+    }
+
+    // A keystroke in the middle of the program, a digit changed, and its undo, re-parsing only what they touch.
+    @Benchmark
+    public List<Statement> edit() {
+        this.incremental.edit(this.digit, 1, "7");
+        this.incremental.edit(this.digit, 1, "1");
+        return this.incremental.statements();
+    }
+
+}
@@ -11,6 +11,12 @@ public class FunctionLiteral implements Expression, Node {
     private List<Identifier> parameters = new ArrayList<>();
     private BlockStatement body;
 
+    // Tiering profile, see Jit.isHot. Recursion is Monkey's only loop, so a call that starts while another call of
+    // the same literal is still running is counted as a loop back edge.
+    private long invocationCount;
+    private long loopBackCount;
+    private int activeCalls;
+
     public Token getToken() {
         return token;
     }
@@ -39,6 +45,30 @@ public class FunctionLiteral implements Expression, Node {
         this.body = body;
     }
 
+    public long getInvocationCount() {
+        return invocationCount;
+    }
+
+    public long getLoopBackCount() {
+        return loopBackCount;
+    }
+
+    public void enter() {
+        this.invocationCount++;
+        if (this.activeCalls++ > 0) {
+            this.loopBackCount++;
+        }
+    }
+
+    public void exit() {
+        this.activeCalls--;
+    }
+
+    public void resetCounters() {
+        this.invocationCount = 0;
+        this.loopBackCount = 0;
+    }
+
     @Override
     public void expressionNode() { }
 
@@ -1,5 +1,6 @@
 package com.monkeyj.ast;
 
+import com.monkeyj.object.Int;
 import com.monkeyj.token.Token;
 
 import java.util.Objects;
@@ -8,12 +9,14 @@ public class IntegerLiteral implements Expression, Node {
 
     private Token token;
     private Integer value;
+    // Built once here, so evaluating the literal never allocates.
+    private Int constant;
 
     public IntegerLiteral() {}
 
     public IntegerLiteral(final Token token, final Integer value) {
         this.token = token;
-        this.value = value;
+        this.setValue(value);
     }
 
     @Override
@@ -38,6 +41,11 @@ public class IntegerLiteral implements Expression, Node {
 
     public void setValue(final Integer value) {
         this.value = value;
+        this.constant = value == null ? null : Int.of(value);
+    }
+
+    public Int getConstant() {
+        return constant;
     }
 
     @Override
@@ -0,0 +1,7 @@
+package com.monkeyj.compiler;
+
+import com.monkeyj.object.Obj;
+
+import java.util.List;
+
+public record Bytecode(byte[] instructions, List<Obj> constants, List<String> globalNames) { }
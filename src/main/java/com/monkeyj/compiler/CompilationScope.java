@@ -0,0 +1,79 @@
+package com.monkeyj.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class CompilationScope {
+
+    private byte[] instructions = new byte[64];
+    private int length;
+    private EmittedInstruction lastInstruction;
+    private EmittedInstruction previousInstruction;
+    // Where GET_LOCAL and SET_LOCAL were emitted, so the locals a closure captures can be moved into cells afterwards.
+    private final List<Integer> localAccesses = new ArrayList<>();
+
+    public int addInstruction(final byte[] ins) {
+        final int pos = this.length;
+        if (pos + ins.length > this.instructions.length) {
+            this.instructions = Arrays.copyOf(this.instructions, Math.max(this.instructions.length * 2, pos + ins.length));
+        }
+
+        System.arraycopy(ins, 0, this.instructions, pos, ins.length);
+        this.length += ins.length;
+
+        return pos;
+    }
+
+    public void replaceInstruction(final int pos, final byte[] ins) {
+        System.arraycopy(ins, 0, this.instructions, pos, ins.length);
+    }
+
+    public void addLocalAccess(final int pos) {
+        this.localAccesses.add(pos);
+    }
+
+    // Turns the GET_LOCAL and SET_LOCAL of the given slots into GET_CELL and SET_CELL, which take the same operand.
+    public void moveIntoCells(final BitSet slots) {
+        for (final int pos : this.localAccesses) {
+            if (slots.get(Byte.toUnsignedInt(this.instructions[pos + 1]))) {
+                this.instructions[pos] = this.instructions[pos] == OpCode.GET_LOCAL ? OpCode.GET_CELL : OpCode.SET_CELL;
+            }
+        }
+    }
+
+    public void truncate(final int length) {
+        this.length = length;
+    }
+
+    public byte opcodeAt(final int pos) {
+        return this.instructions[pos];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte[] instructions() {
+        return Arrays.copyOf(this.instructions, this.length);
+    }
+
+    public void setLastInstruction(final byte op, final int pos) {
+        this.previousInstruction = this.lastInstruction;
+        this.lastInstruction = new EmittedInstruction(op, pos);
+    }
+
+    public EmittedInstruction getLastInstruction() {
+        return lastInstruction;
+    }
+
+    public void setLastInstruction(final EmittedInstruction lastInstruction) {
+        this.lastInstruction = lastInstruction;
+    }
+
+    public EmittedInstruction getPreviousInstruction() {
+        return previousInstruction;
+    }
+
+}
@@ -0,0 +1,459 @@
+package com.monkeyj.compiler;
+
+import com.monkeyj.ast.*;
+import com.monkeyj.object.CompiledFunction;
+import com.monkeyj.object.Obj;
+import com.monkeyj.object.Str;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class Compiler {
+
+    private final List<Obj> constants;
+    private final List<CompilationScope> scopes;
+    private final List<String> errors;
+    private SymbolTable symbolTable;
+    // How many if branches of the current function the compiler is in; a let in one of them may not run.
+    private int conditionals;
+    // Whether a returned call may replace the frame it returns from: inside a function, except in an if used as a value.
+    private boolean tailReturns;
+    // The jumps to the end of the if a return inside an expression leaves its ReturnValue at, like in the Evaluator:
+    // `let x = if (c) { return 1; }` binds x and carries on. null where a return leaves the function.
+    private List<Integer> exits;
+
+    public Compiler() {
+        this(SymbolTable.withBuiltins(), new ArrayList<>());
+    }
+
+    private Compiler(final SymbolTable symbolTable, final List<Obj> constants) {
+        this.symbolTable = symbolTable;
+        this.constants = constants;
+        this.scopes = new ArrayList<>();
+        this.scopes.add(new CompilationScope());
+        this.errors = new ArrayList<>();
+    }
+
+    public static Compiler newWithState(final SymbolTable symbolTable, final List<Obj> constants) {
+        return new Compiler(symbolTable, constants);
+    }
+
+    public void compile(final Node node) {
+        if (node instanceof Program program) {
+            for (final var stmt : program.getStatements()) {
+                this.compileStatement(stmt, false);
+            }
+        } else if (node instanceof ExpressionStatement || node instanceof ReturnStatement) {
+            this.compileStatement((Statement) node, false);
+        } else if (node instanceof BlockStatement block) {
+            for (final var stmt : block.getStatements()) {
+                this.compileStatement(stmt, false);
+            }
+        } else if (node instanceof InfixExpression infix) {
+            this.compile(infix.getLeft());
+            this.compile(infix.getRight());
+            final byte op = switch (infix.getOperator()) {
+                case "+" -> OpCode.ADD;
+                case "-" -> OpCode.SUB;
+                case "*" -> OpCode.MUL;
+                case "/" -> OpCode.DIV;
+                case ">" -> OpCode.GREATER_THAN;
+                case "<" -> OpCode.LESS_THAN;
+                case "==" -> OpCode.EQUAL;
+                case "!=" -> OpCode.NOT_EQUAL;
+                default -> -1;
+            };
+            if (op < 0) {
+                this.error("unknown operator: " + infix.getOperator());
+            } else {
+                this.emit(op);
+            }
+        } else if (node instanceof PrefixExpression prefix) {
+            this.compile(prefix.getRight());
+            final byte op = switch (prefix.getOperator()) {
+                case "!" -> OpCode.BANG;
+                case "-" -> OpCode.MINUS;
+                default -> -1;
+            };
+            if (op < 0) {
+                this.error("unknown operator: " + prefix.getOperator());
+            } else {
+                this.emit(op);
+            }
+        } else if (node instanceof IntegerLiteral literal) {
+            this.emit(OpCode.CONSTANT, this.addConstant(literal.getConstant()));
+        } else if (node instanceof StringLiteral literal) {
+            this.emit(OpCode.CONSTANT, this.addConstant(Str.of(literal.getValue())));
+        } else if (node instanceof Bool bool) {
+            this.emit(bool.getValue() ? OpCode.TRUE : OpCode.FALSE);
+        } else if (node instanceof IfExpression ifExpression) {
+            final boolean tailReturns = this.tailReturns;
+            this.tailReturns = false;
+            this.compileIfExpression(ifExpression, false, true);
+            this.tailReturns = tailReturns;
+        this.exits = exits;
+        } else if (node instanceof LetStatement letStmt) {
+            final var name = letStmt.getName().getValue();
+            if (letStmt.getValue() instanceof FunctionLiteral fn) {
+                this.compileFunctionLiteral(fn, name);
+            } else {
+                this.compile(letStmt.getValue());
+            }
+
+            final var symbol = this.symbolTable.define(name);
+            if (symbol.scope().equals(SymbolScope.GLOBAL)) {
+                this.emit(OpCode.SET_GLOBAL, symbol.index());
+            } else {
+                this.currentScope().addLocalAccess(this.emit(OpCode.SET_LOCAL, symbol.index()));
+                if (this.conditionals == 0) {
+                    this.symbolTable.markSet(symbol);
+                }
+            }
+        } else if (node instanceof Identifier identifier) {
+            this.compileIdentifier(identifier.getValue());
+        } else if (node instanceof ArrayLiteral array) {
+            for (final var element : array.getElements()) {
+                this.compile(element);
+            }
+            this.emit(OpCode.ARRAY, array.getElements().size());
+        } else if (node instanceof HashLiteral hash) {
+            for (final Map.Entry<Expression, Expression> entry : hash.getPairs().entrySet()) {
+                this.compile(entry.getKey());
+                this.compile(entry.getValue());
+            }
+            this.emit(OpCode.HASH, hash.getPairs().size() * 2);
+        } else if (node instanceof IndexExpression index) {
+            this.compile(index.getLeft());
+            this.compile(index.getIndex());
+            this.emit(OpCode.INDEX);
+        } else if (node instanceof FunctionLiteral fn) {
+            this.compileFunctionLiteral(fn, null);
+        } else if (node instanceof CallExpression call) {
+            this.compileCall(call, OpCode.CALL);
+        } else {
+            // What the parser could not make sense of is left null, and reported among its errors.
+            this.error(node == null ? "cannot compile a program with parse errors" : "unsupported node: " + node);
+        }
+    }
+
+    // Each symbol the name may be found in is read in turn, until one holds a value. When none is sure to, the last
+    // one is a global that is checked at run time, so forward references and "identifier not found" errors behave
+    // exactly like in the Evaluator.
+    private void compileIdentifier(final String name) {
+        final List<Symbol> symbols = new ArrayList<>(this.symbolTable.resolveAll(name));
+        if (symbols.isEmpty() || !this.symbolTable.isSet(symbols.get(symbols.size() - 1))) {
+            symbols.add(this.symbolTable.global().define(name));
+        }
+
+        final List<Integer> jumps = new ArrayList<>();
+        for (final var symbol : symbols.subList(0, symbols.size() - 1)) {
+            this.loadSymbol(symbol);
+            jumps.add(this.emit(OpCode.JUMP_IF_SET, 9999));
+        }
+        this.loadSymbol(symbols.get(symbols.size() - 1));
+
+        for (final int jump : jumps) {
+            this.changeOperand(jump, this.currentScope().length());
+        }
+    }
+
+    // Tail position is the same as in the Evaluator: the last statement of a function body, any return statement,
+    // and the branches of an if in tail position. A call there replaces the calling frame instead of growing the stack.
+    private void compileStatement(final Statement stmt, final boolean tail) {
+        if (stmt instanceof ExpressionStatement exprStmt) {
+            this.compileValue(exprStmt.getExpression(), tail);
+            if (this.exits == null) {
+                this.emit(OpCode.POP);
+            } else {
+                this.exits.add(this.emit(OpCode.POP_OR_EXIT_IF, 9999));
+            }
+        } else if (stmt instanceof ReturnStatement returnStmt) {
+            // A return inside the returned if, `return if (c) { return 1; }`, comes out wrapped as in the Evaluator.
+            if (returnStmt.getReturnValue() instanceof IfExpression ifExpression) {
+                this.compileIfExpression(ifExpression, this.tailReturns, true);
+            } else {
+                this.compileValue(returnStmt.getReturnValue(), this.tailReturns);
+            }
+
+            if (this.exits == null) {
+                this.emit(OpCode.RETURN_STATEMENT);
+            } else {
+                this.exits.add(this.emit(OpCode.EXIT_IF, 9999));
+            }
+        } else {
+            this.compile(stmt);
+        }
+    }
+
+    private void compileValue(final Expression expression, final boolean tail) {
+        if (expression instanceof IfExpression ifExpression) {
+            this.compileIfExpression(ifExpression, tail, false);
+        } else if (tail && expression instanceof CallExpression call) {
+            this.compileCall(call, OpCode.TAIL_CALL);
+        } else {
+            this.compile(expression);
+        }
+    }
+
+    private void compileCall(final CallExpression call, final byte op) {
+        this.compile(call.getFunction());
+        for (final var arg : call.getArguments()) {
+            this.compile(arg);
+        }
+        this.emit(op, call.getArguments().size());
+    }
+
+    // An if used as a value, rather than as a statement, is where the returns inside it stop.
+    private void compileIfExpression(final IfExpression ifExpression, final boolean tail, final boolean value) {
+        this.compile(ifExpression.getCondition());
+
+        final var exits = this.exits;
+        if (value) {
+            this.exits = new ArrayList<>();
+        }
+
+        this.conditionals++;
+        final int jumpNotTruthyPos = this.emit(OpCode.JUMP_NOT_TRUTHY, 9999);
+        this.compileBlockValue(ifExpression.getConsequence(), tail);
+
+        final int jumpPos = this.emit(OpCode.JUMP, 9999);
+        this.changeOperand(jumpNotTruthyPos, this.currentScope().length());
+
+        if (ifExpression.getAlternative() == null) {
+            this.emit(OpCode.NULL);
+        } else {
+            this.compileBlockValue(ifExpression.getAlternative(), tail);
+        }
+        this.conditionals--;
+
+        final int end = this.currentScope().length();
+        this.changeOperand(jumpPos, end);
+        if (value) {
+            for (final int exit : this.exits) {
+                this.changeOperand(exit, end);
+            }
+            this.exits = exits;
+        }
+    }
+
+    private void compileBlockValue(final BlockStatement block, final boolean tail) {
+        final var statements = block.getStatements();
+        for (int i = 0; i < statements.size(); i++) {
+            if (i == statements.size() - 1 && statements.get(i) instanceof ExpressionStatement exprStmt) {
+                this.compileValue(exprStmt.getExpression(), tail);
+                return;
+            }
+            this.compileStatement(statements.get(i), false);
+        }
+
+        this.emit(OpCode.NULL);
+    }
+
+    private void compileFunctionLiteral(final FunctionLiteral fn, final String name) {
+        this.enterScope();
+        final int conditionals = this.conditionals;
+        final boolean tailReturns = this.tailReturns;
+        final var exits = this.exits;
+        this.conditionals = 0;
+        this.tailReturns = true;
+        this.exits = null;
+
+        if (name != null) {
+            this.symbolTable.defineFunctionName(name);
+        }
+
+        for (final var param : fn.getParameters()) {
+            this.symbolTable.markSet(this.symbolTable.define(param.getValue()));
+        }
+        this.declareLets(fn.getBody());
+
+        final var statements = fn.getBody().getStatements();
+        for (int i = 0; i < statements.size(); i++) {
+            this.compileStatement(statements.get(i), i == statements.size() - 1);
+        }
+
+        if (this.lastInstructionIs(OpCode.POP)) {
+            this.replaceLastPopWithReturn();
+        }
+        if (!this.lastInstructionIs(OpCode.RETURN_VALUE) && !this.lastInstructionIs(OpCode.RETURN_STATEMENT)) {
+            this.emit(OpCode.RETURN);
+        }
+
+        final var freeSymbols = this.symbolTable.getFreeSymbols();
+        final var capturedLocals = this.symbolTable.getCapturedLocals();
+        final int numLocals = this.symbolTable.getNumDefinitions();
+        this.currentScope().moveIntoCells(capturedLocals);
+        final byte[] instructions = this.leaveScope();
+        this.conditionals = conditionals;
+        this.tailReturns = tailReturns;
+        this.exits = exits;
+
+        // Free variables are captured by reference: the closure gets the cells themselves, not their values.
+        final int[] captures = new int[freeSymbols.size()];
+        for (int i = 0; i < captures.length; i++) {
+            final var symbol = freeSymbols.get(i);
+            captures[i] = switch (symbol.scope()) {
+                case SymbolScope.LOCAL -> symbol.index();
+                case SymbolScope.FREE -> -2 - symbol.index();
+                case SymbolScope.FUNCTION -> CompiledFunction.CURRENT_CLOSURE;
+                default -> throw new IllegalStateException("cannot capture scope " + symbol.scope());
+            };
+        }
+
+        final var compiledFn = new CompiledFunction(
+                instructions, numLocals, fn.getParameters().size(), fn, capturedLocals.stream().toArray(), captures);
+        this.emit(OpCode.CLOSURE, this.addConstant(compiledFn), captures.length);
+    }
+
+    // A let anywhere in the function, even after the use or inside an if block, still defines the name in the
+    // function's Environment, so the whole body is declared before anything is resolved. Nested functions have their own.
+    private void declareLets(final Node node) {
+        if (node instanceof LetStatement letStmt) {
+            this.symbolTable.define(letStmt.getName().getValue());
+            this.declareLets(letStmt.getValue());
+        } else if (node instanceof BlockStatement block) {
+            block.getStatements().forEach(this::declareLets);
+        } else if (node instanceof ExpressionStatement stmt) {
+            this.declareLets(stmt.getExpression());
+        } else if (node instanceof ReturnStatement returnStmt) {
+            this.declareLets(returnStmt.getReturnValue());
+        } else if (node instanceof IfExpression ifExpression) {
+            this.declareLets(ifExpression.getCondition());
+            this.declareLets(ifExpression.getConsequence());
+            this.declareLets(ifExpression.getAlternative());
+        } else if (node instanceof PrefixExpression prefix) {
+            this.declareLets(prefix.getRight());
+        } else if (node instanceof InfixExpression infix) {
+            this.declareLets(infix.getLeft());
+            this.declareLets(infix.getRight());
+        } else if (node instanceof CallExpression call) {
+            this.declareLets(call.getFunction());
+            call.getArguments().forEach(this::declareLets);
+        } else if (node instanceof ArrayLiteral array) {
+            array.getElements().forEach(this::declareLets);
+        } else if (node instanceof IndexExpression index) {
+            this.declareLets(index.getLeft());
+            this.declareLets(index.getIndex());
+        } else if (node instanceof HashLiteral hash) {
+            hash.getPairs().forEach((key, value) -> {
+                this.declareLets(key);
+                this.declareLets(value);
+            });
+        }
+    }
+
+    private void loadSymbol(final Symbol symbol) {
+        switch (symbol.scope()) {
+            case SymbolScope.GLOBAL -> this.emit(OpCode.GET_GLOBAL, symbol.index());
+            case SymbolScope.LOCAL -> this.currentScope().addLocalAccess(this.emit(OpCode.GET_LOCAL, symbol.index()));
+            case SymbolScope.BUILTIN -> this.emit(OpCode.GET_BUILTIN, symbol.index());
+            case SymbolScope.FREE -> this.emit(OpCode.GET_FREE, symbol.index());
+            case SymbolScope.FUNCTION -> this.emit(OpCode.CURRENT_CLOSURE);
+            default -> throw new IllegalStateException("unknown scope " + symbol.scope());
+        }
+    }
+
+    private int addConstant(final Obj obj) {
+        this.constants.add(obj);
+        return this.constants.size() - 1;
+    }
+
+    private int emit(final byte op, final int... operands) {
+        final var ins = Instructions.make(op, this.checkOperands(op, operands));
+        final var scope = this.currentScope();
+        final int pos = scope.addInstruction(ins);
+        scope.setLastInstruction(op, pos);
+
+        return pos;
+    }
+
+    private boolean lastInstructionIs(final byte op) {
+        final var scope = this.currentScope();
+        if (scope.length() == 0) {
+            return false;
+        }
+
+        return scope.getLastInstruction().opcode() == op;
+    }
+
+    private void replaceLastPopWithReturn() {
+        final var scope = this.currentScope();
+        final int lastPos = scope.getLastInstruction().position();
+        scope.replaceInstruction(lastPos, Instructions.make(OpCode.RETURN_VALUE));
+        scope.setLastInstruction(new EmittedInstruction(OpCode.RETURN_VALUE, lastPos));
+    }
+
+    private void changeOperand(final int opPos, final int operand) {
+        final var scope = this.currentScope();
+        final byte op = scope.opcodeAt(opPos);
+        scope.replaceInstruction(opPos, Instructions.make(op, this.checkOperands(op, operand)));
+    }
+
+    // An operand too wide for its instruction is one of the bytecode's limits, which the program ran into. It is
+    // reported as a compile error, and a placeholder keeps the instructions well formed.
+    private int[] checkOperands(final byte op, final int... operands) {
+        final int[] widths = OpCode.lookup(op).operandWidths();
+        for (int i = 0; i < operands.length; i++) {
+            if (operands[i] >= 1 << (widths[i] * 8)) {
+                this.error(limitExceeded(op, i));
+                operands[i] = 0;
+            }
+        }
+
+        return operands;
+    }
+
+    private static String limitExceeded(final byte op, final int operand) {
+        return switch (op) {
+            case OpCode.CONSTANT -> "too many constants: at most 65536";
+            case OpCode.CLOSURE -> operand == 0
+                    ? "too many constants: at most 65536"
+                    : "too many free variables in a function: at most 255";
+            case OpCode.GET_FREE -> "too many free variables in a function: at most 255";
+            case OpCode.GET_LOCAL, OpCode.SET_LOCAL, OpCode.GET_CELL, OpCode.SET_CELL ->
+                    "too many local bindings in a function: at most 256, parameters included";
+            case OpCode.GET_GLOBAL, OpCode.SET_GLOBAL -> "too many global bindings: at most 65536";
+            case OpCode.CALL, OpCode.TAIL_CALL -> "too many arguments in a call: at most 255";
+            case OpCode.ARRAY -> "too many elements in an array literal: at most 65535";
+            case OpCode.HASH -> "too many pairs in a hash literal: at most 32767";
+            default -> "function too long: at most 65535 bytes of bytecode";
+        };
+    }
+
+    private void error(final String message) {
+        if (!this.errors.contains(message)) {
+            this.errors.add(message);
+        }
+    }
+
+    private CompilationScope currentScope() {
+        return this.scopes.get(this.scopes.size() - 1);
+    }
+
+    private void enterScope() {
+        this.scopes.add(new CompilationScope());
+        this.symbolTable = SymbolTable.newEnclosedSymbolTable(this.symbolTable);
+    }
+
+    private byte[] leaveScope() {
+        final var scope = this.scopes.remove(this.scopes.size() - 1);
+        this.symbolTable = this.symbolTable.getOuter();
+
+        return scope.instructions();
+    }
+
+    // Like the parser's, the bytecode of a program with compile errors must not be run.
+    public List<String> errors() {
+        return Collections.unmodifiableList(this.errors);
+    }
+
+    public Bytecode bytecode() {
+        return new Bytecode(
+                this.currentScope().instructions()
+                , List.copyOf(this.constants)
+                , this.symbolTable.global().globalNames());
+    }
+
+}
@@ -0,0 +1,3 @@
+package com.monkeyj.compiler;
+
+public record Definition(String name, int... operandWidths) { }
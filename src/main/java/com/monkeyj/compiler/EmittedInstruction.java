@@ -0,0 +1,3 @@
+package com.monkeyj.compiler;
+
+public record EmittedInstruction(byte opcode, int position) { }
@@ -0,0 +1,84 @@
+package com.monkeyj.compiler;
+
+public final class Instructions {
+
+    private Instructions() {}
+
+    public static byte[] make(final byte op, final int... operands) {
+        final var def = OpCode.lookup(op);
+
+        int instructionLen = 1;
+        for (final int width : def.operandWidths()) {
+            instructionLen += width;
+        }
+
+        final byte[] instruction = new byte[instructionLen];
+        instruction[0] = op;
+
+        int offset = 1;
+        for (int i = 0; i < operands.length; i++) {
+            final int width = def.operandWidths()[i];
+            if (operands[i] < 0 || operands[i] >= 1 << (width * 8)) {
+                throw new IllegalArgumentException(
+                        String.format("operand %d does not fit in %d byte(s) for %s", operands[i], width, def.name()));
+            }
+
+            switch (width) {
+                case 2 -> {
+                    instruction[offset] = (byte) (operands[i] >>> 8);
+                    instruction[offset + 1] = (byte) operands[i];
+                }
+                case 1 -> instruction[offset] = (byte) operands[i];
+                default -> throw new IllegalArgumentException("unsupported operand width: " + width);
+            }
+            offset += width;
+        }
+
+        return instruction;
+    }
+
+    public static int[] readOperands(final Definition def, final byte[] ins, final int offset) {
+        final int[] operands = new int[def.operandWidths().length];
+        int pos = offset;
+
+        for (int i = 0; i < operands.length; i++) {
+            final int width = def.operandWidths()[i];
+            operands[i] = width == 2 ? readUint16(ins, pos) : readUint8(ins, pos);
+            pos += width;
+        }
+
+        return operands;
+    }
+
+    public static int readUint16(final byte[] ins, final int offset) {
+        return ((ins[offset] & 0xFF) << 8) | (ins[offset + 1] & 0xFF);
+    }
+
+    public static int readUint8(final byte[] ins, final int offset) {
+        return ins[offset] & 0xFF;
+    }
+
+    public static String toString(final byte[] ins) {
+        final var out = new StringBuilder();
+
+        int i = 0;
+        while (i < ins.length) {
+            final var def = OpCode.lookup(ins[i]);
+            final int[] operands = readOperands(def, ins, i + 1);
+
+            out.append(String.format("%04d %s", i, def.name()));
+            for (final int operand : operands) {
+                out.append(' ').append(operand);
+            }
+            out.append('\n');
+
+            i += 1;
+            for (final int width : def.operandWidths()) {
+                i += width;
+            }
+        }
+
+        return out.toString();
+    }
+
+}
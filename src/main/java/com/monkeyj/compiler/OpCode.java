@@ -0,0 +1,95 @@
+package com.monkeyj.compiler;
+
+public final class OpCode {
+
+    private OpCode() {}
+
+    public static final byte CONSTANT = 0;
+    public static final byte POP = 1;
+    public static final byte ADD = 2;
+    public static final byte SUB = 3;
+    public static final byte MUL = 4;
+    public static final byte DIV = 5;
+    public static final byte TRUE = 6;
+    public static final byte FALSE = 7;
+    public static final byte EQUAL = 8;
+    public static final byte NOT_EQUAL = 9;
+    public static final byte GREATER_THAN = 10;
+    public static final byte LESS_THAN = 11;
+    public static final byte MINUS = 12;
+    public static final byte BANG = 13;
+    public static final byte JUMP_NOT_TRUTHY = 14;
+    public static final byte JUMP = 15;
+    public static final byte NULL = 16;
+    public static final byte GET_GLOBAL = 17;
+    public static final byte SET_GLOBAL = 18;
+    public static final byte ARRAY = 19;
+    public static final byte HASH = 20;
+    public static final byte INDEX = 21;
+    public static final byte CALL = 22;
+    public static final byte RETURN_VALUE = 23;
+    public static final byte RETURN = 24;
+    public static final byte GET_LOCAL = 25;
+    public static final byte SET_LOCAL = 26;
+    public static final byte GET_BUILTIN = 27;
+    public static final byte CLOSURE = 28;
+    public static final byte GET_FREE = 29;
+    public static final byte CURRENT_CLOSURE = 30;
+    public static final byte JUMP_IF_SET = 31;
+    public static final byte GET_CELL = 32;
+    public static final byte SET_CELL = 33;
+    public static final byte TAIL_CALL = 34;
+    public static final byte RETURN_STATEMENT = 35;
+    public static final byte EXIT_IF = 36;
+    public static final byte POP_OR_EXIT_IF = 37;
+
+    private static final Definition[] DEFINITIONS = {
+        new Definition("OpConstant", 2),
+        new Definition("OpPop"),
+        new Definition("OpAdd"),
+        new Definition("OpSub"),
+        new Definition("OpMul"),
+        new Definition("OpDiv"),
+        new Definition("OpTrue"),
+        new Definition("OpFalse"),
+        new Definition("OpEqual"),
+        new Definition("OpNotEqual"),
+        new Definition("OpGreaterThan"),
+        new Definition("OpLessThan"),
+        new Definition("OpMinus"),
+        new Definition("OpBang"),
+        new Definition("OpJumpNotTruthy", 2),
+        new Definition("OpJump", 2),
+        new Definition("OpNull"),
+        new Definition("OpGetGlobal", 2),
+        new Definition("OpSetGlobal", 2),
+        new Definition("OpArray", 2),
+        new Definition("OpHash", 2),
+        new Definition("OpIndex"),
+        new Definition("OpCall", 1),
+        new Definition("OpReturnValue"),
+        new Definition("OpReturn"),
+        new Definition("OpGetLocal", 1),
+        new Definition("OpSetLocal", 1),
+        new Definition("OpGetBuiltin", 1),
+        new Definition("OpClosure", 2, 1),
+        new Definition("OpGetFree", 1),
+        new Definition("OpCurrentClosure"),
+        new Definition("OpJumpIfSet", 2),
+        new Definition("OpGetCell", 1),
+        new Definition("OpSetCell", 1),
+        new Definition("OpTailCall", 1),
+        new Definition("OpReturnStatement"),
+        new Definition("OpExitIf", 2),
+        new Definition("OpPopOrExitIf", 2),
+    };
+
+    public static Definition lookup(final byte op) {
+        if (op < 0 || op >= DEFINITIONS.length) {
+            throw new IllegalArgumentException(String.format("opcode %d undefined", op));
+        }
+
+        return DEFINITIONS[op];
+    }
+
+}
@@ -0,0 +1,3 @@
+package com.monkeyj.compiler;
+
+public record Symbol(String name, String scope, int index) { }
@@ -0,0 +1,13 @@
+package com.monkeyj.compiler;
+
+public final class SymbolScope {
+
+    private SymbolScope() {}
+
+    public static final String GLOBAL = "GLOBAL";
+    public static final String LOCAL = "LOCAL";
+    public static final String BUILTIN = "BUILTIN";
+    public static final String FREE = "FREE";
+    public static final String FUNCTION = "FUNCTION";
+
+}
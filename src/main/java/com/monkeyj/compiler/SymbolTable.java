@@ -0,0 +1,175 @@
+package com.monkeyj.compiler;
+
+import com.monkeyj.evaluator.Builtins;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SymbolTable {
+
+    private final SymbolTable outer;
+    private final Map<String, Symbol> store;
+    private final List<Symbol> freeSymbols;
+    // The FREE symbol for each symbol of the outer table this one captured.
+    private final Map<Symbol, Symbol> captured;
+    // The locals that are sure to be set from here on, and the ones closures captured.
+    private final BitSet set;
+    private final BitSet capturedLocals;
+    private int numDefinitions;
+
+    public SymbolTable() {
+        this(null);
+    }
+
+    private SymbolTable(final SymbolTable outer) {
+        this.outer = outer;
+        this.store = new HashMap<>();
+        this.freeSymbols = new ArrayList<>();
+        this.captured = new HashMap<>();
+        this.set = new BitSet();
+        this.capturedLocals = new BitSet();
+    }
+
+    public static SymbolTable newEnclosedSymbolTable(final SymbolTable outer) {
+        return new SymbolTable(outer);
+    }
+
+    public static SymbolTable withBuiltins() {
+        final var table = new SymbolTable();
+        for (int i = 0; i < Builtins.NAMES.size(); i++) {
+            table.defineBuiltin(i, Builtins.NAMES.get(i));
+        }
+
+        return table;
+    }
+
+    public Symbol define(final String name) {
+        final var scope = this.outer == null ? SymbolScope.GLOBAL : SymbolScope.LOCAL;
+
+        // Re-binding a name in the same scope reuses its slot, the same way Environment.set overwrites.
+        final var existing = this.store.get(name);
+        if (existing != null && existing.scope().equals(scope)) {
+            return existing;
+        }
+
+        final var symbol = new Symbol(name, scope, this.numDefinitions++);
+        this.store.put(name, symbol);
+
+        return symbol;
+    }
+
+    public Symbol defineBuiltin(final int index, final String name) {
+        final var symbol = new Symbol(name, SymbolScope.BUILTIN, index);
+        this.store.put(name, symbol);
+
+        return symbol;
+    }
+
+    public Symbol defineFunctionName(final String name) {
+        final var symbol = new Symbol(name, SymbolScope.FUNCTION, 0);
+        this.store.put(name, symbol);
+
+        return symbol;
+    }
+
+    // Marks a local as set on every path from the point the compiler has got to.
+    public void markSet(final Symbol symbol) {
+        if (symbol.scope().equals(SymbolScope.LOCAL)) {
+            this.set.set(symbol.index());
+        }
+    }
+
+    // Whether symbol, as this table sees it, holds a value wherever the code being compiled reads it. A global that
+    // is not there is an error at run time anyway.
+    public boolean isSet(final Symbol symbol) {
+        return switch (symbol.scope()) {
+            case SymbolScope.LOCAL -> this.set.get(symbol.index());
+            case SymbolScope.FREE -> this.outer.isSet(this.freeSymbols.get(symbol.index()));
+            default -> true;
+        };
+    }
+
+    private Symbol capture(final Symbol original) {
+        final var existing = this.captured.get(original);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (original.scope().equals(SymbolScope.LOCAL)) {
+            this.outer.capturedLocals.set(original.index());
+        }
+        this.freeSymbols.add(original);
+
+        final var symbol = new Symbol(original.name(), SymbolScope.FREE, this.freeSymbols.size() - 1);
+        this.captured.put(original, symbol);
+
+        return symbol;
+    }
+
+    public Symbol resolve(final String name) {
+        final var symbols = this.resolveAll(name);
+        return symbols.isEmpty() ? null : symbols.get(0);
+    }
+
+    // Every symbol name may be read from at run time, in the order an Environment would look: the innermost first,
+    // up to the first one that is sure to be set. A local whose let has not run yet is empty, and the search then
+    // carries on outwards. Empty when no scope declares name.
+    public List<Symbol> resolveAll(final String name) {
+        final var own = this.store.get(name);
+        if (own != null && (this.outer == null || this.isSet(own))) {
+            return List.of(own);
+        }
+
+        final List<Symbol> symbols = new ArrayList<>();
+        if (own != null) {
+            symbols.add(own);
+        }
+        if (this.outer != null) {
+            for (final var symbol : this.outer.resolveAll(name)) {
+                final boolean everywhere = symbol.scope().equals(SymbolScope.GLOBAL) || symbol.scope().equals(SymbolScope.BUILTIN);
+                symbols.add(everywhere ? symbol : this.capture(symbol));
+            }
+        }
+
+        return symbols;
+    }
+
+    public SymbolTable getOuter() {
+        return outer;
+    }
+
+    public SymbolTable global() {
+        var table = this;
+        while (table.outer != null) {
+            table = table.outer;
+        }
+
+        return table;
+    }
+
+    public List<Symbol> getFreeSymbols() {
+        return Collections.unmodifiableList(this.freeSymbols);
+    }
+
+    public BitSet getCapturedLocals() {
+        return (BitSet) this.capturedLocals.clone();
+    }
+
+    public int getNumDefinitions() {
+        return numDefinitions;
+    }
+
+    public List<String> globalNames() {
+        final var names = new String[this.numDefinitions];
+        this.store.values().stream()
+                .filter(symbol -> symbol.scope().equals(SymbolScope.GLOBAL))
+                .forEach(symbol -> names[symbol.index()] = symbol.name());
+
+        return List.of(names);
+    }
+
+}
@@ -2,7 +2,6 @@ package com.monkeyj.evaluator;
 
 import com.monkeyj.object.*;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -12,8 +11,8 @@ public final class Builtins {
 
     private Builtins() {}
 
-    public static final Map<String, Builtin> BUILTINS = Map.of(
-        "len", new Builtin(
+    public static final Map<String, Builtin> BUILTINS = Map.ofEntries(
+        Map.entry("len", new Builtin(
                 args -> {
                     if (args.size() != 1) {
                         return newError("wrong number of arguments. got=%d, want=1", args.size());
@@ -21,18 +20,15 @@ public final class Builtins {
 
                     final Obj firstArg = args.get(0);
 
-                    if (firstArg instanceof Str str) {
-                        return Int.of(str.getValue().length());
-                    }
-
-                    if (firstArg instanceof Array arr) {
-                        return Int.of(arr.getElements().size());
-                    }
-
-                    return newError("argument to `len` not supported, got %s", firstArg.type());
+                    return switch (firstArg.objType()) {
+                        case STRING -> Int.of(((Str) firstArg).length());
+                        case ARRAY -> Int.of(((Array) firstArg).size());
+                        case INTEGER, BOOLEAN, NULL, HASH, FUNCTION, BUILTIN, ERROR, RETURN_VALUE, COMPILED_FUNCTION ->
+                                newError("argument to `len` not supported, got %s", firstArg.type());
+                    };
                 }
-        )
-        , "first", new Builtin(
+        ))
+        , Map.entry("first", new Builtin(
                 args -> {
                     if (args.size() != 1) {
                         return newError("wrong number of arguments. got=%d, want=1", args.size());
@@ -40,19 +36,19 @@ public final class Builtins {
 
                     final Obj firstArg = args.get(0);
 
-                    if (!firstArg.type().equals(ObjConstants.ARRAY_OBJ)) {
+                    if (firstArg.objType() != ObjType.ARRAY) {
                         return newError("argument to `first` must be ARRAY, got %s", firstArg.type());
                     }
 
                     final Array arr = (Array) firstArg;
-                    if (arr.getElements().size() > 0) {
-                        return arr.getElements().get(0);
+                    if (arr.size() > 0) {
+                        return arr.get(0);
                     }
 
                     return Literals.NULL;
                 }
-        )
-            , "last", new Builtin(
+        ))
+            , Map.entry("last", new Builtin(
                     args -> {
                         if (args.size() != 1) {
                             return newError("wrong number of arguments. got=%d, want=1", args.size());
@@ -60,59 +56,53 @@ public final class Builtins {
 
                         final Obj firstArg = args.get(0);
 
-                        if (!firstArg.type().equals(ObjConstants.ARRAY_OBJ)) {
+                        if (firstArg.objType() != ObjType.ARRAY) {
                             return newError("argument to `last` must be ARRAY, got %s", firstArg.type());
                         }
 
                         final Array arr = (Array) firstArg;
-                        final var length = arr.getElements().size();
+                        final var length = arr.size();
                         if (length > 0) {
-                            return arr.getElements().get(length - 1);
+                            return arr.get(length - 1);
                         }
 
                         return Literals.NULL;
                     }
-            )
-            , "rest", new Builtin(
+            ))
+            , Map.entry("rest", new Builtin(
                 args -> {
                     if (args.size() != 1) {
                         return newError("wrong number of arguments. got=%d, want=1", args.size());
                     }
 
-                    if (!args.get(0).type().equals(ObjConstants.ARRAY_OBJ)) {
+                    if (args.get(0).objType() != ObjType.ARRAY) {
                         return newError("argument to `rest` must be ARRAY, got %s", args.get(0).type());
                     }
 
                     final var arr = (Array) args.get(0);
-                    final int length = arr.getElements().size();
-
-                    if (length > 0) {
-                        final var newElements = arr.getElements().subList(1, length);
-                        return new Array(newElements);
+                    if (arr.size() > 0) {
+                        return arr.rest();
                     }
 
                     return Literals.NULL;
                 }
-            )
-            , "push", new Builtin(
+            ))
+            , Map.entry("push", new Builtin(
                     args -> {
                         if (args.size() != 2) {
                             return newError("wrong number of arguments. got=%d, want=2", args.size());
                         }
 
-                        if (!args.get(0).type().equals(ObjConstants.ARRAY_OBJ)) {
+                        if (args.get(0).objType() != ObjType.ARRAY) {
                             return newError("argument to `push` must be ARRAY, got %s", args.get(0).type());
                         }
 
                         final var arr = (Array) args.get(0);
 
-                        final List<Obj> newElements = new ArrayList<>(arr.getElements());
-                        newElements.add(args.get(1));
-
-                        return new Array(newElements);
+                        return arr.push(args.get(1));
                     }
-            )
-            , "puts", new Builtin(
+            ))
+            , Map.entry("puts", new Builtin(
                     args -> {
                         for (final var arg : args) {
                             System.out.println(arg.inspect());
@@ -120,7 +110,88 @@ public final class Builtins {
 
                         return Literals.NULL;
                     }
-            )
+            ))
+            , Map.entry("set", new Builtin(
+                    args -> {
+                        if (args.size() != 3) {
+                            return newError("wrong number of arguments. got=%d, want=3", args.size());
+                        }
+
+                        if (args.get(0).objType() != ObjType.HASH) {
+                            return newError("argument to `set` must be HASH, got %s", args.get(0).type());
+                        }
+
+                        if (!(args.get(1) instanceof Hashable key)) {
+                            return newError("unusable as hash key: %s", args.get(1).type());
+                        }
+
+                        return ((Hash) args.get(0)).put(key, args.get(2));
+                    }
+            ))
+            , Map.entry("delete", new Builtin(
+                    args -> {
+                        if (args.size() != 2) {
+                            return newError("wrong number of arguments. got=%d, want=2", args.size());
+                        }
+
+                        if (args.get(0).objType() != ObjType.HASH) {
+                            return newError("argument to `delete` must be HASH, got %s", args.get(0).type());
+                        }
+
+                        if (!(args.get(1) instanceof Hashable key)) {
+                            return newError("unusable as hash key: %s", args.get(1).type());
+                        }
+
+                        return ((Hash) args.get(0)).remove(key);
+                    }
+            ))
+            , Map.entry("keys", new Builtin(
+                    args -> {
+                        if (args.size() != 1) {
+                            return newError("wrong number of arguments. got=%d, want=1", args.size());
+                        }
+
+                        if (args.get(0).objType() != ObjType.HASH) {
+                            return newError("argument to `keys` must be HASH, got %s", args.get(0).type());
+                        }
+
+                        final var pairs = ((Hash) args.get(0)).getPairs().values();
+
+                        return new Array(pairs.stream().map(HashPair::getKey).toList());
+                    }
+            ))
+            , Map.entry("values", new Builtin(
+                    args -> {
+                        if (args.size() != 1) {
+                            return newError("wrong number of arguments. got=%d, want=1", args.size());
+                        }
+
+                        if (args.get(0).objType() != ObjType.HASH) {
+                            return newError("argument to `values` must be HASH, got %s", args.get(0).type());
+                        }
+
+                        final var pairs = ((Hash) args.get(0)).getPairs().values();
+
+                        return new Array(pairs.stream().map(HashPair::getValue).toList());
+                    }
+            ))
+            , Map.entry("merge", new Builtin(
+                    args -> {
+                        if (args.size() != 2) {
+                            return newError("wrong number of arguments. got=%d, want=2", args.size());
+                        }
+
+                        for (final var arg : args) {
+                            if (arg.objType() != ObjType.HASH) {
+                                return newError("argument to `merge` must be HASH, got %s", arg.type());
+                            }
+                        }
+
+                        return ((Hash) args.get(0)).merge((Hash) args.get(1));
+                    }
+            ))
     );
 
+    public static final List<String> NAMES = BUILTINS.keySet().stream().sorted().toList();
+
 }
@@ -0,0 +1,55 @@
+package com.monkeyj.evaluator;
+
+import com.monkeyj.object.Obj;
+
+import java.util.List;
+
+// How the body of a function finished, when it is not by simply running out of statements: through a return
+// statement, whose value then needs no ReturnValue wrapper, or with a call in tail position, left here for the
+// trampoline in Evaluator.callFunction instead of being applied. One instance serves every iteration of a trampoline.
+final class CallState {
+
+    private Obj function;
+    private List<Obj> args;
+    private boolean tailCall;
+    private boolean returned;
+
+    void tailCall(final Obj function, final List<Obj> args) {
+        this.function = function;
+        this.args = args;
+        this.tailCall = true;
+    }
+
+    void returned() {
+        this.returned = true;
+    }
+
+    // Once the body is done, every block on the way up returns straight away.
+    boolean isDone() {
+        return tailCall || returned;
+    }
+
+    boolean isTailCall() {
+        return tailCall;
+    }
+
+    boolean isReturned() {
+        return returned;
+    }
+
+    Obj getFunction() {
+        return function;
+    }
+
+    List<Obj> getArgs() {
+        return args;
+    }
+
+    void clear() {
+        this.function = null;
+        this.args = null;
+        this.tailCall = false;
+        this.returned = false;
+    }
+
+}
@@ -2,6 +2,7 @@ package com.monkeyj.evaluator;
 
 import com.monkeyj.ast.*;
 import com.monkeyj.ast.Bool;
+import com.monkeyj.jit.Jit;
 import com.monkeyj.object.*;
 import com.monkeyj.object.Error;
 
@@ -12,27 +13,19 @@ public final class Evaluator {
     private Evaluator() {}
 
     private static Obj evalBangOperatorExpression(final Obj right) {
-        if (right.equals(Literals.TRUE)) {
-            return Literals.FALSE;
-        } else if (right.equals(Literals.FALSE)) {
-            return Literals.TRUE;
-        } else if (right.equals(Literals.NULL)) {
-            return Literals.TRUE;
-        }
-
-        return Literals.FALSE;
+        return isTruthy(right) ? Literals.FALSE : Literals.TRUE;
     }
 
     private static Obj evalMinusPrefixOperatorExpression(final Obj right) {
-        if (!right.type().equals(ObjConstants.INTEGER_OBJ)) {
+        if (right.objType() != ObjType.INTEGER) {
             return newError("unknown operator: -%s", right.type());
         }
 
         final var value = ((Int) right).getValue();
-        return new Int(-(value));
+        return Int.of(-(value));
     }
 
-    private static Obj evalPrefixExpression(final String operator, final Obj right) {
+    static Obj evalPrefixExpression(final String operator, final Obj right) {
         return switch (operator) {
             case "!" -> evalBangOperatorExpression(right);
             case "-" -> evalMinusPrefixOperatorExpression(right);
@@ -45,10 +38,10 @@ public final class Evaluator {
         final int rightVal = ((Int) right).getValue();
 
         return switch (operator) {
-            case "+" -> new Int(leftVal + rightVal);
-            case "-" -> new Int(leftVal - rightVal);
-            case "*" -> new Int(leftVal * rightVal);
-            case "/" -> new Int(leftVal / rightVal);
+            case "+" -> Int.of(leftVal + rightVal);
+            case "-" -> Int.of(leftVal - rightVal);
+            case "*" -> Int.of(leftVal * rightVal);
+            case "/" -> Int.of(leftVal / rightVal);
             case "<" -> nativeBoolToBooleanObject(leftVal < rightVal);
             case ">" -> nativeBoolToBooleanObject(leftVal > rightVal);
             case "==" -> nativeBoolToBooleanObject(leftVal == rightVal);
@@ -57,15 +50,21 @@ public final class Evaluator {
         };
     }
 
-    private static Obj evalInfixExpression(final String operator, final Obj left, final Obj right) {
-        if (left.type().equals(ObjConstants.INTEGER_OBJ) && right.type().equals(ObjConstants.INTEGER_OBJ)) {
-            return evalIntegerInfixExpression(operator, left, right);
-        }
-
-        if (left.type().equals(ObjConstants.STRING_OBJ) && right.type().equals(ObjConstants.STRING_OBJ)) {
-            return evalStringInfixExpression(operator, left, right);
-        }
+    static Obj evalInfixExpression(final String operator, final Obj left, final Obj right) {
+        return switch (left.objType()) {
+            case INTEGER -> right.objType() == ObjType.INTEGER
+                    ? evalIntegerInfixExpression(operator, left, right)
+                    : evalMixedInfixExpression(operator, left, right);
+            case STRING -> right.objType() == ObjType.STRING
+                    ? evalStringInfixExpression(operator, left, right)
+                    : evalMixedInfixExpression(operator, left, right);
+            case BOOLEAN, NULL, ARRAY, HASH, FUNCTION, BUILTIN, ERROR, RETURN_VALUE, COMPILED_FUNCTION ->
+                    evalMixedInfixExpression(operator, left, right);
+        };
+    }
 
+    // Anything that is not an integer or a string only supports comparing references.
+    private static Obj evalMixedInfixExpression(final String operator, final Obj left, final Obj right) {
         if (operator.equals("==")) {
             return nativeBoolToBooleanObject(left == right);
         }
@@ -82,10 +81,7 @@ public final class Evaluator {
             return newError("unknown operator: %s %s %s", left.type(), operator, right.type());
         }
 
-        final var leftVal = ((Str) left).getValue();
-        final var rightVal = ((Str) right).getValue();
-
-        return new Str(leftVal + rightVal);
+        return Str.concat((Str) left, (Str) right);
     }
 
     private static Obj evalProgram(final Program program, final Environment env) {
@@ -113,8 +109,8 @@ public final class Evaluator {
 //                return result;
 //            }
             if (result != null) {
-                final var rt = result.type();
-                if (rt.equals(ObjConstants.RETURN_VALUE_OBJ) || rt.equals(ObjConstants.ERROR_OBJ)) {
+                final var rt = result.objType();
+                if (rt == ObjType.RETURN_VALUE || rt == ObjType.ERROR) {
                     return result;
                 }
             }
@@ -130,10 +126,7 @@ public final class Evaluator {
         } else if (node instanceof final ExpressionStatement expr) {
             return eval(expr.getExpression(), env);
         } else if (node instanceof final IntegerLiteral literal) {
-            final var intObj = new Int();
-            intObj.setValue(literal.getValue());
-
-            return intObj;
+            return literal.getConstant();
         } else if (node instanceof final Bool boolLiteral) {
             return nativeBoolToBooleanObject(boolLiteral.getValue());
         } else if (node instanceof final PrefixExpression prefix) {
@@ -166,10 +159,7 @@ public final class Evaluator {
         } else if (node instanceof Identifier identifier) {
             return evalIdentifier(identifier, env);
         } else if (node instanceof FunctionLiteral fn) {
-            final var params = fn.getParameters();
-            final var body = fn.getBody();
-
-            return new Function(params, body, env);
+            return new Function(fn, env);
         } else if (node instanceof StringLiteral str) {
             return new Str(str.getValue());
         } else if (node instanceof CallExpression call) {
@@ -211,7 +201,7 @@ public final class Evaluator {
     }
 
     private static Obj evalHashLiteral(final HashLiteral node, final Environment env) {
-        final Map<HashKey, HashPair> pairs = new HashMap<>();
+        var pairs = PersistentHashMap.EMPTY;
 
         for (final Map.Entry<Expression, Expression> entry : node.getPairs().entrySet()) {
             final var key = eval(entry.getKey(), env);
@@ -225,8 +215,7 @@ public final class Evaluator {
                     return value;
                 }
 
-                final var hashed = hashKey.hashKey();
-                pairs.put(hashed, new HashPair(key, value));
+                pairs = pairs.put(new HashPair(key, value));
             } else {
                 return newError("unusable as hash key: %s", key.type());
             }
@@ -235,13 +224,15 @@ public final class Evaluator {
         return new Hash(pairs);
     }
 
-    private static Obj evalIndexExpression(final Obj left, final Obj index) {
-        if (left.type().equals(ObjConstants.ARRAY_OBJ) && index.type().equals(ObjConstants.INTEGER_OBJ)) {
-            return evalArrayIndexExpression(left, index);
-        } else if (left.type().equals(ObjConstants.HASH_OBJ)) {
-            return evalHashIndexExpression(left, index);
-        }
-        return newError("index operator not supported: %s", left.type());
+    static Obj evalIndexExpression(final Obj left, final Obj index) {
+        return switch (left.objType()) {
+            case ARRAY -> index.objType() == ObjType.INTEGER
+                    ? evalArrayIndexExpression(left, index)
+                    : newError("index operator not supported: %s", left.type());
+            case HASH -> evalHashIndexExpression(left, index);
+            case INTEGER, BOOLEAN, NULL, STRING, FUNCTION, BUILTIN, ERROR, RETURN_VALUE, COMPILED_FUNCTION ->
+                    newError("index operator not supported: %s", left.type());
+        };
     }
 
     private static Obj evalHashIndexExpression(final Obj hash, final Obj index) {
@@ -251,7 +242,7 @@ public final class Evaluator {
         }
 
         final Hashable key = (Hashable) index;
-        final var pair = hashObject.getPairs().get(key.hashKey());
+        final var pair = hashObject.get(key);
         if (pair == null) {
             return Literals.NULL;
         }
@@ -271,11 +262,9 @@ public final class Evaluator {
         return arrayObject.getElements().get(idx);
     }
 
-    private static Obj applyFunction(final Obj function, final List<Obj> args) {
+    public static Obj applyFunction(final Obj function, final List<Obj> args) {
         if (function instanceof Function fn) {
-            final var extendedEnv = extendFunctionEnv(fn, args);
-            final var evaluated = eval(fn.getBody(), extendedEnv);
-            return unwrapReturnValue(evaluated);   
+            return callFunction(fn, args);
         }
 
         if (function instanceof Builtin fn) {
@@ -285,7 +274,137 @@ public final class Evaluator {
         return newError("not a function: %s", function.type());
     }
 
-    private static Obj unwrapReturnValue(final Obj obj) {
+    // A trampoline: calls in tail position come back as a pending tail call and run in this loop, so tail recursion
+    // (and mutual recursion) uses constant Java stack. The next function is entered before the previous one exits,
+    // so a tail call to itself still counts as a loop back edge.
+    private static Obj callFunction(final Function fn, final List<Obj> args) {
+        final var call = new CallState();
+        Function current = fn;
+        List<Obj> currentArgs = args;
+        FunctionLiteral running = null;
+
+        try {
+            while (true) {
+                final var literal = current.getLiteral();
+                if (literal != null) {
+                    literal.enter();
+                }
+                if (running != null) {
+                    running.exit();
+                }
+                running = literal;
+
+                if (literal != null && Jit.isEnabled() && Jit.isHot(literal)) {
+                    final var compiled = Jit.invoke(current, currentArgs);
+                    if (compiled != null) {
+                        return compiled;
+                    }
+                }
+
+                final var extendedEnv = extendFunctionEnv(current, currentArgs);
+                final var evaluated = evalTailBlock(current.getBody(), extendedEnv, call, true);
+                if (call.isReturned()) {
+                    return evaluated;
+                }
+                if (!call.isTailCall()) {
+                    return unwrapReturnValue(evaluated);
+                }
+
+                final var next = call.getFunction();
+                currentArgs = call.getArgs();
+                call.clear();
+
+                if (!(next instanceof Function nextFunction)) {
+                    return applyFunction(next, currentArgs);
+                }
+                current = nextFunction;
+            }
+        } finally {
+            if (running != null) {
+                running.exit();
+            }
+        }
+    }
+
+    // Evaluates a function body. Tail position is the last statement of the body, any return statement, and the
+    // branches of an if in tail position. Return statements seen here report through the CallState rather than
+    // allocating a ReturnValue; only a return nested in an expression, like `let x = if (c) { return 1; }`, still
+    // needs one.
+    private static Obj evalTailBlock(
+            final BlockStatement block, final Environment env, final CallState call, final boolean tail) {
+        Obj result = null;
+        final var statements = block.getStatements();
+
+        for (int i = 0; i < statements.size(); i++) {
+            result = evalTailStatement(statements.get(i), env, call, tail && i == statements.size() - 1);
+            if (call.isDone()) {
+                return result;
+            }
+            if (result != null) {
+                final var rt = result.objType();
+                if (rt == ObjType.RETURN_VALUE || rt == ObjType.ERROR) {
+                    return result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static Obj evalTailStatement(
+            final Statement stmt, final Environment env, final CallState call, final boolean tail) {
+        if (stmt instanceof ReturnStatement returnStmt) {
+            final var val = evalTailExpression(returnStmt.getReturnValue(), env, call, true);
+            if (call.isTailCall() || isError(val)) {
+                return val;
+            }
+            // A return inside the returned value, `return if (c) { return 1; }`, comes out wrapped as it always has.
+            if (call.isReturned()) {
+                return new ReturnValue(val);
+            }
+            call.returned();
+            return val;
+        } else if (stmt instanceof ExpressionStatement expr) {
+            return evalTailExpression(expr.getExpression(), env, call, tail);
+        }
+
+        return eval(stmt, env);
+    }
+
+    private static Obj evalTailExpression(
+            final Expression exp, final Environment env, final CallState call, final boolean tail) {
+        if (exp instanceof IfExpression ifExpression) {
+            final var condition = eval(ifExpression.getCondition(), env);
+            if (isError(condition)) {
+                return condition;
+            }
+
+            if (isTruthy(condition)) {
+                return evalTailBlock(ifExpression.getConsequence(), env, call, tail);
+            } else if (ifExpression.getAlternative() != null) {
+                return evalTailBlock(ifExpression.getAlternative(), env, call, tail);
+            } else {
+                return Literals.NULL;
+            }
+        } else if (tail && exp instanceof CallExpression callExp) {
+            final var function = eval(callExp.getFunction(), env);
+            if (isError(function)) {
+                return function;
+            }
+
+            final var args = evalExpressions(callExp.getArguments(), env);
+            if (args.size() == 1 && isError(args.get(0))) {
+                return args.get(0);
+            }
+
+            call.tailCall(function, args);
+            return null;
+        }
+
+        return eval(exp, env);
+    }
+
+    static Obj unwrapReturnValue(final Obj obj) {
         if (obj instanceof ReturnValue returnValue) {
             return returnValue.getValue();
         }
@@ -293,7 +412,7 @@ public final class Evaluator {
         return obj;
     }
 
-    private static Environment extendFunctionEnv(final Function function, final List<Obj> args) {
+    static Environment extendFunctionEnv(final Function function, final List<Obj> args) {
         final var env = Environment.newEnclosedEnvironment(function.getEnv());
 
         for (int paramIdx = 0; paramIdx < function.getParameters().size(); paramIdx++) {
@@ -318,7 +437,7 @@ public final class Evaluator {
         return result;
     }
 
-    private static Obj evalIdentifier(final Identifier node, final Environment env) {
+    static Obj evalIdentifier(final Identifier node, final Environment env) {
         final var val = env.get(node.getValue());
         if (val != null) {
             return val;
@@ -329,7 +448,7 @@ public final class Evaluator {
             return builtin;
         }
 
-        return newError("identifier not found: " + node.getValue());
+        return newError("identifier not found: %s", node.getValue());
     }
 
     private static Obj evalIfExpression(final IfExpression ifExpression, final Environment env) {
@@ -347,11 +466,15 @@ public final class Evaluator {
         }
     }
 
-    private static boolean isTruthy(final Obj obj) {
-        return !obj.equals(Literals.NULL) && !obj.equals(Literals.FALSE);
+    static boolean isTruthy(final Obj obj) {
+        return switch (obj.objType()) {
+            case NULL -> false;
+            case BOOLEAN -> ((com.monkeyj.object.Bool) obj).getValue();
+            case INTEGER, STRING, ARRAY, HASH, FUNCTION, BUILTIN, ERROR, RETURN_VALUE, COMPILED_FUNCTION -> true;
+        };
     }
 
-    private static com.monkeyj.object.Bool nativeBoolToBooleanObject(final boolean input) {
+    static com.monkeyj.object.Bool nativeBoolToBooleanObject(final boolean input) {
         return input ? Literals.TRUE : Literals.FALSE;
     }
 
@@ -372,15 +495,11 @@ public final class Evaluator {
      */
 
     public static Error newError(final String format, final Object... args) {
-        return new Error(String.format(format, args));
+        return new Error(format, args);
     }
 
-    private static boolean isError(final Obj obj) {
-        if (obj != null) {
-            return obj.type().equals(ObjConstants.ERROR_OBJ);
-        }
-
-        return false;
+    static boolean isError(final Obj obj) {
+        return obj instanceof Error;
     }
 
 }
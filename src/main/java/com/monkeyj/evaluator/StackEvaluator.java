@@ -0,0 +1,549 @@
+package com.monkeyj.evaluator;
+
+import com.monkeyj.ast.*;
+import com.monkeyj.ast.Bool;
+import com.monkeyj.jit.Jit;
+import com.monkeyj.object.*;
+
+import java.util.*;
+
+import static com.monkeyj.evaluator.Evaluator.*;
+
+// Evaluates like Evaluator.eval, but keeps its own stack of heap-allocated frames instead of recursing on the Java
+// stack, so the depth of Monkey recursion is only limited by the frame budget. Running out of frames is reported as
+// a "stack overflow" error. An instance is not thread-safe and keeps the depth metrics of its last evaluation.
+public final class StackEvaluator {
+
+    public static final int DEFAULT_MAX_FRAMES = 1_000_000;
+
+    private static final int INITIAL_FRAMES = 64;
+
+    private final int maxFrames;
+    private Frame[] frames = new Frame[INITIAL_FRAMES];
+    private int depth;
+    private int callDepth;
+    private int peakDepth;
+    private int peakCallDepth;
+
+    // The value of the last node that finished, read by the frame that was waiting for it. Any Error aborts the
+    // whole evaluation, exactly like it travels all the way up in the Evaluator.
+    private Obj value;
+
+    public StackEvaluator() {
+        this(Integer.getInteger("monkeyj.stack.frames", DEFAULT_MAX_FRAMES));
+    }
+
+    public StackEvaluator(final int maxFrames) {
+        if (maxFrames < 1) {
+            throw new IllegalArgumentException("frame budget must be positive: " + maxFrames);
+        }
+        this.maxFrames = maxFrames;
+    }
+
+    public int getMaxFrames() {
+        return maxFrames;
+    }
+
+    // The most frames that were live at once during the last evaluation.
+    public int getPeakDepth() {
+        return peakDepth;
+    }
+
+    // The deepest nesting of Monkey function calls during the last evaluation. Tail calls do not nest.
+    public int getPeakCallDepth() {
+        return peakCallDepth;
+    }
+
+    public Obj eval(final Node node, final Environment env) {
+        this.peakDepth = 0;
+        this.peakCallDepth = 0;
+        this.value = null;
+
+        try {
+            this.push(node, env);
+            while (this.depth > 0 && !isError(this.value)) {
+                this.frames[this.depth - 1].step(this);
+            }
+
+            return this.value;
+        } finally {
+            this.unwind();
+        }
+    }
+
+    // Leaves are evaluated straight into the value register; everything else gets a frame.
+    private void push(final Node node, final Environment env) {
+        if (node instanceof final ExpressionStatement expr) {
+            this.push(expr.getExpression(), env);
+        } else if (node instanceof final IntegerLiteral literal) {
+            this.value = literal.getConstant();
+        } else if (node instanceof final Bool boolLiteral) {
+            this.value = nativeBoolToBooleanObject(boolLiteral.getValue());
+        } else if (node instanceof final StringLiteral str) {
+            this.value = new Str(str.getValue());
+        } else if (node instanceof final Identifier identifier) {
+            this.value = evalIdentifier(identifier, env);
+        } else if (node instanceof final FunctionLiteral fn) {
+            this.value = new Function(fn, env);
+        } else if (node instanceof final Program program) {
+            this.frame(new ProgramFrame(program.getStatements(), env));
+        } else if (node instanceof final BlockStatement block) {
+            this.frame(new BlockFrame(block.getStatements(), env));
+        } else if (node instanceof final PrefixExpression prefix) {
+            this.frame(new PrefixFrame(prefix, env));
+        } else if (node instanceof final InfixExpression infix) {
+            this.frame(new InfixFrame(infix, env));
+        } else if (node instanceof final IfExpression ifExpression) {
+            this.frame(new IfFrame(ifExpression, env));
+        } else if (node instanceof final ReturnStatement returnStmt) {
+            this.frame(new ReturnFrame(returnStmt, env));
+        } else if (node instanceof final LetStatement letStmt) {
+            this.frame(new LetFrame(letStmt, env));
+        } else if (node instanceof final CallExpression call) {
+            this.frame(new CallFrame(call, env));
+        } else if (node instanceof final ArrayLiteral arr) {
+            this.frame(new ArrayFrame(arr.getElements(), env));
+        } else if (node instanceof final IndexExpression index) {
+            this.frame(new IndexFrame(index, env));
+        } else if (node instanceof final HashLiteral hash) {
+            this.frame(new HashFrame(hash, env));
+        } else {
+            this.value = null;
+        }
+    }
+
+    private boolean frame(final Frame frame) {
+        if (this.depth == this.maxFrames) {
+            this.value = newError("stack overflow: more than %d frames", this.maxFrames);
+            return false;
+        }
+
+        if (this.depth == this.frames.length) {
+            this.frames = Arrays.copyOf(this.frames, (int) Math.min(this.maxFrames, this.frames.length * 2L));
+        }
+
+        this.frames[this.depth++] = frame;
+        this.peakDepth = Math.max(this.peakDepth, this.depth);
+        return true;
+    }
+
+    private void pop(final Obj result) {
+        this.frames[--this.depth] = null;
+        this.value = result;
+    }
+
+    private void unwind() {
+        while (this.depth > 0) {
+            final var frame = this.frames[--this.depth];
+            this.frames[this.depth] = null;
+            if (frame instanceof final FunctionFrame fn) {
+                fn.exit();
+            }
+        }
+        this.callDepth = 0;
+    }
+
+    private void apply(final Obj function, final List<Obj> args) {
+        if (function instanceof final Builtin builtin) {
+            this.value = builtin.getFn().apply(args);
+            return;
+        }
+
+        if (!(function instanceof final Function fn)) {
+            this.value = newError("not a function: %s", function.type());
+            return;
+        }
+
+        final var literal = fn.getLiteral();
+        if (literal != null) {
+            literal.enter();
+        }
+
+        final var caller = this.tailCaller();
+        if (caller != null) {
+            while (this.frames[this.depth - 1] != caller) {
+                this.frames[--this.depth] = null;
+            }
+            caller.exit();
+            caller.literal = literal;
+        } else {
+            if (!this.frame(new FunctionFrame(literal))) {
+                if (literal != null) {
+                    literal.exit();
+                }
+                return;
+            }
+            this.callDepth++;
+            this.peakCallDepth = Math.max(this.peakCallDepth, this.callDepth);
+        }
+
+        if (literal != null && Jit.isEnabled() && Jit.isHot(literal)) {
+            final var compiled = Jit.invoke(fn, args);
+            if (compiled != null) {
+                this.value = compiled;
+                return;
+            }
+        }
+
+        this.push(fn.getBody(), extendFunctionEnv(fn, args));
+    }
+
+    // The function frame a call can take over, the same tail positions as Evaluator.callFunction: nothing but blocks
+    // running their last statement lies between the call and the function frame, or a return statement and then
+    // blocks in any state.
+    private FunctionFrame tailCaller() {
+        boolean returning = false;
+
+        for (int i = this.depth - 1; i >= 0; i--) {
+            final var frame = this.frames[i];
+            if (frame instanceof final FunctionFrame fn) {
+                return fn;
+            }
+
+            if (frame instanceof ReturnFrame && !returning) {
+                returning = true;
+            } else if (!(frame instanceof final BlockFrame block && (returning || block.isRunningLast()))) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    // The function a return statement on top of the stack leaves directly, when only blocks lie in between. Anywhere
+    // else, at the top level or inside an expression, the return needs a ReturnValue like in the Evaluator.
+    private FunctionFrame returnTarget() {
+        for (int i = this.depth - 2; i >= 0; i--) {
+            final var frame = this.frames[i];
+            if (frame instanceof final FunctionFrame fn) {
+                return fn;
+            }
+            if (!(frame instanceof BlockFrame)) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    private void returnFrom(final FunctionFrame caller, final Obj result) {
+        while (this.frames[this.depth - 1] != caller) {
+            this.frames[--this.depth] = null;
+        }
+        caller.finish(this, result);
+    }
+
+    private abstract static class Frame {
+        final Environment env;
+        int state;
+
+        Frame(final Environment env) {
+            this.env = env;
+        }
+
+        abstract void step(StackEvaluator machine);
+    }
+
+    private static final class ProgramFrame extends Frame {
+        private final List<Statement> statements;
+
+        ProgramFrame(final List<Statement> statements, final Environment env) {
+            super(env);
+            this.statements = statements;
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state > 0 && machine.value instanceof final ReturnValue returnValue) {
+                machine.pop(returnValue.getValue());
+            } else if (this.state == this.statements.size()) {
+                machine.pop(this.state == 0 ? null : machine.value);
+            } else {
+                machine.push(this.statements.get(this.state++), this.env);
+            }
+        }
+    }
+
+    private static final class BlockFrame extends Frame {
+        private final List<Statement> statements;
+
+        BlockFrame(final List<Statement> statements, final Environment env) {
+            super(env);
+            this.statements = statements;
+        }
+
+        boolean isRunningLast() {
+            return this.state == this.statements.size();
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state > 0 && machine.value != null && machine.value.objType() == ObjType.RETURN_VALUE) {
+                machine.pop(machine.value);
+            } else if (this.state == this.statements.size()) {
+                machine.pop(this.state == 0 ? null : machine.value);
+            } else {
+                machine.push(this.statements.get(this.state++), this.env);
+            }
+        }
+    }
+
+    private static final class PrefixFrame extends Frame {
+        private final PrefixExpression prefix;
+
+        PrefixFrame(final PrefixExpression prefix, final Environment env) {
+            super(env);
+            this.prefix = prefix;
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state++ == 0) {
+                machine.push(this.prefix.getRight(), this.env);
+            } else {
+                machine.pop(evalPrefixExpression(this.prefix.getOperator(), machine.value));
+            }
+        }
+    }
+
+    private static final class InfixFrame extends Frame {
+        private final InfixExpression infix;
+        private Obj left;
+
+        InfixFrame(final InfixExpression infix, final Environment env) {
+            super(env);
+            this.infix = infix;
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            switch (this.state++) {
+                case 0 -> machine.push(this.infix.getLeft(), this.env);
+                case 1 -> {
+                    this.left = machine.value;
+                    machine.push(this.infix.getRight(), this.env);
+                }
+                default -> machine.pop(evalInfixExpression(this.infix.getOperator(), this.left, machine.value));
+            }
+        }
+    }
+
+    // Once the condition is known the frame gives its place to the branch, which keeps the branch in tail position.
+    private static final class IfFrame extends Frame {
+        private final IfExpression ifExpression;
+
+        IfFrame(final IfExpression ifExpression, final Environment env) {
+            super(env);
+            this.ifExpression = ifExpression;
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state++ == 0) {
+                machine.push(this.ifExpression.getCondition(), this.env);
+                return;
+            }
+
+            final var condition = machine.value;
+            machine.pop(Literals.NULL);
+            if (isTruthy(condition)) {
+                machine.push(this.ifExpression.getConsequence(), this.env);
+            } else if (this.ifExpression.getAlternative() != null) {
+                machine.push(this.ifExpression.getAlternative(), this.env);
+            }
+        }
+    }
+
+    private static final class ReturnFrame extends Frame {
+        private final ReturnStatement returnStmt;
+
+        ReturnFrame(final ReturnStatement returnStmt, final Environment env) {
+            super(env);
+            this.returnStmt = returnStmt;
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state++ == 0) {
+                machine.push(this.returnStmt.getReturnValue(), this.env);
+                return;
+            }
+
+            final var caller = machine.returnTarget();
+            if (caller != null) {
+                machine.returnFrom(caller, machine.value);
+            } else {
+                machine.pop(new ReturnValue(machine.value));
+            }
+        }
+    }
+
+    private static final class LetFrame extends Frame {
+        private final LetStatement letStmt;
+
+        LetFrame(final LetStatement letStmt, final Environment env) {
+            super(env);
+            this.letStmt = letStmt;
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state++ == 0) {
+                machine.push(this.letStmt.getValue(), this.env);
+            } else {
+                this.env.set(this.letStmt.getName().getValue(), machine.value);
+                machine.pop(null);
+            }
+        }
+    }
+
+    private static final class CallFrame extends Frame {
+        private final CallExpression call;
+        private Obj function;
+        private List<Obj> args;
+
+        CallFrame(final CallExpression call, final Environment env) {
+            super(env);
+            this.call = call;
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state == 0) {
+                this.state = 1;
+                machine.push(this.call.getFunction(), this.env);
+                return;
+            }
+
+            if (this.args == null) {
+                this.function = machine.value;
+                this.args = new ArrayList<>(this.call.getArguments().size());
+            } else {
+                this.args.add(machine.value);
+            }
+
+            if (this.args.size() < this.call.getArguments().size()) {
+                machine.push(this.call.getArguments().get(this.args.size()), this.env);
+                return;
+            }
+
+            machine.pop(null);
+            machine.apply(this.function, this.args);
+        }
+    }
+
+    // Marks a running Monkey function: unwraps its return value and keeps its tiering counters balanced.
+    private static final class FunctionFrame extends Frame {
+        private FunctionLiteral literal;
+
+        FunctionFrame(final FunctionLiteral literal) {
+            super(null);
+            this.literal = literal;
+        }
+
+        void exit() {
+            if (this.literal != null) {
+                this.literal.exit();
+            }
+        }
+
+        void finish(final StackEvaluator machine, final Obj result) {
+            machine.pop(result);
+            machine.callDepth--;
+            this.exit();
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            this.finish(machine, unwrapReturnValue(machine.value));
+        }
+    }
+
+    private static final class ArrayFrame extends Frame {
+        private final List<Expression> elements;
+        private final List<Obj> values;
+
+        ArrayFrame(final List<Expression> elements, final Environment env) {
+            super(env);
+            this.elements = elements;
+            this.values = new ArrayList<>(elements.size());
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state++ > 0) {
+                this.values.add(machine.value);
+            }
+
+            if (this.values.size() < this.elements.size()) {
+                machine.push(this.elements.get(this.values.size()), this.env);
+            } else {
+                machine.pop(new Array(this.values));
+            }
+        }
+    }
+
+    private static final class IndexFrame extends Frame {
+        private final IndexExpression index;
+        private Obj left;
+
+        IndexFrame(final IndexExpression index, final Environment env) {
+            super(env);
+            this.index = index;
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            switch (this.state++) {
+                case 0 -> machine.push(this.index.getLeft(), this.env);
+                case 1 -> {
+                    this.left = machine.value;
+                    machine.push(this.index.getIndex(), this.env);
+                }
+                default -> machine.pop(evalIndexExpression(this.left, machine.value));
+            }
+        }
+    }
+
+    private static final class HashFrame extends Frame {
+        private static final int KEY = 1;
+        private static final int VALUE = 2;
+
+        private final Iterator<Map.Entry<Expression, Expression>> entries;
+        private PersistentHashMap pairs = PersistentHashMap.EMPTY;
+        private Map.Entry<Expression, Expression> entry;
+        private Obj key;
+
+        HashFrame(final HashLiteral hash, final Environment env) {
+            super(env);
+            this.entries = hash.getPairs().entrySet().iterator();
+        }
+
+        @Override
+        void step(final StackEvaluator machine) {
+            if (this.state == KEY) {
+                this.key = machine.value;
+                if (!(this.key instanceof Hashable)) {
+                    machine.pop(newError("unusable as hash key: %s", this.key.type()));
+                    return;
+                }
+                this.state = VALUE;
+                machine.push(this.entry.getValue(), this.env);
+                return;
+            }
+
+            if (this.state == VALUE) {
+                this.pairs = this.pairs.put(new HashPair(this.key, machine.value));
+            }
+
+            if (this.entries.hasNext()) {
+                this.entry = this.entries.next();
+                this.state = KEY;
+                machine.push(this.entry.getKey(), this.env);
+            } else {
+                machine.pop(new Hash(this.pairs));
+            }
+        }
+    }
+
+}
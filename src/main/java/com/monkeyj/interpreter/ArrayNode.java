@@ -0,0 +1,31 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Array;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+import java.util.ArrayList;
+
+final class ArrayNode extends ExecutableNode {
+
+    private final ExecutableNode[] elements;
+
+    ArrayNode(final ExecutableNode[] elements) {
+        this.elements = elements;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var values = new ArrayList<Obj>(this.elements.length);
+        for (final var element : this.elements) {
+            final var value = element.execute(env);
+            if (isError(value)) {
+                return value;
+            }
+            values.add(value);
+        }
+
+        return new Array(values);
+    }
+
+}
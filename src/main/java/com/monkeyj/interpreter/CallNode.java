@@ -0,0 +1,45 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.evaluator.Evaluator;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+import java.util.ArrayList;
+
+final class CallNode extends ExecutableNode {
+
+    private final ExecutableNode function;
+    private final ExecutableNode[] arguments;
+    // Whether the value of the call is what the enclosing function returns; see NodeCompiler.visitBody.
+    private final boolean tail;
+
+    CallNode(final ExecutableNode function, final ExecutableNode[] arguments, final boolean tail) {
+        this.function = function;
+        this.arguments = arguments;
+        this.tail = tail;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var fn = this.function.execute(env);
+        if (isError(fn)) {
+            return fn;
+        }
+
+        final var args = new ArrayList<Obj>(this.arguments.length);
+        for (final var argument : this.arguments) {
+            final var arg = argument.execute(env);
+            if (isError(arg)) {
+                return arg;
+            }
+            args.add(arg);
+        }
+
+        if (fn instanceof TreeFunction treeFunction) {
+            return this.tail ? new TailCall(treeFunction, args) : treeFunction.call(args);
+        }
+
+        return Evaluator.applyFunction(fn, args);
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+// Integer, boolean and string literals: the object is built once, at compile time.
+final class ConstantNode extends ExecutableNode {
+
+    private final Obj value;
+
+    ConstantNode(final Obj value) {
+        this.value = value;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        return this.value;
+    }
+
+}
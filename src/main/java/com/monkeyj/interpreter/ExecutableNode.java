@@ -0,0 +1,49 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.evaluator.Literals;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Error;
+import com.monkeyj.object.Int;
+import com.monkeyj.object.Obj;
+
+// A node of the closure-compiled tree. Everything the Evaluator works out on each visit (which kind of node this is,
+// which operator, which builtin) is decided once by NodeCompiler and bound into the node, so execute only does the work.
+public abstract class ExecutableNode {
+
+    public abstract Obj execute(Environment env);
+
+    // Lets int-specialised parents skip the Int box. Nodes that can produce a primitive directly override it.
+    int executeInt(final Environment env) throws UnexpectedResultException {
+        return expectInt(this.execute(env));
+    }
+
+    static int expectInt(final Obj obj) throws UnexpectedResultException {
+        if (obj instanceof Int integer) {
+            return integer.getValue();
+        }
+
+        throw new UnexpectedResultException(obj);
+    }
+
+    static Environment up(final Environment env, final int depth) {
+        var frame = env;
+        for (int i = 0; i < depth; i++) {
+            frame = frame.getOuter();
+        }
+
+        return frame;
+    }
+
+    static boolean isError(final Obj obj) {
+        return obj instanceof Error;
+    }
+
+    static boolean isTruthy(final Obj obj) {
+        return obj != Literals.NULL && obj != Literals.FALSE;
+    }
+
+    static Obj toBool(final boolean value) {
+        return value ? Literals.TRUE : Literals.FALSE;
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.ast.FunctionLiteral;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+import java.util.Map;
+
+final class FunctionNode extends ExecutableNode {
+
+    private final FunctionLiteral literal;
+    private final int[] parameterSlots;
+    private final Map<String, Integer> layout;
+    private final ExecutableNode body;
+
+    FunctionNode(
+            final FunctionLiteral literal
+            , final int[] parameterSlots
+            , final Map<String, Integer> layout
+            , final ExecutableNode body) {
+        this.literal = literal;
+        this.parameterSlots = parameterSlots;
+        this.layout = layout;
+        this.body = body;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        return new TreeFunction(this.literal, env, this.parameterSlots, this.layout, this.body);
+    }
+
+}
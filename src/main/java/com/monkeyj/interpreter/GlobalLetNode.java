@@ -0,0 +1,35 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+final class GlobalLetNode extends ExecutableNode {
+
+    private final String name;
+    private final ExecutableNode value;
+
+    private Environment cachedRoot;
+    private int slot;
+
+    GlobalLetNode(final String name, final ExecutableNode value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var val = this.value.execute(env);
+        if (isError(val)) {
+            return val;
+        }
+
+        if (env != this.cachedRoot) {
+            this.slot = env.slot(this.name);
+            this.cachedRoot = env;
+        }
+        env.setSlot(this.slot, val);
+
+        return null;
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Builtin;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+import static com.monkeyj.evaluator.Evaluator.newError;
+
+// A top-level name. Its slot depends on the Environment the program runs in, so it is looked up on first use and
+// cached for as long as the node keeps running against that Environment. Reading never adds a slot: a name the
+// Environment does not have yet (a builtin, a typo, a global defined later) is looked up again on the next read.
+final class GlobalNode extends ExecutableNode {
+
+    private final String name;
+    private final int depth;
+    // Resolved at compile time; still only used when nothing in the environment shadows the name.
+    private final Builtin builtin;
+
+    private Environment cachedRoot;
+    private int slot;
+
+    GlobalNode(final String name, final int depth, final Builtin builtin) {
+        this.name = name;
+        this.depth = depth;
+        this.builtin = builtin;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var root = up(env, this.depth);
+        if (root != this.cachedRoot) {
+            this.slot = root.find(this.name);
+            this.cachedRoot = this.slot >= 0 ? root : null;
+        }
+
+        var val = this.slot >= 0 ? root.getSlot(this.slot) : null;
+        if (val == null && root.getOuter() != null) {
+            val = root.getOuter().get(this.name);
+        }
+
+        if (val != null) {
+            return val;
+        }
+
+        if (this.builtin != null) {
+            return this.builtin;
+        }
+
+        return newError("identifier not found: %s", this.name);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Hash;
+import com.monkeyj.object.HashPair;
+import com.monkeyj.object.Hashable;
+import com.monkeyj.object.Obj;
+import com.monkeyj.object.PersistentHashMap;
+
+import static com.monkeyj.evaluator.Evaluator.newError;
+
+final class HashNode extends ExecutableNode {
+
+    private final ExecutableNode[] keys;
+    private final ExecutableNode[] values;
+
+    HashNode(final ExecutableNode[] keys, final ExecutableNode[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        var pairs = PersistentHashMap.EMPTY;
+
+        for (int i = 0; i < this.keys.length; i++) {
+            final var key = this.keys[i].execute(env);
+            if (isError(key)) {
+                return key;
+            }
+
+            if (!(key instanceof Hashable)) {
+                return newError("unusable as hash key: %s", key.type());
+            }
+
+            final var value = this.values[i].execute(env);
+            if (isError(value)) {
+                return value;
+            }
+
+            pairs = pairs.put(new HashPair(key, value));
+        }
+
+        return new Hash(pairs);
+    }
+
+}
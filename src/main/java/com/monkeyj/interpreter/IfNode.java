@@ -0,0 +1,35 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.evaluator.Literals;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+final class IfNode extends ExecutableNode {
+
+    private final ExecutableNode condition;
+    private final ExecutableNode consequence;
+    private final ExecutableNode alternative;
+
+    IfNode(final ExecutableNode condition, final ExecutableNode consequence, final ExecutableNode alternative) {
+        this.condition = condition;
+        this.consequence = consequence;
+        this.alternative = alternative;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var cond = this.condition.execute(env);
+        if (isError(cond)) {
+            return cond;
+        }
+
+        if (isTruthy(cond)) {
+            return this.consequence.execute(env);
+        } else if (this.alternative != null) {
+            return this.alternative.execute(env);
+        }
+
+        return Literals.NULL;
+    }
+
+}
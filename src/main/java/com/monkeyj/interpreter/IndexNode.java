@@ -0,0 +1,91 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.evaluator.Literals;
+import com.monkeyj.object.Array;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Hash;
+import com.monkeyj.object.Hashable;
+import com.monkeyj.object.Int;
+import com.monkeyj.object.Obj;
+
+import static com.monkeyj.evaluator.Evaluator.newError;
+
+final class IndexNode extends ExecutableNode {
+
+    private final ExecutableNode left;
+    private final ExecutableNode index;
+    int state = Specialization.UNINITIALIZED;
+
+    IndexNode(final ExecutableNode left, final ExecutableNode index) {
+        this.left = left;
+        this.index = index;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var l = this.left.execute(env);
+
+        if (this.state == Specialization.ARRAY_INT && l instanceof Array array) {
+            try {
+                return element(array, this.index.executeInt(env));
+            } catch (final UnexpectedResultException ex) {
+                this.state = Specialization.GENERIC;
+                return generic(l, ex.getResult());
+            }
+        }
+
+        if (isError(l)) {
+            return l;
+        }
+        final var idx = this.index.execute(env);
+
+        if (this.state == Specialization.HASH && l instanceof Hash hash && idx instanceof Hashable key) {
+            return entry(hash, key);
+        }
+
+        this.state = this.state == Specialization.UNINITIALIZED ? specialize(l, idx) : Specialization.GENERIC;
+
+        return generic(l, idx);
+    }
+
+    private static int specialize(final Obj left, final Obj index) {
+        if (left instanceof Array && index instanceof Int) {
+            return Specialization.ARRAY_INT;
+        } else if (left instanceof Hash && index instanceof Hashable) {
+            return Specialization.HASH;
+        }
+
+        return Specialization.GENERIC;
+    }
+
+    private static Obj generic(final Obj l, final Obj idx) {
+        if (isError(idx)) {
+            return idx;
+        }
+
+        if (l instanceof Array array && idx instanceof Int integer) {
+            return element(array, integer.getValue());
+        }
+
+        if (l instanceof Hash hash) {
+            if (!(idx instanceof Hashable key)) {
+                return newError("unusable as hash key: %s", idx.type());
+            }
+
+            return entry(hash, key);
+        }
+
+        return newError("index operator not supported: %s", l.type());
+    }
+
+    private static Obj element(final Array array, final int i) {
+        final var elements = array.getElements();
+        return i < 0 || i >= elements.size() ? Literals.NULL : elements.get(i);
+    }
+
+    private static Obj entry(final Hash hash, final Hashable key) {
+        final var pair = hash.get(key);
+        return pair == null ? Literals.NULL : pair.getValue();
+    }
+
+}
@@ -0,0 +1,274 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Int;
+import com.monkeyj.object.Obj;
+import com.monkeyj.object.Str;
+
+import static com.monkeyj.evaluator.Evaluator.newError;
+
+// One subclass per operator, so the operator switch of Evaluator.evalIntegerInfixExpression is a virtual call here.
+abstract class InfixNode extends ExecutableNode {
+
+    private final String operator;
+    final ExecutableNode left;
+    final ExecutableNode right;
+    int state = Specialization.UNINITIALIZED;
+
+    InfixNode(final String operator, final ExecutableNode left, final ExecutableNode right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    static InfixNode of(final String operator, final ExecutableNode left, final ExecutableNode right) {
+        return switch (operator) {
+            case "+" -> new Add(left, right);
+            case "-" -> new Subtract(left, right);
+            case "*" -> new Multiply(left, right);
+            case "/" -> new Divide(left, right);
+            case "<" -> new LessThan(left, right);
+            case ">" -> new GreaterThan(left, right);
+            case "==" -> new Equal(left, right);
+            case "!=" -> new NotEqual(left, right);
+            default -> throw new IllegalArgumentException(String.format("unknown operator: %s", operator));
+        };
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        if (this.state == Specialization.INTS) {
+            final int a;
+            try {
+                a = this.left.executeInt(env);
+            } catch (final UnexpectedResultException ex) {
+                return this.deoptimize(ex.getResult(), env);
+            }
+
+            try {
+                return this.ints(a, this.right.executeInt(env));
+            } catch (final UnexpectedResultException ex) {
+                return this.deoptimize(Int.of(a), ex.getResult());
+            }
+        }
+
+        final var l = this.left.execute(env);
+        if (isError(l)) {
+            return l;
+        }
+        final var r = this.right.execute(env);
+        if (isError(r)) {
+            return r;
+        }
+
+        if (this.state == Specialization.STRINGS) {
+            if (l instanceof Str a && r instanceof Str b) {
+                return this.strings(a, b);
+            }
+            this.state = Specialization.GENERIC;
+        } else if (this.state == Specialization.UNINITIALIZED) {
+            this.state = specialize(l, r);
+        }
+
+        return this.generic(l, r);
+    }
+
+    private static int specialize(final Obj left, final Obj right) {
+        if (left instanceof Int && right instanceof Int) {
+            return Specialization.INTS;
+        } else if (left instanceof Str && right instanceof Str) {
+            return Specialization.STRINGS;
+        }
+
+        return Specialization.GENERIC;
+    }
+
+    // The left operand has already been evaluated when the int guard fails on it.
+    final Obj deoptimize(final Obj l, final Environment env) {
+        this.state = Specialization.GENERIC;
+        if (isError(l)) {
+            return l;
+        }
+        final var r = this.right.execute(env);
+        if (isError(r)) {
+            return r;
+        }
+
+        return this.generic(l, r);
+    }
+
+    final Obj deoptimize(final Obj l, final Obj r) {
+        this.state = Specialization.GENERIC;
+        if (isError(r)) {
+            return r;
+        }
+
+        return this.generic(l, r);
+    }
+
+    private Obj generic(final Obj l, final Obj r) {
+        if (l instanceof Int a && r instanceof Int b) {
+            return this.ints(a.getValue(), b.getValue());
+        }
+
+        if (l instanceof Str a && r instanceof Str b) {
+            return this.strings(a, b);
+        }
+
+        return this.mixed(l, r);
+    }
+
+    abstract Obj ints(int left, int right);
+
+    Obj strings(final Str left, final Str right) {
+        return this.unknownOperator(left, right);
+    }
+
+    Obj mixed(final Obj left, final Obj right) {
+        return this.unknownOperator(left, right);
+    }
+
+    final Obj unknownOperator(final Obj left, final Obj right) {
+        return newError("unknown operator: %s %s %s", left.type(), this.operator, right.type());
+    }
+
+    // Arithmetic nodes can also hand a primitive straight to an int-specialised parent, so nested expressions such as
+    // a * b + c do not box the intermediate result.
+    abstract static class ArithmeticNode extends InfixNode {
+        ArithmeticNode(final String operator, final ExecutableNode left, final ExecutableNode right) {
+            super(operator, left, right);
+        }
+
+        abstract int apply(int left, int right);
+
+        @Override
+        final Obj ints(final int left, final int right) {
+            return Int.of(this.apply(left, right));
+        }
+
+        @Override
+        final int executeInt(final Environment env) throws UnexpectedResultException {
+            if (this.state != Specialization.INTS) {
+                return super.executeInt(env);
+            }
+
+            final int a;
+            try {
+                a = this.left.executeInt(env);
+            } catch (final UnexpectedResultException ex) {
+                return expectInt(this.deoptimize(ex.getResult(), env));
+            }
+
+            try {
+                return this.apply(a, this.right.executeInt(env));
+            } catch (final UnexpectedResultException ex) {
+                return expectInt(this.deoptimize(Int.of(a), ex.getResult()));
+            }
+        }
+    }
+
+    static final class Add extends ArithmeticNode {
+        Add(final ExecutableNode left, final ExecutableNode right) {
+            super("+", left, right);
+        }
+
+        @Override
+        int apply(final int left, final int right) {
+            return left + right;
+        }
+
+        @Override
+        Obj strings(final Str left, final Str right) {
+            return Str.concat(left, right);
+        }
+    }
+
+    static final class Subtract extends ArithmeticNode {
+        Subtract(final ExecutableNode left, final ExecutableNode right) {
+            super("-", left, right);
+        }
+
+        @Override
+        int apply(final int left, final int right) {
+            return left - right;
+        }
+    }
+
+    static final class Multiply extends ArithmeticNode {
+        Multiply(final ExecutableNode left, final ExecutableNode right) {
+            super("*", left, right);
+        }
+
+        @Override
+        int apply(final int left, final int right) {
+            return left * right;
+        }
+    }
+
+    static final class Divide extends ArithmeticNode {
+        Divide(final ExecutableNode left, final ExecutableNode right) {
+            super("/", left, right);
+        }
+
+        @Override
+        int apply(final int left, final int right) {
+            return left / right;
+        }
+    }
+
+    static final class LessThan extends InfixNode {
+        LessThan(final ExecutableNode left, final ExecutableNode right) {
+            super("<", left, right);
+        }
+
+        @Override
+        Obj ints(final int left, final int right) {
+            return toBool(left < right);
+        }
+    }
+
+    static final class GreaterThan extends InfixNode {
+        GreaterThan(final ExecutableNode left, final ExecutableNode right) {
+            super(">", left, right);
+        }
+
+        @Override
+        Obj ints(final int left, final int right) {
+            return toBool(left > right);
+        }
+    }
+
+    // Anything that is not an integer or a string compares by reference, like the Evaluator does.
+    static final class Equal extends InfixNode {
+        Equal(final ExecutableNode left, final ExecutableNode right) {
+            super("==", left, right);
+        }
+
+        @Override
+        Obj ints(final int left, final int right) {
+            return toBool(left == right);
+        }
+
+        @Override
+        Obj mixed(final Obj left, final Obj right) {
+            return toBool(left == right);
+        }
+    }
+
+    static final class NotEqual extends InfixNode {
+        NotEqual(final ExecutableNode left, final ExecutableNode right) {
+            super("!=", left, right);
+        }
+
+        @Override
+        Obj ints(final int left, final int right) {
+            return toBool(left != right);
+        }
+
+        @Override
+        Obj mixed(final Obj left, final Obj right) {
+            return toBool(left != right);
+        }
+    }
+
+}
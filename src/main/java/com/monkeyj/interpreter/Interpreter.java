@@ -0,0 +1,21 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.ast.Node;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+// Closure-compilation tier: the AST is turned into a tree of ExecutableNodes once and then run, with the same
+// results and errors as Evaluator.eval.
+public final class Interpreter {
+
+    private Interpreter() {}
+
+    public static ExecutableNode compile(final Node node) {
+        return NodeCompiler.compile(node);
+    }
+
+    public static Obj eval(final Node node, final Environment env) {
+        return compile(node).execute(env);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+final class LocalLetNode extends ExecutableNode {
+
+    private final int slot;
+    private final ExecutableNode value;
+
+    LocalLetNode(final int slot, final ExecutableNode value) {
+        this.slot = slot;
+        this.value = value;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var val = this.value.execute(env);
+        if (isError(val)) {
+            return val;
+        }
+        env.setSlot(this.slot, val);
+
+        return null;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+// A name declared by an enclosing function, depth calls up. The slot is empty until its let has run, and then the
+// lookup carries on outwards exactly like Environment.get does, through next.
+final class LocalNode extends ExecutableNode {
+
+    private final int depth;
+    private final int slot;
+    private final ExecutableNode next;
+
+    LocalNode(final int depth, final int slot, final ExecutableNode next) {
+        this.depth = depth;
+        this.slot = slot;
+        this.next = next;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var val = up(env, this.depth).getSlot(this.slot);
+        if (val != null) {
+            return val;
+        }
+
+        return this.next.execute(env);
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Int;
+import com.monkeyj.object.Obj;
+
+import static com.monkeyj.evaluator.Evaluator.newError;
+
+final class NegateNode extends ExecutableNode {
+
+    private final ExecutableNode right;
+    int state = Specialization.UNINITIALIZED;
+
+    NegateNode(final ExecutableNode right) {
+        this.right = right;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        if (this.state == Specialization.INTS) {
+            try {
+                return Int.of(-this.right.executeInt(env));
+            } catch (final UnexpectedResultException ex) {
+                this.state = Specialization.GENERIC;
+                return generic(ex.getResult());
+            }
+        }
+
+        final var value = this.right.execute(env);
+        if (this.state == Specialization.UNINITIALIZED) {
+            this.state = value instanceof Int ? Specialization.INTS : Specialization.GENERIC;
+        }
+
+        return generic(value);
+    }
+
+    @Override
+    int executeInt(final Environment env) throws UnexpectedResultException {
+        if (this.state != Specialization.INTS) {
+            return super.executeInt(env);
+        }
+
+        try {
+            return -this.right.executeInt(env);
+        } catch (final UnexpectedResultException ex) {
+            this.state = Specialization.GENERIC;
+            return expectInt(generic(ex.getResult()));
+        }
+    }
+
+    private static Obj generic(final Obj value) {
+        if (isError(value)) {
+            return value;
+        }
+
+        if (value instanceof Int integer) {
+            return Int.of(-integer.getValue());
+        }
+
+        return newError("unknown operator: -%s", value.type());
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.ast.ArrayLiteral;
+import com.monkeyj.ast.BlockStatement;
+import com.monkeyj.ast.Bool;
+import com.monkeyj.ast.CallExpression;
+import com.monkeyj.ast.Expression;
+import com.monkeyj.ast.ExpressionStatement;
+import com.monkeyj.ast.FunctionLiteral;
+import com.monkeyj.ast.HashLiteral;
+import com.monkeyj.ast.Identifier;
+import com.monkeyj.ast.IfExpression;
+import com.monkeyj.ast.IndexExpression;
+import com.monkeyj.ast.InfixExpression;
+import com.monkeyj.ast.IntegerLiteral;
+import com.monkeyj.ast.LetStatement;
+import com.monkeyj.ast.Node;
+import com.monkeyj.ast.PrefixExpression;
+import com.monkeyj.ast.Program;
+import com.monkeyj.ast.ReturnStatement;
+import com.monkeyj.ast.StringLiteral;
+import com.monkeyj.evaluator.Builtins;
+import com.monkeyj.evaluator.Literals;
+import com.monkeyj.object.Str;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Also the resolver: every identifier is bound to the slots of the enclosing functions that declare it, so nothing is
+// looked up by name at run time except top-level names, once per Environment.
+final class NodeCompiler {
+
+    private Scope scope;
+
+    private NodeCompiler() {}
+
+    static ExecutableNode compile(final Node node) {
+        return new NodeCompiler().visit(node);
+    }
+
+    private ExecutableNode visit(final Node node) {
+        if (node instanceof Program program) {
+            return new ProgramNode(this.visitAll(program.getStatements()));
+        } else if (node instanceof ExpressionStatement expr) {
+            return this.visit(expr.getExpression());
+        } else if (node instanceof IntegerLiteral literal) {
+            return new ConstantNode(literal.getConstant());
+        } else if (node instanceof Bool bool) {
+            return new ConstantNode(bool.getValue() ? Literals.TRUE : Literals.FALSE);
+        } else if (node instanceof StringLiteral str) {
+            return new ConstantNode(new Str(str.getValue()));
+        } else if (node instanceof PrefixExpression prefix) {
+            final var right = this.visit(prefix.getRight());
+            return switch (prefix.getOperator()) {
+                case "!" -> new NotNode(right);
+                case "-" -> new NegateNode(right);
+                default -> throw new IllegalArgumentException(
+                        String.format("unknown operator: %s", prefix.getOperator()));
+            };
+        } else if (node instanceof InfixExpression infix) {
+            return InfixNode.of(infix.getOperator(), this.visit(infix.getLeft()), this.visit(infix.getRight()));
+        } else if (node instanceof BlockStatement block) {
+            return new BlockNode(this.visitAll(block.getStatements()));
+        } else if (node instanceof IfExpression ifExpression) {
+            final var alternative = ifExpression.getAlternative();
+            return new IfNode(
+                    this.visit(ifExpression.getCondition())
+                    , this.visit(ifExpression.getConsequence())
+                    , alternative == null ? null : this.visit(alternative));
+        } else if (node instanceof ReturnStatement returnStmt) {
+            return new ReturnNode(this.visit(returnStmt.getReturnValue()));
+        } else if (node instanceof LetStatement letStmt) {
+            final var name = letStmt.getName().getValue();
+            final var value = this.visit(letStmt.getValue());
+
+            return this.scope == null ? new GlobalLetNode(name, value) : new LocalLetNode(this.scope.lookup(name), value);
+        } else if (node instanceof Identifier identifier) {
+            return this.resolve(identifier.getValue());
+        } else if (node instanceof FunctionLiteral fn) {
+            return this.visitFunction(fn);
+        } else if (node instanceof CallExpression call) {
+            return new CallNode(this.visit(call.getFunction()), this.visitAll(call.getArguments()), false);
+        } else if (node instanceof ArrayLiteral array) {
+            return new ArrayNode(this.visitAll(array.getElements()));
+        } else if (node instanceof IndexExpression index) {
+            return new IndexNode(this.visit(index.getLeft()), this.visit(index.getIndex()));
+        } else if (node instanceof HashLiteral hash) {
+            final var pairs = hash.getPairs();
+            final var keys = new ExecutableNode[pairs.size()];
+            final var values = new ExecutableNode[pairs.size()];
+
+            int i = 0;
+            for (final var entry : pairs.entrySet()) {
+                keys[i] = this.visit(entry.getKey());
+                values[i] = this.visit(entry.getValue());
+                i++;
+            }
+
+            return new HashNode(keys, values);
+        }
+
+        // Whatever the Evaluator does not know evaluates to null there, so it does here too.
+        return new ConstantNode(null);
+    }
+
+    private ExecutableNode resolve(final String name) {
+        int depth = 0;
+        final List<int[]> candidates = new ArrayList<>();
+        for (var s = this.scope; s != null; s = s.getOuter()) {
+            final var slot = s.lookup(name);
+            if (slot != null) {
+                candidates.add(new int[] {depth, slot});
+            }
+            depth++;
+        }
+
+        ExecutableNode node = new GlobalNode(name, depth, Builtins.BUILTINS.get(name));
+        for (int i = candidates.size() - 1; i >= 0; i--) {
+            node = new LocalNode(candidates.get(i)[0], candidates.get(i)[1], node);
+        }
+
+        return node;
+    }
+
+    private ExecutableNode visitFunction(final FunctionLiteral fn) {
+        final var enclosing = this.scope;
+        this.scope = new Scope(enclosing);
+
+        try {
+            final var parameterSlots = new int[fn.getParameters().size()];
+            for (int i = 0; i < parameterSlots.length; i++) {
+                parameterSlots[i] = this.scope.declare(fn.getParameters().get(i).getValue());
+            }
+            declareLets(fn.getBody(), this.scope);
+
+            final var body = this.visitBody(fn.getBody(), true);
+            return new FunctionNode(fn, parameterSlots, this.scope.layout(), body);
+        } finally {
+            this.scope = enclosing;
+        }
+    }
+
+    // A function body, or the block of an if the body reaches through statements only, the same as
+    // Evaluator.evalTailBlock: the value of a return statement is what the call returns, and so is the last statement
+    // when tail is set. A call there becomes a TailCall for TreeFunction.call to make.
+    private ExecutableNode visitBody(final BlockStatement block, final boolean tail) {
+        final var statements = block.getStatements();
+        final var compiled = new ExecutableNode[statements.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            final var stmt = statements.get(i);
+            if (stmt instanceof ReturnStatement returnStmt) {
+                compiled[i] = new ReturnNode(this.visitTail(returnStmt.getReturnValue(), true));
+            } else if (stmt instanceof ExpressionStatement expr) {
+                compiled[i] = this.visitTail(expr.getExpression(), tail && i == compiled.length - 1);
+            } else {
+                compiled[i] = this.visit(stmt);
+            }
+        }
+
+        return new BlockNode(compiled);
+    }
+
+    private ExecutableNode visitTail(final Expression exp, final boolean tail) {
+        if (exp instanceof IfExpression ifExpression) {
+            final var alternative = ifExpression.getAlternative();
+            return new IfNode(
+                    this.visit(ifExpression.getCondition())
+                    , this.visitBody(ifExpression.getConsequence(), tail)
+                    , alternative == null ? null : this.visitBody(alternative, tail));
+        } else if (tail && exp instanceof CallExpression call) {
+            return new CallNode(this.visit(call.getFunction()), this.visitAll(call.getArguments()), true);
+        }
+
+        return this.visit(exp);
+    }
+
+    // A let anywhere in the function, even after the use or inside an if block, still defines the name in the
+    // function's Environment, so the whole body is scanned before anything is resolved. Nested functions have their own.
+    private static void declareLets(final Node node, final Scope scope) {
+        if (node instanceof LetStatement letStmt) {
+            scope.declare(letStmt.getName().getValue());
+            declareLets(letStmt.getValue(), scope);
+        } else if (node instanceof BlockStatement block) {
+            block.getStatements().forEach(stmt -> declareLets(stmt, scope));
+        } else if (node instanceof ExpressionStatement expr) {
+            declareLets(expr.getExpression(), scope);
+        } else if (node instanceof ReturnStatement returnStmt) {
+            declareLets(returnStmt.getReturnValue(), scope);
+        } else if (node instanceof IfExpression ifExpression) {
+            declareLets(ifExpression.getCondition(), scope);
+            declareLets(ifExpression.getConsequence(), scope);
+            declareLets(ifExpression.getAlternative(), scope);
+        } else if (node instanceof PrefixExpression prefix) {
+            declareLets(prefix.getRight(), scope);
+        } else if (node instanceof InfixExpression infix) {
+            declareLets(infix.getLeft(), scope);
+            declareLets(infix.getRight(), scope);
+        } else if (node instanceof CallExpression call) {
+            declareLets(call.getFunction(), scope);
+            call.getArguments().forEach(arg -> declareLets(arg, scope));
+        } else if (node instanceof ArrayLiteral array) {
+            array.getElements().forEach(element -> declareLets(element, scope));
+        } else if (node instanceof IndexExpression index) {
+            declareLets(index.getLeft(), scope);
+            declareLets(index.getIndex(), scope);
+        } else if (node instanceof HashLiteral hash) {
+            hash.getPairs().forEach((key, value) -> {
+                declareLets(key, scope);
+                declareLets(value, scope);
+            });
+        }
+    }
+
+    private ExecutableNode[] visitAll(final List<? extends Node> nodes) {
+        final var compiled = new ExecutableNode[nodes.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = this.visit(nodes.get(i));
+        }
+
+        return compiled;
+    }
+
+}
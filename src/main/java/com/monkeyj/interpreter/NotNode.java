@@ -0,0 +1,25 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.evaluator.Literals;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+
+final class NotNode extends ExecutableNode {
+
+    private final ExecutableNode right;
+
+    NotNode(final ExecutableNode right) {
+        this.right = right;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var value = this.right.execute(env);
+        if (isError(value)) {
+            return value;
+        }
+
+        return value == Literals.FALSE || value == Literals.NULL ? Literals.TRUE : Literals.FALSE;
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Error;
+import com.monkeyj.object.Obj;
+import com.monkeyj.object.ReturnValue;
+
+final class ProgramNode extends ExecutableNode {
+
+    private final ExecutableNode[] statements;
+
+    ProgramNode(final ExecutableNode[] statements) {
+        this.statements = statements;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        Obj result = null;
+
+        for (final var stmt : this.statements) {
+            result = stmt.execute(env);
+
+            if (result instanceof ReturnValue returnValue) {
+                return returnValue.getValue();
+            } else if (result instanceof Error) {
+                return result;
+            }
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
+import com.monkeyj.object.ReturnValue;
+
+final class ReturnNode extends ExecutableNode {
+
+    private final ExecutableNode value;
+
+    ReturnNode(final ExecutableNode value) {
+        this.value = value;
+    }
+
+    @Override
+    public Obj execute(final Environment env) {
+        final var val = this.value.execute(env);
+        return isError(val) ? val : new ReturnValue(val);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.monkeyj.interpreter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// The names of one function: its parameters and every let in its body, nested blocks included, since only calls
+// open a new Environment. The top level has no Scope; its names live in the Environment the program runs in.
+final class Scope {
+
+    private final Scope outer;
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    Scope(final Scope outer) {
+        this.outer = outer;
+    }
+
+    Scope getOuter() {
+        return outer;
+    }
+
+    int declare(final String name) {
+        final var existing = this.slots.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        final int slot = this.slots.size();
+        this.slots.put(name, slot);
+
+        return slot;
+    }
+
+    Integer lookup(final String name) {
+        return this.slots.get(name);
+    }
+
+    Map<String, Integer> layout() {
+        return Map.copyOf(this.slots);
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.monkeyj.interpreter;
+
+// States of the self-specialising nodes. A node starts UNINITIALIZED, picks a specialisation from the first operands it
+// sees, and moves to GENERIC for good as soon as a guard fails, so a polymorphic site cannot keep flip-flopping.
+final class Specialization {
+
+    private Specialization() {}
+
+    static final int UNINITIALIZED = 0;
+    static final int INTS = 1;
+    static final int STRINGS = 2;
+    static final int ARRAY_INT = 3;
+    static final int HASH = 4;
+    static final int GENERIC = 5;
+
+}
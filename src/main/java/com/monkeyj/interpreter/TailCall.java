@@ -0,0 +1,30 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Function;
+import com.monkeyj.object.Obj;
+
+import java.util.List;
+
+// A call in tail position, left for the trampoline in TreeFunction.call instead of being made where it is, so tail
+// recursion (and mutual recursion) runs in constant Java stack, like in the Evaluator. Function is the one Obj that is
+// open to subclasses, so the marker is one; it never gets out of TreeFunction.call.
+final class TailCall extends Function {
+
+    private final TreeFunction function;
+    private final List<Obj> args;
+
+    TailCall(final TreeFunction function, final List<Obj> args) {
+        super(List.of(), null, null);
+        this.function = function;
+        this.args = args;
+    }
+
+    TreeFunction getFunction() {
+        return function;
+    }
+
+    List<Obj> getArgs() {
+        return args;
+    }
+
+}
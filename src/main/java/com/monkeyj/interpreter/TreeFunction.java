@@ -0,0 +1,80 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.ast.FunctionLiteral;
+import com.monkeyj.jit.Jit;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Function;
+import com.monkeyj.object.Obj;
+import com.monkeyj.object.ReturnValue;
+
+import java.util.List;
+import java.util.Map;
+
+// A Function that carries its compiled body. It is still a plain Function to everything else (inspect, builtins,
+// the Evaluator and the Jit), which can keep using the AST.
+final class TreeFunction extends Function {
+
+    private final int[] parameterSlots;
+    private final Map<String, Integer> layout;
+    private final ExecutableNode code;
+
+    TreeFunction(
+            final FunctionLiteral literal
+            , final Environment env
+            , final int[] parameterSlots
+            , final Map<String, Integer> layout
+            , final ExecutableNode code) {
+        super(literal, env);
+        this.parameterSlots = parameterSlots;
+        this.layout = layout;
+        this.code = code;
+    }
+
+    // A trampoline, like Evaluator.callFunction: a body that ends in a tail call hands back a TailCall, and the callee
+    // runs in this loop. The next function is entered before the previous one exits, so a tail call to itself still
+    // counts as a loop back edge.
+    Obj call(final List<Obj> args) {
+        TreeFunction current = this;
+        List<Obj> currentArgs = args;
+        FunctionLiteral running = null;
+
+        try {
+            while (true) {
+                final var literal = current.getLiteral();
+                literal.enter();
+                if (running != null) {
+                    running.exit();
+                }
+                running = literal;
+
+                if (Jit.isEnabled() && Jit.isHot(literal)) {
+                    final var compiled = Jit.invoke(current, currentArgs);
+                    if (compiled != null) {
+                        return compiled;
+                    }
+                }
+
+                final var env = Environment.newEnclosedEnvironment(current.getEnv(), current.layout);
+                for (int i = 0; i < current.parameterSlots.length; i++) {
+                    env.setSlot(current.parameterSlots[i], currentArgs.get(i));
+                }
+
+                var result = current.code.execute(env);
+                if (result instanceof ReturnValue returnValue) {
+                    result = returnValue.getValue();
+                }
+                if (!(result instanceof TailCall tailCall)) {
+                    return result;
+                }
+
+                current = tailCall.getFunction();
+                currentArgs = tailCall.getArgs();
+            }
+        } finally {
+            if (running != null) {
+                running.exit();
+            }
+        }
+    }
+
+}
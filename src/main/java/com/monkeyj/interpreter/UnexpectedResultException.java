@@ -0,0 +1,22 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.object.Obj;
+
+// Thrown by ExecutableNode.executeInt when the node produced something other than an integer. The parent that asked
+// for an int gets the value anyway, so it can deoptimise and finish on the generic path.
+final class UnexpectedResultException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient Obj result;
+
+    UnexpectedResultException(final Obj result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    Obj getResult() {
+        return result;
+    }
+
+}
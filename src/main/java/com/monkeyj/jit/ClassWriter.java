@@ -0,0 +1,177 @@
+package com.monkeyj.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Just enough of the class file format (JVMS chapter 4) for the classes FunctionCompiler generates.
+// Version 49 classes are checked by the type-inferencing verifier, so no StackMapTable is needed.
+final class ClassWriter {
+
+    private static final int MAJOR_VERSION = 49;
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(this.pool);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final List<byte[]> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    ClassWriter(final String name, final String superName, final String... interfaceNames) {
+        this.thisClass = this.classRef(name);
+        this.superClass = this.classRef(superName);
+        this.interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            this.interfaces[i] = this.classRef(interfaceNames[i]);
+        }
+    }
+
+    int thisClass() {
+        return thisClass;
+    }
+
+    int utf8(final String value) {
+        return this.constant("U" + value, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+        });
+    }
+
+    int integer(final int value) {
+        return this.constant("I" + value, out -> {
+            out.writeByte(CONSTANT_INTEGER);
+            out.writeInt(value);
+        });
+    }
+
+    int classRef(final String internalName) {
+        final int name = this.utf8(internalName);
+        return this.constant("C" + internalName, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(name);
+        });
+    }
+
+    int methodRef(final int owner, final String name, final String descriptor) {
+        return this.memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(final int owner, final String name, final String descriptor) {
+        return this.memberRef(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor);
+    }
+
+    private int memberRef(final int tag, final int owner, final String name, final String descriptor) {
+        final int nameIndex = this.utf8(name);
+        final int descriptorIndex = this.utf8(descriptor);
+        final int nameAndType = this.constant("N" + name + ":" + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+
+        return this.constant("M" + tag + ":" + owner + "." + name + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(owner);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    void addMethod(final int access, final String name, final String descriptor, final MethodCode code) {
+        final var bytes = new ByteArrayOutputStream();
+        final var out = new DataOutputStream(bytes);
+        final byte[] instructions = code.toByteArray();
+
+        try {
+            out.writeShort(access);
+            out.writeShort(this.utf8(name));
+            out.writeShort(this.utf8(descriptor));
+            out.writeShort(1);
+
+            out.writeShort(this.utf8("Code"));
+            out.writeInt(12 + instructions.length);
+            out.writeShort(code.maxStack());
+            out.writeShort(code.maxLocals());
+            out.writeInt(instructions.length);
+            out.write(instructions);
+            out.writeShort(0);          // exception table
+            out.writeShort(0);          // attributes
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        this.methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        final var bytes = new ByteArrayOutputStream();
+        final var out = new DataOutputStream(bytes);
+
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(this.poolCount);
+            out.write(this.pool.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(this.thisClass);
+            out.writeShort(this.superClass);
+            out.writeShort(this.interfaces.length);
+            for (final int itf : this.interfaces) {
+                out.writeShort(itf);
+            }
+            out.writeShort(0);          // fields
+            out.writeShort(this.methods.size());
+            for (final byte[] method : this.methods) {
+                out.write(method);
+            }
+            out.writeShort(0);          // attributes
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private int constant(final String key, final PoolEntry entry) {
+        final var existing = this.poolIndex.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            entry.write(this.poolOut);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        final int index = this.poolCount++;
+        this.poolIndex.put(key, index);
+
+        return index;
+    }
+
+    private interface PoolEntry {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+}
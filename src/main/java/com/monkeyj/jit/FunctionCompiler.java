@@ -0,0 +1,421 @@
+package com.monkeyj.jit;
+
+import com.monkeyj.ast.*;
+
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Translates a FunctionLiteral whose body only deals with integers and booleans into a hidden JVM class.
+// Anything else (strings, arrays, hashes, builtins, closures over outer variables, calls to other functions)
+// raises UnsupportedFunctionException and the function stays with the Evaluator.
+final class FunctionCompiler {
+
+    private enum Type { INT, BOOL }
+
+    private record Local(int slot, Type type) { }
+
+    private static final String CLASS_NAME = "com/monkeyj/jit/CompiledMonkeyFunction";
+    private static final String OBJECT_CLASS = "java/lang/Object";
+    private static final String NATIVE_FUNCTION_CLASS = "com/monkeyj/jit/NativeFunction";
+
+    private final List<Identifier> parameters;
+    private final BlockStatement body;
+    private final Type returnType;
+    private final Map<String, Local> locals = new HashMap<>();
+    private final ClassWriter cw;
+    private final MethodCode code;
+    private final int runMethod;
+    // The start of run(), where a self-call in tail position jumps back to instead of growing the JVM stack.
+    private final MethodCode.Label start;
+    private int nextSlot;
+    private String selfName;
+
+    private FunctionCompiler(final List<Identifier> parameters, final BlockStatement body, final Type returnType) {
+        this.parameters = parameters;
+        this.body = body;
+        this.returnType = returnType;
+        this.cw = new ClassWriter(CLASS_NAME, OBJECT_CLASS, NATIVE_FUNCTION_CLASS);
+        this.code = new MethodCode(parameters.size());
+        this.runMethod = this.cw.methodRef(this.cw.thisClass(), "run", this.runDescriptor());
+        this.start = this.code.newLabel();
+    }
+
+    static NativeCode compile(final List<Identifier> parameters, final BlockStatement body, final MethodHandles.Lookup lookup) {
+        UnsupportedFunctionException failure = null;
+
+        for (final Type returnType : Type.values()) {
+            try {
+                return new FunctionCompiler(parameters, body, returnType).define(lookup);
+            } catch (final UnsupportedFunctionException ex) {
+                failure = ex;
+            }
+        }
+
+        throw failure;
+    }
+
+    private NativeCode define(final MethodHandles.Lookup lookup) {
+        for (final Identifier param : this.parameters) {
+            this.locals.put(param.getValue(), new Local(this.nextSlot++, Type.INT));
+        }
+
+        this.code.bind(this.start);
+        this.compileBlock(this.body, true, true);
+        this.cw.addMethod(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_STATIC, "run", this.runDescriptor(), this.code);
+        this.addConstructor();
+        this.addInvokeBridge();
+
+        try {
+            final var hidden = lookup.defineHiddenClass(this.cw.toByteArray(), true);
+            final var function = (NativeFunction) hidden.lookupClass().getDeclaredConstructor().newInstance();
+
+            return new NativeCode(function, this.parameters.size(), this.returnType == Type.BOOL, this.selfName);
+        } catch (final ReflectiveOperationException | LinkageError ex) {
+            throw new UnsupportedFunctionException("class definition failed: " + ex);
+        }
+    }
+
+    private String runDescriptor() {
+        return "(" + "I".repeat(this.parameters.size()) + ")I";
+    }
+
+    private void addConstructor() {
+        final var init = new MethodCode(1);
+        init.op(JvmOpCode.ALOAD_0, 1);
+        init.invoke(JvmOpCode.INVOKESPECIAL, this.cw.methodRef(this.cw.classRef(OBJECT_CLASS), "<init>", "()V"), -1);
+        init.op(JvmOpCode.RETURN, 0);
+
+        this.cw.addMethod(ClassWriter.ACC_PUBLIC, "<init>", "()V", init);
+    }
+
+    // NativeFunction.invoke(int[]) unpacks the arguments and calls the static run(int...) method.
+    private void addInvokeBridge() {
+        final var invoke = new MethodCode(2);
+        for (int i = 0; i < this.parameters.size(); i++) {
+            invoke.op(JvmOpCode.ALOAD_1, 1);
+            invoke.pushInt(this.cw, i);
+            invoke.op(JvmOpCode.IALOAD, -1);
+        }
+        invoke.invoke(JvmOpCode.INVOKESTATIC, this.runMethod, 1 - this.parameters.size());
+        invoke.op(JvmOpCode.IRETURN, -1);
+
+        this.cw.addMethod(ClassWriter.ACC_PUBLIC, "invoke", "([I)I", invoke);
+    }
+
+    // In tail position the value of the block is returned from run(); otherwise it is discarded.
+    private void compileBlock(final BlockStatement block, final boolean tail, final boolean functionBody) {
+        final var statements = block.getStatements();
+        if (statements.isEmpty() && tail) {
+            throw new UnsupportedFunctionException("empty block has no value");
+        }
+
+        for (int i = 0; i < statements.size(); i++) {
+            this.compileStatement(statements.get(i), tail && i == statements.size() - 1, functionBody);
+        }
+    }
+
+    private void compileStatement(final Statement stmt, final boolean tail, final boolean functionBody) {
+        if (stmt instanceof ExpressionStatement exprStmt) {
+            if (exprStmt.getExpression() instanceof IfExpression ifExpression) {
+                this.compileIfStatement(ifExpression, tail);
+            } else if (tail) {
+                this.compileReturn(exprStmt.getExpression());
+            } else {
+                this.compileExpression(exprStmt.getExpression());
+                this.code.op(JvmOpCode.POP, -1);
+            }
+        } else if (stmt instanceof ReturnStatement returnStmt) {
+            this.compileReturn(returnStmt.getReturnValue());
+        } else if (stmt instanceof LetStatement letStmt && functionBody && !tail) {
+            final var name = letStmt.getName().getValue();
+            if (name.equals(this.selfName)) {
+                throw new UnsupportedFunctionException("let shadows the function itself");
+            }
+
+            final var type = this.compileExpression(letStmt.getValue());
+            var local = this.locals.get(name);
+            if (local == null) {
+                local = new Local(this.nextSlot++, type);
+                this.locals.put(name, local);
+            } else if (local.type() != type) {
+                throw new UnsupportedFunctionException("let changes the type of " + name);
+            }
+
+            this.code.local(JvmOpCode.ISTORE, local.slot());
+        } else {
+            throw new UnsupportedFunctionException("unsupported statement: " + stmt.getClass().getSimpleName());
+        }
+    }
+
+    private void compileReturn(final Expression value) {
+        if (value instanceof CallExpression call) {
+            this.compileTailSelfCall(call);
+            return;
+        }
+        if (value instanceof IfExpression ifExpression && ifExpression.getAlternative() != null) {
+            this.compileIfStatement(ifExpression, true);
+            return;
+        }
+
+        if (this.compileExpression(value) != this.returnType) {
+            throw new UnsupportedFunctionException("mixed return types");
+        }
+
+        this.code.op(JvmOpCode.IRETURN, -1);
+    }
+
+    private void compileIfStatement(final IfExpression ifExpression, final boolean tail) {
+        final var otherwise = this.code.newLabel();
+        final var end = this.code.newLabel();
+
+        this.compileCondition(ifExpression.getCondition(), otherwise);
+        final int stack = this.code.stack();
+
+        this.compileBlock(ifExpression.getConsequence(), tail, false);
+        if (!tail) {
+            this.code.branch(JvmOpCode.GOTO, end, 0);
+        }
+
+        this.code.bind(otherwise);
+        this.code.setStack(stack);
+
+        if (ifExpression.getAlternative() != null) {
+            this.compileBlock(ifExpression.getAlternative(), tail, false);
+        } else if (tail) {
+            throw new UnsupportedFunctionException("if without else evaluates to null");
+        }
+
+        this.code.bind(end);
+    }
+
+    private void compileCondition(final Expression condition, final MethodCode.Label otherwise) {
+        if (condition instanceof InfixExpression infix && isComparison(infix.getOperator())) {
+            this.compileComparisonOperands(infix);
+            this.code.branch(invertedComparison(infix.getOperator()), otherwise, -2);
+            return;
+        }
+
+        if (this.compileExpression(condition) == Type.BOOL) {
+            this.code.branch(JvmOpCode.IFEQ, otherwise, -1);
+        } else {
+            // integers are always truthy.
+            this.code.op(JvmOpCode.POP, -1);
+        }
+    }
+
+    private Type compileExpression(final Expression expr) {
+        if (expr instanceof IntegerLiteral literal) {
+            this.code.pushInt(this.cw, literal.getValue());
+            return Type.INT;
+        } else if (expr instanceof Bool bool) {
+            this.code.pushInt(this.cw, bool.getValue() ? 1 : 0);
+            return Type.BOOL;
+        } else if (expr instanceof Identifier identifier) {
+            final var local = this.locals.get(identifier.getValue());
+            if (local == null) {
+                throw new UnsupportedFunctionException("free variable " + identifier.getValue());
+            }
+
+            this.code.local(JvmOpCode.ILOAD, local.slot());
+            return local.type();
+        } else if (expr instanceof PrefixExpression prefix) {
+            return this.compilePrefixExpression(prefix);
+        } else if (expr instanceof InfixExpression infix) {
+            return this.compileInfixExpression(infix);
+        } else if (expr instanceof IfExpression ifExpression) {
+            return this.compileIfExpression(ifExpression);
+        } else if (expr instanceof CallExpression call) {
+            return this.compileSelfCall(call);
+        }
+
+        throw new UnsupportedFunctionException("unsupported expression: " + expr.getClass().getSimpleName());
+    }
+
+    private Type compilePrefixExpression(final PrefixExpression prefix) {
+        final var type = this.compileExpression(prefix.getRight());
+
+        switch (prefix.getOperator()) {
+            case "-" -> {
+                if (type != Type.INT) {
+                    throw new UnsupportedFunctionException("unknown operator: -BOOLEAN");
+                }
+                this.code.op(JvmOpCode.INEG, 0);
+                return Type.INT;
+            }
+            case "!" -> {
+                if (type == Type.INT) {
+                    this.code.op(JvmOpCode.POP, -1);
+                    this.code.op(JvmOpCode.ICONST_0, 1);
+                } else {
+                    this.code.op(JvmOpCode.ICONST_1, 1);
+                    this.code.op(JvmOpCode.IXOR, -1);
+                }
+                return Type.BOOL;
+            }
+            default -> throw new UnsupportedFunctionException("unknown operator " + prefix.getOperator());
+        }
+    }
+
+    private Type compileInfixExpression(final InfixExpression infix) {
+        if (isComparison(infix.getOperator())) {
+            final var isTrue = this.code.newLabel();
+            final var end = this.code.newLabel();
+
+            this.compileComparisonOperands(infix);
+            final int stack = this.code.stack() - 2;
+            this.code.branch(comparison(infix.getOperator()), isTrue, -2);
+            this.code.op(JvmOpCode.ICONST_0, 1);
+            this.code.branch(JvmOpCode.GOTO, end, 0);
+            this.code.bind(isTrue);
+            this.code.setStack(stack);
+            this.code.op(JvmOpCode.ICONST_1, 1);
+            this.code.bind(end);
+
+            return Type.BOOL;
+        }
+
+        final var left = this.compileExpression(infix.getLeft());
+        final var right = this.compileExpression(infix.getRight());
+        if (left != Type.INT || right != Type.INT) {
+            throw new UnsupportedFunctionException("arithmetic on booleans");
+        }
+
+        this.code.op(switch (infix.getOperator()) {
+            case "+" -> JvmOpCode.IADD;
+            case "-" -> JvmOpCode.ISUB;
+            case "*" -> JvmOpCode.IMUL;
+            case "/" -> JvmOpCode.IDIV;
+            default -> throw new UnsupportedFunctionException("unknown operator " + infix.getOperator());
+        }, -1);
+
+        return Type.INT;
+    }
+
+    private void compileComparisonOperands(final InfixExpression infix) {
+        final var left = this.compileExpression(infix.getLeft());
+        final var right = this.compileExpression(infix.getRight());
+
+        final boolean equality = infix.getOperator().equals("==") || infix.getOperator().equals("!=");
+        if (left != right || (left == Type.BOOL && !equality)) {
+            throw new UnsupportedFunctionException("unsupported comparison " + infix.getOperator());
+        }
+    }
+
+    private Type compileIfExpression(final IfExpression ifExpression) {
+        if (ifExpression.getAlternative() == null) {
+            throw new UnsupportedFunctionException("if without else evaluates to null");
+        }
+
+        final var otherwise = this.code.newLabel();
+        final var end = this.code.newLabel();
+
+        this.compileCondition(ifExpression.getCondition(), otherwise);
+        final int stack = this.code.stack();
+
+        final var consequence = this.compileValueBlock(ifExpression.getConsequence());
+        this.code.branch(JvmOpCode.GOTO, end, 0);
+
+        this.code.bind(otherwise);
+        this.code.setStack(stack);
+
+        final var alternative = this.compileValueBlock(ifExpression.getAlternative());
+        if (consequence != alternative) {
+            throw new UnsupportedFunctionException("if branches have different types");
+        }
+
+        this.code.bind(end);
+        return consequence;
+    }
+
+    private Type compileValueBlock(final BlockStatement block) {
+        final var statements = block.getStatements();
+        if (statements.isEmpty()) {
+            throw new UnsupportedFunctionException("empty block has no value");
+        }
+
+        Type type = null;
+        for (int i = 0; i < statements.size(); i++) {
+            if (!(statements.get(i) instanceof ExpressionStatement exprStmt)) {
+                throw new UnsupportedFunctionException("statement inside an if expression");
+            }
+
+            type = this.compileExpression(exprStmt.getExpression());
+            if (i < statements.size() - 1) {
+                this.code.op(JvmOpCode.POP, -1);
+            }
+        }
+
+        return type;
+    }
+
+    // The only callee allowed is the function itself; Jit checks the name is still bound to it before entering.
+    private Type compileSelfCall(final CallExpression call) {
+        this.checkSelfCall(call);
+        this.compileArguments(call);
+        this.code.invoke(JvmOpCode.INVOKESTATIC, this.runMethod, 1 - this.parameters.size());
+        return this.returnType;
+    }
+
+    private void checkSelfCall(final CallExpression call) {
+        if (!(call.getFunction() instanceof Identifier callee) || this.locals.containsKey(callee.getValue())) {
+            throw new UnsupportedFunctionException("call to something other than the function itself");
+        }
+
+        if (this.selfName == null) {
+            this.selfName = callee.getValue();
+        } else if (!this.selfName.equals(callee.getValue())) {
+            throw new UnsupportedFunctionException("calls to more than one function");
+        }
+
+        if (call.getArguments().size() != this.parameters.size()) {
+            throw new UnsupportedFunctionException("wrong number of arguments");
+        }
+    }
+
+    // A self-call whose value is returned runs as a loop, the way the Evaluator's trampoline does: the arguments go
+    // into the parameters and run() starts over. All of them are evaluated before any parameter changes.
+    private void compileTailSelfCall(final CallExpression call) {
+        this.checkSelfCall(call);
+        this.compileArguments(call);
+        for (int slot = this.parameters.size() - 1; slot >= 0; slot--) {
+            this.code.local(JvmOpCode.ISTORE, slot);
+        }
+        this.code.branch(JvmOpCode.GOTO, this.start, 0);
+    }
+
+    private void compileArguments(final CallExpression call) {
+        for (final Expression arg : call.getArguments()) {
+            if (this.compileExpression(arg) != Type.INT) {
+                throw new UnsupportedFunctionException("non integer argument");
+            }
+        }
+    }
+
+    private static boolean isComparison(final String operator) {
+        return switch (operator) {
+            case "<", ">", "==", "!=" -> true;
+            default -> false;
+        };
+    }
+
+    private static int comparison(final String operator) {
+        return switch (operator) {
+            case "<" -> JvmOpCode.IF_ICMPLT;
+            case ">" -> JvmOpCode.IF_ICMPGT;
+            case "==" -> JvmOpCode.IF_ICMPEQ;
+            default -> JvmOpCode.IF_ICMPNE;
+        };
+    }
+
+    private static int invertedComparison(final String operator) {
+        return switch (operator) {
+            case "<" -> JvmOpCode.IF_ICMPGE;
+            case ">" -> JvmOpCode.IF_ICMPLE;
+            case "==" -> JvmOpCode.IF_ICMPNE;
+            default -> JvmOpCode.IF_ICMPEQ;
+        };
+    }
+
+}
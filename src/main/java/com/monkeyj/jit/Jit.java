@@ -0,0 +1,121 @@
+package com.monkeyj.jit;
+
+import com.monkeyj.ast.BlockStatement;
+import com.monkeyj.ast.FunctionLiteral;
+import com.monkeyj.evaluator.Literals;
+import com.monkeyj.object.Function;
+import com.monkeyj.object.Int;
+import com.monkeyj.object.Obj;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public final class Jit {
+
+    private Jit() {}
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // Keyed by the function body, so every closure created from the same FunctionLiteral shares one class.
+    private static final Map<BlockStatement, Optional<NativeCode>> CODE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final List<Consumer<Promotion>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    private static volatile boolean enabled = Boolean.getBoolean("monkeyj.jit");
+    private static volatile int threshold = Integer.getInteger("monkeyj.jit.threshold", DEFAULT_THRESHOLD);
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(final boolean enabled) {
+        Jit.enabled = enabled;
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    public static void setThreshold(final int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("negative threshold: " + threshold);
+        }
+        Jit.threshold = threshold;
+    }
+
+    public static void addPromotionListener(final Consumer<Promotion> listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removePromotionListener(final Consumer<Promotion> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    // Loop back edges count on top of the invocation itself, so recursive functions are promoted sooner.
+    public static boolean isHot(final FunctionLiteral literal) {
+        return literal.getInvocationCount() + literal.getLoopBackCount() >= threshold;
+    }
+
+    public static boolean isCompiled(final Function fn) {
+        return nativeCode(fn).isPresent();
+    }
+
+    // Returns null when the call has to be handled by the Evaluator.
+    public static Obj invoke(final Function fn, final List<Obj> args) {
+        final var code = nativeCode(fn).orElse(null);
+        if (code == null || code.arity() != args.size()) {
+            return null;
+        }
+
+        if (code.selfName() != null && fn.getEnv().get(code.selfName()) != fn) {
+            return null;
+        }
+
+        final int[] values = new int[args.size()];
+        for (int i = 0; i < values.length; i++) {
+            if (!(args.get(i) instanceof Int integer)) {
+                return null;
+            }
+            values[i] = integer.getValue();
+        }
+
+        final int result = code.function().invoke(values);
+        if (code.booleanResult()) {
+            return result != 0 ? Literals.TRUE : Literals.FALSE;
+        }
+
+        return Int.of(result);
+    }
+
+    private static Optional<NativeCode> nativeCode(final Function fn) {
+        return CODE.computeIfAbsent(fn.getBody(), body -> {
+            try {
+                final var code = FunctionCompiler.compile(fn.getParameters(), body, LOOKUP);
+                promoted(fn.getLiteral(), true, null);
+                return Optional.of(code);
+            } catch (final UnsupportedFunctionException ex) {
+                promoted(fn.getLiteral(), false, ex.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static void promoted(final FunctionLiteral literal, final boolean compiled, final String reason) {
+        if (literal == null || LISTENERS.isEmpty()) {
+            return;
+        }
+
+        final var event = new Promotion(
+                literal, literal.getInvocationCount(), literal.getLoopBackCount(), compiled, reason);
+        LISTENERS.forEach(listener -> listener.accept(event));
+    }
+
+}
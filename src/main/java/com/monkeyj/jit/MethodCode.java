@@ -0,0 +1,119 @@
+package com.monkeyj.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+final class MethodCode {
+
+    static final class Label {
+        private int position = -1;
+        private final List<Integer> branches = new ArrayList<>();
+    }
+
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final List<Label> labels = new ArrayList<>();
+    private int stack;
+    private int maxStack;
+    private int maxLocals;
+
+    MethodCode(final int maxLocals) {
+        this.maxLocals = maxLocals;
+    }
+
+    int maxStack() {
+        return maxStack;
+    }
+
+    int maxLocals() {
+        return maxLocals;
+    }
+
+    int stack() {
+        return stack;
+    }
+
+    // Branches leave the operand stack in a state the linear tracking cannot see, so callers reset it at labels.
+    void setStack(final int stack) {
+        this.stack = stack;
+    }
+
+    void op(final int opcode, final int stackDelta) {
+        this.code.write(opcode);
+        this.adjustStack(stackDelta);
+    }
+
+    void pushInt(final ClassWriter cw, final int value) {
+        if (value >= -1 && value <= 5) {
+            this.op(JvmOpCode.ICONST_0 + value, 1);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            this.op(JvmOpCode.BIPUSH, 1);
+            this.code.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            this.op(JvmOpCode.SIPUSH, 1);
+            this.writeShort(value);
+        } else {
+            this.op(JvmOpCode.LDC_W, 1);
+            this.writeShort(cw.integer(value));
+        }
+    }
+
+    void local(final int opcode, final int slot) {
+        if (slot > 255) {
+            throw new UnsupportedFunctionException("too many locals");
+        }
+
+        this.op(opcode, opcode == JvmOpCode.ILOAD ? 1 : -1);
+        this.code.write(slot);
+        this.maxLocals = Math.max(this.maxLocals, slot + 1);
+    }
+
+    void invoke(final int opcode, final int methodRef, final int stackDelta) {
+        this.op(opcode, stackDelta);
+        this.writeShort(methodRef);
+    }
+
+    void branch(final int opcode, final Label label, final int stackDelta) {
+        label.branches.add(this.code.size());
+        this.op(opcode, stackDelta);
+        this.writeShort(0);
+    }
+
+    Label newLabel() {
+        final var label = new Label();
+        this.labels.add(label);
+        return label;
+    }
+
+    void bind(final Label label) {
+        label.position = this.code.size();
+    }
+
+    byte[] toByteArray() {
+        final byte[] bytes = this.code.toByteArray();
+
+        for (final Label label : this.labels) {
+            for (final int branch : label.branches) {
+                final int offset = label.position - branch;
+                if (label.position < 0 || offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                    throw new UnsupportedFunctionException("branch offset out of range");
+                }
+                bytes[branch + 1] = (byte) (offset >> 8);
+                bytes[branch + 2] = (byte) offset;
+            }
+        }
+
+        return bytes;
+    }
+
+    private void writeShort(final int value) {
+        this.code.write(value >> 8);
+        this.code.write(value);
+    }
+
+    private void adjustStack(final int delta) {
+        this.stack += delta;
+        this.maxStack = Math.max(this.maxStack, this.stack);
+    }
+
+}
@@ -0,0 +1,3 @@
+package com.monkeyj.jit;
+
+record NativeCode(NativeFunction function, int arity, boolean booleanResult, String selfName) { }
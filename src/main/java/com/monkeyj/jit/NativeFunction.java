@@ -0,0 +1,5 @@
+package com.monkeyj.jit;
+
+public interface NativeFunction {
+    int invoke(int[] args);
+}
@@ -0,0 +1,7 @@
+package com.monkeyj.jit;
+
+import com.monkeyj.ast.FunctionLiteral;
+
+// Published once per function literal, when it first crosses the Jit threshold. A function that could not be compiled
+// keeps running on the evaluator and reports why in reason.
+public record Promotion(FunctionLiteral function, long invocations, long loopBacks, boolean compiled, String reason) {}
@@ -0,0 +1,11 @@
+package com.monkeyj.jit;
+
+final class UnsupportedFunctionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedFunctionException(final String message) {
+        super(message, null, false, false);
+    }
+
+}
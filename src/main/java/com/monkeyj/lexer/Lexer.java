@@ -1,24 +1,45 @@
 package com.monkeyj.lexer;
 
-import com.monkeyj.token.Keywords;
 import com.monkeyj.token.Token;
+import com.monkeyj.token.TokenKind;
 
-import com.monkeyj.token.TokenConstants;
+import java.nio.CharBuffer;
 
+// next() moves to the following token and describes it as a TokenKind plus its start and end offsets in the input,
+// without allocating anything; literal() only builds the String when it is asked for. nextToken() does both and wraps
+// the result in a Token. Operators, delimiters and keywords share one String per kind, so only identifiers, numbers
+// and strings copy characters out of the input.
 public class Lexer {
 
-    private final String input;
+    private final CharSequence input;
+    private final int length;
     private int position;               // current position in input (points to the current char).
     private int readPosition;           // current reading position in input (after current char).
     private char ch;                    // current char under examination.
 
-    public Lexer(final String input) {
+    private int kind;                   // the current token: its TokenKind and where it sits in input.
+    private int start;
+    private int end;
+
+    public Lexer(final CharSequence input) {
+        this(input, 0);
+    }
+
+    // Starts lexing at offset start, which should be where a token or whitespace begins. Offsets are still into the
+    // whole input.
+    public Lexer(final CharSequence input, final int start) {
         this.input = input;
+        this.length = input.length();
+        this.readPosition = start;
         this.readChar();
     }
 
+    public Lexer(final char[] input) {
+        this(CharBuffer.wrap(input));
+    }
+
     private void readChar() {
-        if (this.readPosition >= this.input.length()) {
+        if (this.readPosition >= this.length) {
             this.ch = 0;
         } else {
             this.ch = this.input.charAt(this.readPosition);
@@ -28,7 +49,7 @@ public class Lexer {
     }
 
     private char peekChar() {
-        if (this.readPosition >= this.input.length()) {
+        if (this.readPosition >= this.length) {
             return 0;
         } else {
             return this.input.charAt(this.readPosition);
@@ -36,127 +57,174 @@ public class Lexer {
     }
 
     public Token nextToken() {
+        final int kind = this.next();
+        return new Token(TokenKind.type(kind), this.literal());
+    }
+
+    // Moves to the next token and returns its TokenKind.
+    public int next() {
         this.skipWhitespaces();
 
-        Token tok;
+        this.start = this.position;
 
         switch (this.ch) {
             case '=':
                 if (this.peekChar() == '=') {
-                    final var current = this.ch;
                     this.readChar();
-                    tok = new Token(TokenConstants.EQ, this.ch + "" + current);
+                    this.kind = TokenKind.EQ;
                 } else {
-                    tok = new Token(TokenConstants.ASSIGN, this.ch + "");
+                    this.kind = TokenKind.ASSIGN;
                 }
                 break;
             case ';':
-                tok = new Token(TokenConstants.SEMICOLON, this.ch + "");
+                this.kind = TokenKind.SEMICOLON;
                 break;
             case ':':
-                tok = new Token(TokenConstants.COLON, this.ch + "");
+                this.kind = TokenKind.COLON;
                 break;
             case '(':
-                tok = new Token(TokenConstants.LPAREN, this.ch + "");
+                this.kind = TokenKind.LPAREN;
                 break;
             case ')':
-                tok = new Token(TokenConstants.RPAREN, this.ch + "");
+                this.kind = TokenKind.RPAREN;
                 break;
             case ',':
-                tok = new Token(TokenConstants.COMMA, this.ch + "");
+                this.kind = TokenKind.COMMA;
                 break;
             case '+':
-                tok = new Token(TokenConstants.PLUS, this.ch + "");
+                this.kind = TokenKind.PLUS;
                 break;
             case '-':
-                tok = new Token(TokenConstants.MINUS, this.ch + "");
+                this.kind = TokenKind.MINUS;
                 break;
             case '{':
-                tok = new Token(TokenConstants.LBRACE, this.ch + "");
+                this.kind = TokenKind.LBRACE;
                 break;
             case '}':
-                tok = new Token(TokenConstants.RBRACE, this.ch + "");
+                this.kind = TokenKind.RBRACE;
                 break;
             case '!':
                 if (this.peekChar() == '=') {
-                    final var current = this.ch;
                     this.readChar();
-                    tok = new Token(TokenConstants.NOT_EQ, current + "" + this.ch);
+                    this.kind = TokenKind.NOT_EQ;
                 } else {
-                     tok = new Token(TokenConstants.BANG, this.ch + "");
+                    this.kind = TokenKind.BANG;
                 }
                 break;
             case '/':
-                tok = new Token(TokenConstants.SLASH, this.ch + "");
+                this.kind = TokenKind.SLASH;
                 break;
             case '*':
-                tok = new Token(TokenConstants.ASTERISK, this.ch + "");
+                this.kind = TokenKind.ASTERISK;
                 break;
             case '<':
-                tok = new Token(TokenConstants.LT, this.ch + "");
+                this.kind = TokenKind.LT;
                 break;
             case '>':
-                tok = new Token(TokenConstants.GT, this.ch + "");
+                this.kind = TokenKind.GT;
                 break;
             case Character.MIN_VALUE:
-                tok = new Token(TokenConstants.EOF, "");
-                break;
+                this.kind = TokenKind.EOF;
+                // Past the closing quote an unterminated string never had.
+                this.start = Math.min(this.position, this.length);
+                this.end = this.start;
+                return this.kind;
             case '"':
-                tok = new Token(TokenConstants.STRING, this.readString());
-                break;
+                this.kind = TokenKind.STRING;
+                this.readString();
+                this.readChar();
+                return this.kind;
             case '[':
-                tok = new Token(TokenConstants.LBRACKET, this.ch + "");
+                this.kind = TokenKind.LBRACKET;
                 break;
             case ']':
-                tok = new Token(TokenConstants.RBRACKET, this.ch + "");
+                this.kind = TokenKind.RBRACKET;
                 break;
             default:
                 if (isLetter(this.ch)) {
-                    final String literal = this.readIdentifier();
-                    tok = new Token(Keywords.lookupIdentifier(literal), literal);
-                    return tok;
+                    this.readIdentifier();
+                    this.kind = TokenKind.keyword(this.input, this.start, this.end);
+                    return this.kind;
                 } else if (isDigit(this.ch)) {
-                    tok = new Token(TokenConstants.INT, this.readNumber());
-                    return tok;
+                    this.readNumber();
+                    this.kind = TokenKind.INT;
+                    return this.kind;
                 } else {
-                    tok = new Token(TokenConstants.ILLEGAL, this.ch + "");
+                    this.kind = TokenKind.ILLEGAL;
                 }
         }
 
+        this.end = this.position + 1;
         this.readChar();
 
-        return tok;
+        return this.kind;
+    }
+
+    public int kind() {
+        return this.kind;
+    }
+
+    // Offsets of the current token in the input; for a string they leave the quotes out.
+    public int start() {
+        return this.start;
+    }
+
+    public int end() {
+        return this.end;
+    }
+
+    // Where the current token begins, opening quote included.
+    public int tokenStart() {
+        return this.kind == TokenKind.STRING ? this.start - 1 : this.start;
+    }
+
+    // How far into the input the lexer has looked: the tokens so far depend on nothing from this offset on. Past
+    // input.length() once it has seen the end of the input, which a token ending there depends on as well.
+    public int scanned() {
+        return this.readPosition;
+    }
+
+    public CharSequence input() {
+        return this.input;
+    }
+
+    // The text of the current token.
+    public String literal() {
+        final var literal = TokenKind.literal(this.kind);
+        if (literal != null) {
+            return literal;
+        }
+
+        return this.input.subSequence(this.start, this.end).toString();
     }
 
-    private String readString() {
-        final int pos = this.position + 1;
+    private void readString() {
+        this.start = this.position + 1;
         do {
             this.readChar();
         } while (this.ch != '"' && this.ch != 0);
 
-        return this.input.substring(pos, this.position);
+        this.end = this.position;
     }
 
-    private String readNumber() {
-        final int pos = this.position;
+    private void readNumber() {
         while (this.isDigit(this.ch)) {
             this.readChar();
         }
 
-        return this.input.substring(pos, this.position);
+        this.end = this.position;
     }
 
     private boolean isDigit(final char ch) {
         return '0' <= ch && ch <= '9';
     }
 
-    private String readIdentifier() {
-        final int pos = this.position;
+    private void readIdentifier() {
         while (this.isLetter(this.ch)) {
             this.readChar();
         }
 
-        return this.input.substring(pos, this.position);
+        this.end = this.position;
     }
 
     private void skipWhitespaces() {
@@ -169,4 +237,4 @@ public class Lexer {
         return 'a' <= ch && ch <= 'z' || 'A' <= ch && ch <= 'Z' || ch == '_';
     }
 
-}
\ No newline at end of file
+}
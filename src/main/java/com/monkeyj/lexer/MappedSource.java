@@ -0,0 +1,213 @@
+package com.monkeyj.lexer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A UTF-8 file mapped into memory and read as a CharSequence, so the Lexer can go through a large source without
+// copying it into a String first. Opening it counts its characters in one pass over the mapping; after that charAt
+// decodes where it is asked to. It keeps a cursor on the last code point it decoded, and the Lexer reads forward and
+// only steps back to the start of the current token, so each character is decoded a bounded number of times. A file
+// that is all ASCII skips the decoding altogether. Malformed bytes read as U+FFFD, one per byte.
+//
+// Not thread-safe: charAt moves the cursor. Threads reading the same file each take a duplicate().
+public final class MappedSource implements CharSequence {
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final ByteBuffer bytes;
+    private final int size;
+    private final int length;
+    private final boolean ascii;
+
+    // The code point charAt last landed on: the index of its first char and its offset in bytes.
+    private int cursorChar;
+    private int cursorByte;
+
+    // The mapping outlives the channel, so nothing is left open once this returns.
+    public static MappedSource open(final Path path) throws IOException {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("%s is too large to map: %d bytes", path, size));
+            }
+
+            return new MappedSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public MappedSource(final ByteBuffer bytes) {
+        this.bytes = bytes.slice();
+        this.size = this.bytes.limit();
+
+        // Eight bytes at a time while they are all ASCII, which is most source files all the way through.
+        int at = 0;
+        while (at + Long.BYTES <= this.size && (this.bytes.getLong(at) & 0x8080808080808080L) == 0) {
+            at += Long.BYTES;
+        }
+
+        int length = at;
+        boolean ascii = true;
+        while (at < this.size) {
+            final int sequence = this.sequenceLength(at);
+            if (sequence > 1 || this.bytes.get(at) < 0) {
+                ascii = false;
+            }
+            length += sequence == 4 ? 2 : 1;
+            at += sequence;
+        }
+
+        this.length = length;
+        this.ascii = ascii;
+    }
+
+    private MappedSource(final ByteBuffer bytes, final int length, final boolean ascii) {
+        this.bytes = bytes;
+        this.size = bytes.limit();
+        this.length = length;
+        this.ascii = ascii;
+    }
+
+    // The same mapping with a cursor of its own, without counting the characters again.
+    public MappedSource duplicate() {
+        return new MappedSource(this.bytes.duplicate(), this.length, this.ascii);
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        // One byte per char, so the buffer checks the index itself.
+        if (this.ascii) {
+            return (char) this.bytes.get(index);
+        }
+        if (index < 0 || index >= this.length) {
+            throw new IndexOutOfBoundsException(String.format("index %d out of bounds for length %d", index, this.length));
+        }
+
+        final int sequence = this.seek(index);
+        if (sequence == 1) {
+            final byte b = this.bytes.get(this.cursorByte);
+            return b < 0 ? REPLACEMENT : (char) b;
+        }
+
+        final int codePoint = this.decode(this.cursorByte, sequence);
+        if (sequence < 4) {
+            return (char) codePoint;
+        }
+
+        return index == this.cursorChar ? Character.highSurrogate(codePoint) : Character.lowSurrogate(codePoint);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > this.length || start > end) {
+            throw new IndexOutOfBoundsException(String.format("range [%d, %d) out of bounds for length %d", start, end, this.length));
+        }
+
+        if (this.ascii) {
+            final byte[] chars = new byte[end - start];
+            this.bytes.get(start, chars);
+            return new String(chars, StandardCharsets.ISO_8859_1);
+        }
+
+        final var chars = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            chars.append(this.charAt(i));
+        }
+        return chars.toString();
+    }
+
+    @Override
+    public String toString() {
+        return this.subSequence(0, this.length).toString();
+    }
+
+    // Moves the cursor onto the code point holding char index and returns its length in bytes.
+    private int seek(final int index) {
+        while (index < this.cursorChar) {
+            this.stepBack();
+        }
+
+        while (true) {
+            final int sequence = this.sequenceLength(this.cursorByte);
+            final int chars = sequence == 4 ? 2 : 1;
+            if (index < this.cursorChar + chars) {
+                return sequence;
+            }
+            this.cursorChar += chars;
+            this.cursorByte += sequence;
+        }
+    }
+
+    // A byte that is not a continuation byte always starts a code point, valid or not, so the one before the cursor
+    // is the valid sequence that ends exactly at it, or else a single byte.
+    private void stepBack() {
+        for (int back = 2; back <= 4; back++) {
+            final int at = this.cursorByte - back;
+            if (at >= 0 && !isContinuation(this.bytes.get(at)) && this.sequenceLength(at) == back) {
+                this.cursorByte = at;
+                this.cursorChar -= back == 4 ? 2 : 1;
+                return;
+            }
+        }
+
+        this.cursorByte--;
+        this.cursorChar--;
+    }
+
+    // The length of the well-formed UTF-8 sequence starting at at, or 1 for ASCII and for a byte that starts none.
+    private int sequenceLength(final int at) {
+        final int lead = this.bytes.get(at) & 0xFF;
+        final int sequence;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            sequence = 2;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            sequence = 3;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            sequence = 4;
+        } else {
+            return 1;
+        }
+
+        if (at + sequence > this.size) {
+            return 1;
+        }
+        for (int i = 1; i < sequence; i++) {
+            if (!isContinuation(this.bytes.get(at + i))) {
+                return 1;
+            }
+        }
+
+        // Overlong forms, surrogates and anything past U+10FFFF are malformed as well.
+        final int codePoint = this.decode(at, sequence);
+        if (sequence == 3 && (codePoint < 0x800 || Character.isSurrogate((char) codePoint))) {
+            return 1;
+        }
+        if (sequence == 4 && (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT)) {
+            return 1;
+        }
+
+        return sequence;
+    }
+
+    private int decode(final int at, final int sequence) {
+        int codePoint = this.bytes.get(at) & (0xFF >> (sequence + 1));
+        for (int i = 1; i < sequence; i++) {
+            codePoint = codePoint << 6 | this.bytes.get(at + i) & 0x3F;
+        }
+
+        return codePoint;
+    }
+
+    private static boolean isContinuation(final byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+}
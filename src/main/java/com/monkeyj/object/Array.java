@@ -3,21 +3,39 @@ package com.monkeyj.object;
 import java.util.ArrayList;
 import java.util.List;
 
-public class Array implements Obj {
+// Monkey arrays are immutable; the elements live in a PersistentVector, so push and rest share them with the
+// original array instead of copying it.
+public final class Array implements Obj {
 
-    private final List<Obj> elements;
+    private final PersistentVector elements;
 
     public Array(final List<Obj> elements) {
-        this.elements = elements;
+        this.elements = PersistentVector.of(elements);
     }
 
     public List<Obj> getElements() {
         return elements;
     }
 
+    public int size() {
+        return this.elements.size();
+    }
+
+    public Obj get(final int index) {
+        return this.elements.get(index);
+    }
+
+    public Array push(final Obj value) {
+        return new Array(this.elements.push(value));
+    }
+
+    public Array rest() {
+        return new Array(this.elements.rest());
+    }
+
     @Override
-    public String type() {
-        return ObjConstants.ARRAY_OBJ;
+    public ObjType objType() {
+        return ObjType.ARRAY;
     }
 
     @Override
@@ -2,7 +2,7 @@ package com.monkeyj.object;
 
 import java.util.Objects;
 
-public class Bool implements Obj, Hashable {
+public final class Bool implements Obj, Hashable {
 
     private boolean value;
 
@@ -42,8 +42,8 @@ public class Bool implements Obj, Hashable {
     }
 
     @Override
-    public String type() {
-        return ObjConstants.BOOLEAN_OBJ;
+    public ObjType objType() {
+        return ObjType.BOOLEAN;
     }
 
     @Override
@@ -54,7 +54,17 @@ public class Bool implements Obj, Hashable {
     @Override
     public HashKey hashKey() {
         int value = this.value ? 1 : 0;
-        return new HashKey(this.type(), value);
+        return new HashKey(this.objType(), value);
+    }
+
+    @Override
+    public int keyHash() {
+        return this.value ? 1 : 0;
+    }
+
+    @Override
+    public boolean keyEquals(final Hashable other) {
+        return other instanceof Bool bool && bool.value == this.value;
     }
 
     @Override
@@ -4,7 +4,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
 
-public class Builtin implements Obj {
+public final class Builtin implements Obj {
 
     private Function<List<Obj>, Obj> fn;
 
@@ -13,8 +13,8 @@ public class Builtin implements Obj {
     }
 
     @Override
-    public String type() {
-        return ObjConstants.BUILTIN_OBJ;
+    public ObjType objType() {
+        return ObjType.BUILTIN;
     }
 
     @Override
@@ -0,0 +1,22 @@
+package com.monkeyj.object;
+
+// A local of a compiled function that a closure captured. The frame that declares it and every closure that captured
+// it share the cell, so a let that runs after a closure was made is seen through it, as it is through an Environment.
+// Empty until the local's let has run.
+public final class Cell {
+
+    private Obj value;
+
+    public Cell(final Obj value) {
+        this.value = value;
+    }
+
+    public Obj getValue() {
+        return value;
+    }
+
+    public void setValue(final Obj value) {
+        this.value = value;
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.monkeyj.object;
+
+import com.monkeyj.ast.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class Closure implements Obj {
+
+    private final CompiledFunction fn;
+    private final Cell[] free;
+
+    public Closure(final CompiledFunction fn, final Cell[] free) {
+        this.fn = fn;
+        this.free = free;
+    }
+
+    public CompiledFunction getFn() {
+        return fn;
+    }
+
+    public Cell[] getFree() {
+        return free;
+    }
+
+    @Override
+    public ObjType objType() {
+        return ObjType.FUNCTION;
+    }
+
+    @Override
+    public String inspect() {
+        final var literal = this.fn.getLiteral();
+        if (literal == null) {
+            return String.format("Closure[%s]", Integer.toHexString(System.identityHashCode(this)));
+        }
+
+        final StringBuilder out = new StringBuilder();
+
+        final List<String> params = new ArrayList<>();
+        for (final Identifier idParam : literal.getParameters()) {
+            params.add(idParam.toString());
+        }
+
+        out.append("fn");
+        out.append("(");
+        out.append(String.join(", ", params));
+        out.append(") {\n");
+        out.append(literal.getBody().toString());
+        out.append("\n}");
+
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "Closure{" +
+                "fn=" + fn +
+                ", free=" + free.length +
+                '}';
+    }
+}
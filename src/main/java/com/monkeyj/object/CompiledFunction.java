@@ -0,0 +1,88 @@
+package com.monkeyj.object;
+
+import com.monkeyj.ast.FunctionLiteral;
+
+public final class CompiledFunction implements Obj {
+
+    // In captures, the closure the enclosing frame runs; see getCaptures().
+    public static final int CURRENT_CLOSURE = -1;
+
+    private static final int[] NONE = {};
+
+    private final byte[] instructions;
+    private final int numLocals;
+    private final int numParameters;
+    private final FunctionLiteral literal;
+    private final int[] cells;
+    private final int[] captures;
+
+    public CompiledFunction(
+            final byte[] instructions
+            , final int numLocals
+            , final int numParameters
+            , final FunctionLiteral literal) {
+        this(instructions, numLocals, numParameters, literal, NONE, NONE);
+    }
+
+    public CompiledFunction(
+            final byte[] instructions
+            , final int numLocals
+            , final int numParameters
+            , final FunctionLiteral literal
+            , final int[] cells
+            , final int[] captures) {
+        this.instructions = instructions;
+        this.numLocals = numLocals;
+        this.numParameters = numParameters;
+        this.literal = literal;
+        this.cells = cells;
+        this.captures = captures;
+    }
+
+    public byte[] getInstructions() {
+        return instructions;
+    }
+
+    public int getNumLocals() {
+        return numLocals;
+    }
+
+    public int getNumParameters() {
+        return numParameters;
+    }
+
+    public FunctionLiteral getLiteral() {
+        return literal;
+    }
+
+    // The local slots that closures capture, which live in a Cell for the whole call instead of on the stack.
+    public int[] getCells() {
+        return cells;
+    }
+
+    // Where each free variable of a closure of this function comes from, in the frame that makes the closure: the
+    // cell of local slot n for n >= 0, CURRENT_CLOSURE, or free variable n of that frame's closure for -2 - n.
+    public int[] getCaptures() {
+        return captures;
+    }
+
+    @Override
+    public ObjType objType() {
+        return ObjType.COMPILED_FUNCTION;
+    }
+
+    @Override
+    public String inspect() {
+        return String.format("CompiledFunction[%s]", Integer.toHexString(System.identityHashCode(this)));
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledFunction{" +
+                "numLocals=" + numLocals +
+                ", numParameters=" + numParameters +
+                ", cells=" + cells.length +
+                ", captures=" + captures.length +
+                '}';
+    }
+}
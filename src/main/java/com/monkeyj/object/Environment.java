@@ -4,33 +4,115 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
+// Values live in an array; names map to slots. The Evaluator still goes through get/set by name, while the tree
+// interpreter resolves names to slots ahead of time and reads the array directly. Frames of resolved functions share
+// one read-only layout, which is only copied if someone defines a name it does not have.
 public class Environment {
-    private final Map<String, Obj> store;
+
+    private static final int INITIAL_SIZE = 4;
+
+    private Map<String, Integer> slots;
+    private boolean sharedLayout;
+    private Obj[] values;
     private final Environment outer;
 
     public Environment() {
-        this.store = new HashMap<>();
-        this.outer = null;
+        this(null);
     }
 
     public static Environment newEnclosedEnvironment(final Environment outer) {
         return new Environment(outer);
     }
 
+    public static Environment newEnclosedEnvironment(final Environment outer, final Map<String, Integer> layout) {
+        return new Environment(outer, layout);
+    }
+
     private Environment(final Environment outer) {
-        this.store = new HashMap<>();
+        this.slots = new HashMap<>();
+        this.values = new Obj[INITIAL_SIZE];
+        this.outer = outer;
+    }
+
+    private Environment(final Environment outer, final Map<String, Integer> layout) {
+        this.slots = layout;
+        this.sharedLayout = true;
+        this.values = new Obj[layout.size()];
         this.outer = outer;
     }
 
     public Obj get(final String name) {
-        if (this.store.get(name) == null && this.outer != null) {
+        final var slot = this.slots.get(name);
+        final var val = slot == null ? null : this.values[slot];
+        if (val == null && this.outer != null) {
             return this.outer.get(name);
         }
-        return this.store.get(name);
+
+        return val;
     }
 
     public Obj set(final String name, final Obj val) {
-        return this.store.put(name, val);
+        final int slot = this.slot(name);
+        final var old = this.values[slot];
+        this.values[slot] = val;
+
+        return old;
+    }
+
+    public Environment getOuter() {
+        return outer;
+    }
+
+    // Returns the slot of name, or -1 if this environment has not seen it; unlike slot(), never adds one.
+    public int find(final String name) {
+        final var slot = this.slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    // Returns the slot of name, adding it if this environment has not seen it yet.
+    public int slot(final String name) {
+        if (this.sharedLayout) {
+            final var existing = this.slots.get(name);
+            if (existing != null) {
+                return existing;
+            }
+            this.slots = new HashMap<>(this.slots);
+            this.sharedLayout = false;
+        }
+
+        final int slot = this.slots.size();
+        final var existing = this.slots.putIfAbsent(name, slot);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (slot == this.values.length) {
+            final var grown = new Obj[Math.max(INITIAL_SIZE, slot * 2)];
+            System.arraycopy(this.values, 0, grown, 0, slot);
+            this.values = grown;
+        }
+
+        return slot;
+    }
+
+    public Obj getSlot(final int slot) {
+        return this.values[slot];
+    }
+
+    public void setSlot(final int slot, final Obj val) {
+        this.values[slot] = val;
+    }
+
+    // The names that hold a value, as the name-keyed store before slots had it.
+    private Map<String, Obj> store() {
+        final Map<String, Obj> store = new HashMap<>();
+        this.slots.forEach((name, slot) -> {
+            if (this.values[slot] != null) {
+                store.put(name, this.values[slot]);
+            }
+        });
+
+        return store;
     }
 
     @Override
@@ -41,21 +123,19 @@ public class Environment {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
-
         final Environment that = (Environment) o;
-        return Objects.equals(store, that.store);
+        return Objects.equals(store(), that.store());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(store);
+        return Objects.hash(store());
     }
 
     @Override
     public String toString() {
         return "Environment{" +
-                "store=" + store +
+                "store=" + store() +
                 '}';
     }
-
 }
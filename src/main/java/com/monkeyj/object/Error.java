@@ -2,25 +2,42 @@ package com.monkeyj.object;
 
 import java.util.Objects;
 
-public class Error implements Obj {
+// Keeps the format and its arguments and only renders the message when someone reads it, since most errors are
+// just passed up and checked for. The arguments are expected to be immutable, type names and the like.
+public final class Error implements Obj {
 
-    private final String message;
+    private static final Object[] NO_ARGS = {};
+
+    private final String format;
+    private final Object[] args;
+    private String message;
 
     public Error(final String message) {
+        this.format = message;
+        this.args = NO_ARGS;
         this.message = message;
     }
 
+    public Error(final String format, final Object... args) {
+        this.format = format;
+        this.args = args;
+    }
+
     @Override
-    public String type() {
-        return ObjConstants.ERROR_OBJ;
+    public ObjType objType() {
+        return ObjType.ERROR;
     }
 
     @Override
     public String inspect() {
-        return "ERROR: " + this.message;
+        return "ERROR: " + this.getMessage();
     }
 
     public String getMessage() {
+        if (this.message == null) {
+            this.message = String.format(this.format, this.args);
+        }
+
         return message;
     }
 
@@ -33,18 +50,18 @@ public class Error implements Obj {
             return false;
         }
         final Error error = (Error) o;
-        return Objects.equals(message, error.message);
+        return Objects.equals(getMessage(), error.getMessage());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(message);
+        return Objects.hash(getMessage());
     }
 
     @Override
     public String toString() {
         return "Error{" +
-                "message='" + message + '\'' +
+                "message='" + getMessage() + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,24 @@
 package com.monkeyj.object;
 
 import com.monkeyj.ast.BlockStatement;
+import com.monkeyj.ast.FunctionLiteral;
 import com.monkeyj.ast.Identifier;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-public class Function implements Obj {
+public non-sealed class Function implements Obj {
 
     private List<Identifier> parameters;
     private BlockStatement body;
     private Environment env;
+    private FunctionLiteral literal;
+
+    public Function(final FunctionLiteral literal, final Environment env) {
+        this(literal.getParameters(), literal.getBody(), env);
+        this.literal = literal;
+    }
 
     public Function(
             final List<Identifier> parameters
@@ -46,6 +53,10 @@ public class Function implements Obj {
         this.env = env;
     }
 
+    public FunctionLiteral getLiteral() {
+        return literal;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -74,8 +85,8 @@ public class Function implements Obj {
     }
 
     @Override
-    public String type() {
-        return ObjConstants.FUNCTION_OBJ;
+    public ObjType objType() {
+        return ObjType.FUNCTION;
     }
 
     @Override
@@ -5,12 +5,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
-public class Hash implements Obj {
+public final class Hash implements Obj {
 
-    private Map<HashKey, HashPair> pairs;
+    private PersistentHashMap pairs;
 
     public Hash(final Map<HashKey, HashPair> pairs) {
-        this.pairs = pairs;
+        this.pairs = PersistentHashMap.of(pairs);
     }
 
     public Map<HashKey, HashPair> getPairs() {
@@ -18,7 +18,29 @@ public class Hash implements Obj {
     }
 
     public void setPairs(final Map<HashKey, HashPair> pairs) {
-        this.pairs = pairs;
+        this.pairs = PersistentHashMap.of(pairs);
+    }
+
+    // The pair stored under key, or null. Allocates nothing, unlike getPairs().get(key.hashKey()).
+    public HashPair get(final Hashable key) {
+        return this.pairs.lookup(key);
+    }
+
+    // A new hash with value under key; this one is left as it is and shares all but one path of its pairs.
+    public Hash put(final Hashable key, final Obj value) {
+        return new Hash(this.pairs.put(new HashPair((Obj) key, value)));
+    }
+
+    // A new hash without key, or this one if it does not have it.
+    public Hash remove(final Hashable key) {
+        final var pairs = this.pairs.remove(key);
+        return pairs == this.pairs ? this : new Hash(pairs);
+    }
+
+    // A new hash with the pairs of both, where other's value wins for a key they share. Neither hash is changed.
+    public Hash merge(final Hash other) {
+        final var pairs = this.pairs.merge(other.pairs);
+        return pairs == this.pairs ? this : pairs == other.pairs ? other : new Hash(pairs);
     }
 
     @Override
@@ -46,8 +68,8 @@ public class Hash implements Obj {
     }
 
     @Override
-    public String type() {
-        return ObjConstants.HASH_OBJ;
+    public ObjType objType() {
+        return ObjType.HASH;
     }
 
     @Override
@@ -55,7 +77,7 @@ public class Hash implements Obj {
         final StringBuilder out = new StringBuilder();
 
         final List<String> pairsStrs = new ArrayList<>();
-        this.pairs.forEach((key, pair) -> pairsStrs.add(String.format("%s: %s", pair.getKey().inspect(), pair.getValue().inspect())));
+        this.pairs.values().forEach(pair -> pairsStrs.add(String.format("%s: %s", pair.getKey().inspect(), pair.getValue().inspect())));
 
         out.append("{");
         out.append(String.join(", ", pairsStrs));
@@ -3,21 +3,29 @@ package com.monkeyj.object;
 import java.util.Objects;
 
 public class HashKey {
-    private String type;
+    private ObjType type;
     private Integer value;
+    // The string itself for string keys, since different strings can share a hash code.
+    private String text;
 
     public HashKey() { }
 
-    public HashKey(final String type, final Integer value) {
+    public HashKey(final ObjType type, final Integer value) {
         this.type = type;
         this.value = value;
     }
 
-    public String getType() {
+    public HashKey(final ObjType type, final Integer value, final String text) {
+        this.type = type;
+        this.value = value;
+        this.text = text;
+    }
+
+    public ObjType getType() {
         return type;
     }
 
-    public void setType(final String type) {
+    public void setType(final ObjType type) {
         this.type = type;
     }
 
@@ -29,11 +37,29 @@ public class HashKey {
         this.value = value;
     }
 
+    public String getText() {
+        return text;
+    }
+
+    public void setText(final String text) {
+        this.text = text;
+    }
+
+    // Whether key is the object this HashKey was made from, or one equal to it.
+    boolean matches(final Obj key) {
+        if (key.objType() != this.type || ((Hashable) key).keyHash() != this.value) {
+            return false;
+        }
+
+        return this.text == null || this.text.equals(((Str) key).getValue());
+    }
+
     @Override
     public String toString() {
         return "HashKey{" +
                 "type='" + type + '\'' +
                 ", value=" + value +
+                ", text=" + text +
                 '}';
     }
 
@@ -46,11 +72,12 @@ public class HashKey {
             return false;
         }
         final HashKey hashKey = (HashKey) o;
-        return Objects.equals(type, hashKey.type) && Objects.equals(value, hashKey.value);
+        return type == hashKey.type && Objects.equals(value, hashKey.value) && Objects.equals(text, hashKey.text);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, value);
+        // The tag rather than the enum, whose identity hash changes from run to run and would reorder hashes.
+        return Objects.hash(type.getTag(), value);
     }
 }
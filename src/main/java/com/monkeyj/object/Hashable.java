@@ -1,5 +1,11 @@
 package com.monkeyj.object;
 
-public interface Hashable {
+public sealed interface Hashable permits Bool, Int, Str {
     HashKey hashKey();
+
+    // The same number hashKey() carries, without allocating one.
+    int keyHash();
+
+    // Whether other is the same key: same type and same value.
+    boolean keyEquals(Hashable other);
 }
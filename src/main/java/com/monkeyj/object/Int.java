@@ -1,29 +1,37 @@
 package com.monkeyj.object;
 
-import java.util.Objects;
+public final class Int implements Obj, Hashable {
 
-public class Int implements Obj, Hashable {
+    // Like Integer.valueOf: every value in [monkeyj.int.cache.low, monkeyj.int.cache.high] is a single shared instance,
+    // so the small numbers most arithmetic produces do not allocate. A high below low turns the cache off.
+    private static final int CACHE_LOW = Integer.getInteger("monkeyj.int.cache.low", -128);
+    private static final int CACHE_HIGH = Integer.getInteger("monkeyj.int.cache.high", 1024);
+    private static final Int[] CACHE = new Int[Math.max(0, CACHE_HIGH - CACHE_LOW + 1)];
 
-    private Integer value;
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new Int(CACHE_LOW + i);
+        }
+    }
+
+    private final int value;
+
+    public static Int of(final int value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return CACHE[value - CACHE_LOW];
+        }
 
-    public static Int of(final Integer value) {
         return new Int(value);
     }
 
-    public Int(final Integer value) {
+    private Int(final int value) {
         this.value = value;
     }
 
-    public Int() {}
-
-    public Integer getValue() {
+    public int getValue() {
         return value;
     }
 
-    public void setValue(final Integer value) {
-        this.value = value;
-    }
-
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -33,7 +41,7 @@ public class Int implements Obj, Hashable {
             return false;
         }
         final Int that = (Int) o;
-        return Objects.equals(value, that.value);
+        return value == that.value;
     }
 
     @Override
@@ -45,21 +53,31 @@ public class Int implements Obj, Hashable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(value);
+        return Integer.hashCode(value);
     }
 
     @Override
-    public String type() {
-        return ObjConstants.INTEGER_OBJ;
+    public ObjType objType() {
+        return ObjType.INTEGER;
     }
 
     @Override
     public String inspect() {
-        return this.value + "";
+        return Integer.toString(this.value);
     }
 
     @Override
     public HashKey hashKey() {
-        return new HashKey(this.type(), this.value);
+        return new HashKey(this.objType(), this.value);
+    }
+
+    @Override
+    public int keyHash() {
+        return this.value;
+    }
+
+    @Override
+    public boolean keyEquals(final Hashable other) {
+        return other instanceof Int integer && integer.value == this.value;
     }
 }
@@ -1,10 +1,10 @@
 package com.monkeyj.object;
 
-public class Null implements Obj {
+public final class Null implements Obj {
 
     @Override
-    public String type() {
-        return ObjConstants.NULL_OBJ;
+    public ObjType objType() {
+        return ObjType.NULL;
     }
 
     @Override
@@ -1,6 +1,14 @@
 package com.monkeyj.object;
 
-public interface Obj {
-    String type();
+// The set of runtime values is closed, so a switch over objType() that names every ObjType is exhaustive. Function
+// stays open for the closures the tree interpreter creates.
+public sealed interface Obj
+        permits Array, Bool, Builtin, Closure, CompiledFunction, Error, Function, Hash, Int, Null, ReturnValue, Str {
+    ObjType objType();
+
+    default String type() {
+        return this.objType().getTag();
+    }
+
     String inspect();
 }
@@ -14,5 +14,6 @@ public final class ObjConstants {
     public static final String BUILTIN_OBJ = "BUILTIN";
     public static final String ARRAY_OBJ = "ARRAY";
     public static final String HASH_OBJ = "HASH";
+    public static final String COMPILED_FUNCTION_OBJ = "COMPILED_FUNCTION";
 
 }
\ No newline at end of file
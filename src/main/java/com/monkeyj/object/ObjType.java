@@ -0,0 +1,27 @@
+package com.monkeyj.object;
+
+// Type tag of every Obj. Runtime checks compare these by identity or switch on them; the strings from ObjConstants are
+// only what type() reports, for error messages.
+public enum ObjType {
+    INTEGER(ObjConstants.INTEGER_OBJ),
+    BOOLEAN(ObjConstants.BOOLEAN_OBJ),
+    NULL(ObjConstants.NULL_OBJ),
+    RETURN_VALUE(ObjConstants.RETURN_VALUE_OBJ),
+    ERROR(ObjConstants.ERROR_OBJ),
+    FUNCTION(ObjConstants.FUNCTION_OBJ),
+    STRING(ObjConstants.STRING_OBJ),
+    BUILTIN(ObjConstants.BUILTIN_OBJ),
+    ARRAY(ObjConstants.ARRAY_OBJ),
+    HASH(ObjConstants.HASH_OBJ),
+    COMPILED_FUNCTION(ObjConstants.COMPILED_FUNCTION_OBJ);
+
+    private final String tag;
+
+    ObjType(final String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,426 @@
+package com.monkeyj.object;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The pairs of a Hash: an immutable hash array mapped trie, after Bagwell and Clojure's PersistentHashMap. Every level
+// uses 5 bits of the keys' keyHash(). A node only stores the children it has, located through a 32-bit bitmap, and a
+// child is either a leaf, holding a pair, or the node below. Keys whose hashes are entirely equal share a collision
+// node and are told apart with keyEquals(). put and remove copy a single path, O(log32 n), and share everything else
+// with the map they came from; a lookup walks the same path without allocating.
+//
+// Pairs come out in insertion order, like the LinkedHashMap the parser collects a literal's pairs in: every leaf
+// carries the order its key was first put in, and iterating sorts the leaves by it, O(n log n). Replacing a key keeps
+// its place, and a merge puts the keys only the other map has after this map's ones. It still is a
+// Map<HashKey, HashPair> for the code that reads getPairs(), and a HashKey is only built when the entries are iterated.
+public final class PersistentHashMap extends AbstractMap<HashKey, HashPair> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    public static final PersistentHashMap EMPTY = new PersistentHashMap(0, BitmapNode.EMPTY, 0, 0);
+
+    private final int size;
+    private final Node root;
+    // Every leaf's order is at least first and below next, the order of the next key put in.
+    private final long first;
+    private final long next;
+
+    private PersistentHashMap(final int size, final Node root, final long first, final long next) {
+        this.size = size;
+        this.root = root;
+        this.first = first;
+        this.next = next;
+    }
+
+    public static PersistentHashMap of(final Map<HashKey, HashPair> pairs) {
+        if (pairs instanceof final PersistentHashMap map) {
+            return map;
+        }
+
+        var map = EMPTY;
+        for (final var pair : pairs.values()) {
+            map = map.put(pair);
+        }
+        return map;
+    }
+
+    // A map with pair under its key, in place of the pair that had an equal key, if any.
+    public PersistentHashMap put(final HashPair pair) {
+        final var key = (Hashable) pair.getKey();
+        final int hash = key.keyHash();
+        final var existing = this.root.find(hash, key, 0);
+        if (existing != null) {
+            return new PersistentHashMap(this.size, this.root.put(hash, key, new Leaf(pair, existing.order), 0)
+                    , this.first, this.next);
+        }
+
+        return new PersistentHashMap(this.size + 1, this.root.put(hash, key, new Leaf(pair, this.next), 0)
+                , this.first, this.next + 1);
+    }
+
+    // A map without key, or this one when there is nothing to remove.
+    public PersistentHashMap remove(final Hashable key) {
+        final int hash = key.keyHash();
+        if (this.root.find(hash, key, 0) == null) {
+            return this;
+        }
+
+        final var root = this.root.remove(hash, key, 0);
+        return new PersistentHashMap(this.size - 1, root == null ? BitmapNode.EMPTY : root, this.first, this.next);
+    }
+
+    // A map with the pairs of both, where other's pair wins for a key they share. Neither map is changed. The smaller
+    // map's pairs go into the larger one, O(m log32 n); a shared key keeps its place in this map either way.
+    public PersistentHashMap merge(final PersistentHashMap other) {
+        if (other.size == 0) {
+            return this;
+        }
+        if (this.size == 0) {
+            return other;
+        }
+
+        if (other.size <= this.size) {
+            var merged = this;
+            for (final var leaf : other.leaves()) {
+                merged = merged.put(leaf.pair);
+            }
+            return merged;
+        }
+
+        // This map's leaves are numbered down to just before other's first, so they still come first.
+        final long shift = other.first - this.next;
+        var root = other.root;
+        int size = other.size;
+        for (final var leaf : this.leaves()) {
+            final var key = (Hashable) leaf.pair.getKey();
+            final int hash = key.keyHash();
+            final var shared = root.find(hash, key, 0);
+            if (shared == null) {
+                size++;
+            }
+            root = root.put(hash, key, new Leaf(shared == null ? leaf.pair : shared.pair, leaf.order + shift), 0);
+        }
+        return new PersistentHashMap(size, root, this.first + shift, other.next);
+    }
+
+    // The pair stored under key, or null.
+    public HashPair lookup(final Hashable key) {
+        final var leaf = this.root.find(key.keyHash(), key, 0);
+        return leaf == null ? null : leaf.pair;
+    }
+
+    @Override
+    public HashPair get(final Object key) {
+        if (key instanceof final Hashable hashable) {
+            return this.lookup(hashable);
+        }
+        if (!(key instanceof final HashKey hashKey) || hashKey.getValue() == null) {
+            return null;
+        }
+
+        final var leaf = this.root.find(hashKey.getValue(), hashKey, 0);
+        return leaf == null ? null : leaf.pair;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public Collection<HashPair> values() {
+        final var leaves = this.leaves();
+        final List<HashPair> pairs = new ArrayList<>(leaves.size());
+        leaves.forEach(leaf -> pairs.add(leaf.pair));
+        return Collections.unmodifiableList(pairs);
+    }
+
+    @Override
+    public Set<Map.Entry<HashKey, HashPair>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<HashKey, HashPair>> iterator() {
+                final var pairs = PersistentHashMap.this.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return pairs.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<HashKey, HashPair> next() {
+                        final var pair = pairs.next();
+                        return Map.entry(((Hashable) pair.getKey()).hashKey(), pair);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return PersistentHashMap.this.size;
+            }
+        };
+    }
+
+    // In insertion order.
+    private List<Leaf> leaves() {
+        final List<Leaf> leaves = new ArrayList<>(this.size);
+        this.root.collect(leaves);
+        leaves.sort(Comparator.comparingLong(leaf -> leaf.order));
+        return leaves;
+    }
+
+    // key is a Hashable, or a HashKey from getPairs().get.
+    private static boolean same(final Object key, final Leaf leaf) {
+        return key instanceof final Hashable hashable
+                ? hashable.keyEquals((Hashable) leaf.pair.getKey())
+                : ((HashKey) key).matches(leaf.pair.getKey());
+    }
+
+    private static int bit(final int hash, final int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    // A node holding existing and leaf, which ended up in the same slot at the level above shift.
+    private static Node split(final Leaf existing, final int hash, final Hashable key, final Leaf leaf, final int shift) {
+        final var existingKey = (Hashable) existing.pair.getKey();
+        final int existingHash = existingKey.keyHash();
+        if (existingHash == hash) {
+            return new CollisionNode(hash, new Leaf[] {existing, leaf});
+        }
+
+        return BitmapNode.EMPTY.put(existingHash, existingKey, existing, shift).put(hash, key, leaf, shift);
+    }
+
+    // A pair and the order its key was first put in.
+    private static final class Leaf {
+        private final HashPair pair;
+        private final long order;
+
+        Leaf(final HashPair pair, final long order) {
+            this.pair = pair;
+            this.order = order;
+        }
+    }
+
+    private abstract static class Node {
+        abstract Leaf find(int hash, Object key, int shift);
+
+        abstract Node put(int hash, Hashable key, Leaf leaf, int shift);
+
+        // null once nothing is left.
+        abstract Node remove(int hash, Hashable key, int shift);
+
+        // The leaf of a node that holds nothing else, which its parent then stores in its place; null otherwise.
+        abstract Leaf single();
+
+        abstract void collect(List<Leaf> leaves);
+    }
+
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+        // A Leaf or a Node for every bit set in bitmap, lowest bit first.
+        private final Object[] children;
+
+        BitmapNode(final int bitmap, final Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        @Override
+        Leaf find(final int hash, final Object key, final int shift) {
+            final int bit = bit(hash, shift);
+            if ((this.bitmap & bit) == 0) {
+                return null;
+            }
+
+            final var child = this.children[this.index(bit)];
+            if (child instanceof final Node node) {
+                return node.find(hash, key, shift + BITS);
+            }
+
+            final var leaf = (Leaf) child;
+            return same(key, leaf) ? leaf : null;
+        }
+
+        @Override
+        Node put(final int hash, final Hashable key, final Leaf leaf, final int shift) {
+            final int bit = bit(hash, shift);
+            final int index = this.index(bit);
+
+            if ((this.bitmap & bit) == 0) {
+                final Object[] children = new Object[this.children.length + 1];
+                System.arraycopy(this.children, 0, children, 0, index);
+                children[index] = leaf;
+                System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+                return new BitmapNode(this.bitmap | bit, children);
+            }
+
+            final var child = this.children[index];
+            if (child instanceof final Node node) {
+                return this.with(index, node.put(hash, key, leaf, shift + BITS));
+            }
+
+            final var existing = (Leaf) child;
+            if (key.keyEquals((Hashable) existing.pair.getKey())) {
+                return this.with(index, leaf);
+            }
+
+            return this.with(index, split(existing, hash, key, leaf, shift + BITS));
+        }
+
+        @Override
+        Node remove(final int hash, final Hashable key, final int shift) {
+            final int bit = bit(hash, shift);
+            if ((this.bitmap & bit) == 0) {
+                return this;
+            }
+
+            final int index = this.index(bit);
+            final var child = this.children[index];
+            if (child instanceof final Node node) {
+                final var removed = node.remove(hash, key, shift + BITS);
+                if (removed == node) {
+                    return this;
+                }
+                if (removed != null) {
+                    final var single = removed.single();
+                    return this.with(index, single != null ? single : removed);
+                }
+            } else if (!key.keyEquals((Hashable) ((Leaf) child).pair.getKey())) {
+                return this;
+            }
+
+            if (this.bitmap == bit) {
+                return null;
+            }
+
+            final Object[] children = new Object[this.children.length - 1];
+            System.arraycopy(this.children, 0, children, 0, index);
+            System.arraycopy(this.children, index + 1, children, index, children.length - index);
+            return new BitmapNode(this.bitmap & ~bit, children);
+        }
+
+        @Override
+        Leaf single() {
+            return this.children.length == 1 && this.children[0] instanceof final Leaf leaf ? leaf : null;
+        }
+
+        @Override
+        void collect(final List<Leaf> leaves) {
+            for (final var child : this.children) {
+                if (child instanceof final Node node) {
+                    node.collect(leaves);
+                } else {
+                    leaves.add((Leaf) child);
+                }
+            }
+        }
+
+        private int index(final int bit) {
+            return Integer.bitCount(this.bitmap & (bit - 1));
+        }
+
+        private BitmapNode with(final int index, final Object child) {
+            final Object[] children = this.children.clone();
+            children[index] = child;
+            return new BitmapNode(this.bitmap, children);
+        }
+    }
+
+    // Leaves whose keys have exactly the same hash.
+    private static final class CollisionNode extends Node {
+        private final int hash;
+        private final Leaf[] leaves;
+
+        CollisionNode(final int hash, final Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        @Override
+        Leaf find(final int hash, final Object key, final int shift) {
+            if (hash != this.hash) {
+                return null;
+            }
+
+            for (final var leaf : this.leaves) {
+                if (same(key, leaf)) {
+                    return leaf;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        Node put(final int hash, final Hashable key, final Leaf leaf, final int shift) {
+            if (hash != this.hash) {
+                return new BitmapNode(bit(this.hash, shift), new Object[] {this}).put(hash, key, leaf, shift);
+            }
+
+            final int index = this.indexOf(key);
+            final Leaf[] leaves;
+            if (index >= 0) {
+                leaves = this.leaves.clone();
+                leaves[index] = leaf;
+            } else {
+                leaves = Arrays.copyOf(this.leaves, this.leaves.length + 1);
+                leaves[this.leaves.length] = leaf;
+            }
+            return new CollisionNode(hash, leaves);
+        }
+
+        @Override
+        Node remove(final int hash, final Hashable key, final int shift) {
+            final int index = hash == this.hash ? this.indexOf(key) : -1;
+            if (index < 0) {
+                return this;
+            }
+            if (this.leaves.length == 1) {
+                return null;
+            }
+
+            final Leaf[] leaves = new Leaf[this.leaves.length - 1];
+            System.arraycopy(this.leaves, 0, leaves, 0, index);
+            System.arraycopy(this.leaves, index + 1, leaves, index, leaves.length - index);
+            return new CollisionNode(hash, leaves);
+        }
+
+        @Override
+        Leaf single() {
+            return this.leaves.length == 1 ? this.leaves[0] : null;
+        }
+
+        @Override
+        void collect(final List<Leaf> leaves) {
+            Collections.addAll(leaves, this.leaves);
+        }
+
+        private int indexOf(final Hashable key) {
+            for (int i = 0; i < this.leaves.length; i++) {
+                if (key.keyEquals((Hashable) this.leaves[i].pair.getKey())) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.monkeyj.object;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// An immutable list with structural sharing, after Clojure's PersistentVector: a trie of 32-wide nodes plus a tail
+// of up to 32 elements. push copies the tail, or one path of the trie once the tail is full, and get walks at most
+// log32(n) levels. rest only moves the start offset; once more than half of the trie is unreachable it is rebuilt,
+// so the dropped elements can be collected. No version is ever changed, so they all share their nodes.
+//
+// While every element is an Int the leaves and the tail are int[] instead of Object[], so a large array of numbers
+// holds no Int objects at all; get hands out Int.of(value). The first element that is not an Int turns the vector
+// into a generic one, which copies it once.
+public final class PersistentVector extends AbstractList<Obj> implements RandomAccess {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+
+    public static final PersistentVector EMPTY = new PersistentVector(0, 0, BITS, EMPTY_NODE, new int[0], true);
+
+    // Indexes below are absolute, counted from the first element ever pushed; start is the first one still visible.
+    private final int start;
+    private final int count;
+    private final int shift;
+    private final Object[] root;
+    // A leaf: int[] when ints is set, Object[] otherwise. So is every leaf in the trie.
+    private final Object tail;
+    private final boolean ints;
+
+    private PersistentVector(
+            final int start
+            , final int count
+            , final int shift
+            , final Object[] root
+            , final Object tail
+            , final boolean ints) {
+        this.start = start;
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+        this.ints = ints;
+    }
+
+    public static PersistentVector of(final List<Obj> elements) {
+        if (elements instanceof final PersistentVector vector) {
+            return vector;
+        }
+
+        final Object[] values = elements.toArray();
+        if (values.length == 0) {
+            return EMPTY;
+        }
+
+        boolean ints = true;
+        for (final var value : values) {
+            if (!(value instanceof Int)) {
+                ints = false;
+                break;
+            }
+        }
+
+        return build(values, ints);
+    }
+
+    // Whether the elements are stored as primitive ints.
+    public boolean isIntegerOnly() {
+        return ints;
+    }
+
+    @Override
+    public Obj get(final int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException(String.format("index %d out of bounds for length %d", index, this.size()));
+        }
+
+        final int i = this.start + index;
+        final var leaf = this.leafFor(i);
+        return this.ints ? Int.of(((int[]) leaf)[i & MASK]) : (Obj) ((Object[]) leaf)[i & MASK];
+    }
+
+    @Override
+    public int size() {
+        return this.count - this.start;
+    }
+
+    public PersistentVector push(final Obj value) {
+        if (this.ints && !(value instanceof Int)) {
+            return this.toGeneric().push(value);
+        }
+
+        final int inTail = this.count - this.tailOffset();
+        if (inTail < WIDTH) {
+            final Object newTail;
+            if (this.ints) {
+                final int[] values = Arrays.copyOf((int[]) this.tail, inTail + 1);
+                values[inTail] = ((Int) value).getValue();
+                newTail = values;
+            } else {
+                final Object[] values = Arrays.copyOf((Object[]) this.tail, inTail + 1);
+                values[inTail] = value;
+                newTail = values;
+            }
+            return new PersistentVector(this.start, this.count + 1, this.shift, this.root, newTail, this.ints);
+        }
+
+        return this.pushLeaf(this.ints ? new int[] {((Int) value).getValue()} : new Object[] {value}, 1);
+    }
+
+    // Everything but the first element, or EMPTY when there is at most one.
+    public PersistentVector rest() {
+        if (this.size() <= 1) {
+            return EMPTY;
+        }
+
+        final var rest = new PersistentVector(this.start + 1, this.count, this.shift, this.root, this.tail, this.ints);
+        if (rest.start > WIDTH && rest.start > rest.size()) {
+            return of(new ArrayList<>(rest));
+        }
+
+        return rest;
+    }
+
+    private PersistentVector toGeneric() {
+        return build(this.toArray(), false);
+    }
+
+    // Every tail but the last one is full, so whole leaves go into the trie at once.
+    private static PersistentVector build(final Object[] values, final boolean ints) {
+        var vector = new PersistentVector(
+                0, Math.min(WIDTH, values.length), BITS, EMPTY_NODE, leaf(values, 0, WIDTH, ints), ints);
+        for (int from = WIDTH; from < values.length; from += WIDTH) {
+            vector = vector.pushLeaf(leaf(values, from, from + WIDTH, ints), Math.min(WIDTH, values.length - from));
+        }
+
+        return vector;
+    }
+
+    private static Object leaf(final Object[] values, final int from, final int to, final boolean ints) {
+        final int end = Math.min(to, values.length);
+        if (!ints) {
+            return Arrays.copyOfRange(values, from, end);
+        }
+
+        final int[] leaf = new int[end - from];
+        for (int i = from; i < end; i++) {
+            leaf[i - from] = ((Int) values[i]).getValue();
+        }
+        return leaf;
+    }
+
+    private int tailOffset() {
+        return this.count < WIDTH ? 0 : ((this.count - 1) >>> BITS) << BITS;
+    }
+
+    private Object leafFor(final int i) {
+        if (i >= this.tailOffset()) {
+            return this.tail;
+        }
+
+        Object node = this.root;
+        for (int level = this.shift; level > 0; level -= BITS) {
+            node = ((Object[]) node)[(i >>> level) & MASK];
+        }
+
+        return node;
+    }
+
+    // Moves the current tail, which must be full, into the trie and starts a new one holding length elements.
+    private PersistentVector pushLeaf(final Object newTail, final int length) {
+        final Object[] newRoot;
+        int newShift = this.shift;
+
+        if ((this.count >>> BITS) > (1 << this.shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = this.root;
+            newRoot[1] = newPath(this.shift, this.tail);
+            newShift += BITS;
+        } else {
+            newRoot = this.pushTail(this.shift, this.root, this.tail);
+        }
+
+        return new PersistentVector(this.start, this.count + length, newShift, newRoot, newTail, this.ints);
+    }
+
+    private Object[] pushTail(final int level, final Object[] parent, final Object leaf) {
+        final int index = ((this.count - 1) >>> level) & MASK;
+        final Object[] node = parent.clone();
+
+        if (level == BITS) {
+            node[index] = leaf;
+        } else {
+            final var child = (Object[]) parent[index];
+            node[index] = child != null ? this.pushTail(level - BITS, child, leaf) : newPath(level - BITS, leaf);
+        }
+
+        return node;
+    }
+
+    private static Object newPath(final int level, final Object leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+
+        final Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+}
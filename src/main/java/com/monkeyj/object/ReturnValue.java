@@ -1,6 +1,6 @@
 package com.monkeyj.object;
 
-public class ReturnValue implements Obj {
+public final class ReturnValue implements Obj {
 
     private Obj value;
 
@@ -17,8 +17,8 @@ public class ReturnValue implements Obj {
     }
 
     @Override
-    public String type() {
-        return ObjConstants.RETURN_VALUE_OBJ;
+    public ObjType objType() {
+        return ObjType.RETURN_VALUE;
     }
 
     @Override
@@ -1,8 +1,23 @@
 package com.monkeyj.object;
 
-public class Str implements Obj, Hashable {
+import java.util.ArrayDeque;
 
+// A string is either flat, a Java String, or a rope: the concatenation of two other strings, which is only copied
+// into one String the first time something reads its characters (indexing it as a hash key, comparing, printing).
+// + is then O(1), and a string built up piece by piece in a loop is copied once instead of once per piece.
+public final class Str implements Obj, Hashable {
+
+    // Concatenations shorter than this are copied straight away; below it a rope node costs more than the copy.
+    private static final int FLAT_LIMIT = 32;
+
+    // null while this is a rope.
     private String value;
+    private Str left;
+    private Str right;
+    private int length;
+    // keyHash(), computed on first use; large string-keyed hashes ask for it on every lookup and every collision.
+    private int hash;
+    private boolean hashed;
 
     public static final Str of(final String value) {
         return new Str(value);
@@ -10,29 +25,109 @@ public class Str implements Obj, Hashable {
 
     public Str(final String value) {
         this.value = value;
+        this.length = value.length();
+    }
+
+    private Str(final Str left, final Str right, final int length) {
+        this.left = left;
+        this.right = right;
+        this.length = length;
+    }
+
+    // left followed by right, without copying either unless both are short.
+    public static Str concat(final Str left, final Str right) {
+        final int length = left.length + right.length;
+        if (length < 0) {
+            // Too long for a String either way; let the JVM report it as it would for +.
+            return new Str(left.getValue() + right.getValue());
+        }
+
+        if (right.value != null && right.length < FLAT_LIMIT) {
+            if (left.value != null && length < FLAT_LIMIT) {
+                return new Str(left.value + right.value);
+            }
+            // Appending a short piece to a rope that ends in one: merge the two, so the leaves stay a useful size.
+            if (left.value == null && left.right.value != null && left.right.length + right.length < FLAT_LIMIT) {
+                return new Str(left.left, new Str(left.right.value + right.value), length);
+            }
+        }
+
+        return new Str(left, right, length);
     }
 
     public String getValue() {
+        if (this.value == null) {
+            this.flatten();
+        }
         return value;
     }
 
     public void setValue(final String value) {
         this.value = value;
+        this.left = null;
+        this.right = null;
+        this.length = value.length();
+        this.hashed = false;
+    }
+
+    // The number of characters, without flattening a rope.
+    public int length() {
+        return this.length;
     }
 
     @Override
-    public String type() {
-        return ObjConstants.STRING_OBJ;
+    public ObjType objType() {
+        return ObjType.STRING;
     }
 
     @Override
     public String inspect() {
-        return this.value;
+        return this.getValue();
     }
 
     @Override
     public HashKey hashKey() {
-        // TODO: fix
-        return new HashKey(this.type(), this.value.hashCode());
+        return new HashKey(this.objType(), this.keyHash(), this.getValue());
+    }
+
+    @Override
+    public int keyHash() {
+        if (!this.hashed) {
+            this.hash = this.getValue().hashCode();
+            this.hashed = true;
+        }
+
+        return this.hash;
+    }
+
+    // Strings with the same hash code are only the same key if their characters are.
+    @Override
+    public boolean keyEquals(final Hashable other) {
+        return other instanceof Str str
+                && (str == this || str.keyHash() == this.keyHash() && str.getValue().equals(this.getValue()));
+    }
+
+    // Copies the leaves from left to right with an explicit stack: a string built by a loop nests as deep as the loop
+    // ran. Only this node keeps the result; the ropes it was made of are left as they are.
+    private void flatten() {
+        final char[] chars = new char[this.length];
+        final var pending = new ArrayDeque<Str>();
+        pending.push(this);
+
+        int at = 0;
+        while (!pending.isEmpty()) {
+            final var str = pending.pop();
+            if (str.value != null) {
+                str.value.getChars(0, str.length, chars, at);
+                at += str.length;
+            } else {
+                pending.push(str.right);
+                pending.push(str.left);
+            }
+        }
+
+        this.value = new String(chars);
+        this.left = null;
+        this.right = null;
     }
 }
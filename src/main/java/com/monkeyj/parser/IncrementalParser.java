@@ -0,0 +1,459 @@
+package com.monkeyj.parser;
+
+import com.monkeyj.ast.Program;
+import com.monkeyj.ast.Statement;
+import com.monkeyj.lexer.Lexer;
+import com.monkeyj.token.TokenKind;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.RandomAccess;
+
+// Keeps a source buffer parsed while it is edited. The text is split into segments, one per top-level statement the
+// Parser reads (statements that fail to parse included), each remembering where it starts and how far the lexer had
+// looked by the time it was parsed. After an edit, the segments read entirely before it are kept, and parsing starts
+// again from the first one that is not. As soon as it reaches the start of a segment that lies after the edit, the
+// rest of the text is the same as before, so that segment and all the ones after it are kept too.
+//
+// Neither structure is copied whole on an edit. The text is a gap buffer, so an edit moves only the characters
+// between it and the previous one, none at all while typing in one place. The segments sit in a balanced tree that
+// stores each start relative to the one before it, so finding, replacing and moving them along costs O(log n) in
+// the number of statements. What is left is lexing and parsing the statements the edit touched, plus one on either
+// side.
+//
+// statements() reads the tree directly. program() and errors() have to walk every segment, so they are only built
+// when asked for, once per edit. The reused statements are the same objects as in the previous program.
+public class IncrementalParser {
+
+    private final Text text;
+    private final Segments segments = new Segments();
+    private final List<Statement> statements = new Statements();
+    private Program program;            // built when asked for, until the next edit.
+    private List<String> errors;
+
+    public IncrementalParser(final String text) {
+        this.text = new Text(text);
+        final var parsed = new ArrayList<Parsed>();
+        parse(this.text, 0, parsed, this.segments, 0, 0);
+        this.segments.replace(0, 0, parsed, 0);
+    }
+
+    public String text() {
+        return this.text.toString();
+    }
+
+    // The statements of the current text, without building a Program: a view that follows later edits, where
+    // get(i) is O(log n).
+    public List<Statement> statements() {
+        return this.statements;
+    }
+
+    public Program program() {
+        if (this.program == null) {
+            this.program = new Program(this.segments.statements());
+        }
+        return this.program;
+    }
+
+    public List<String> errors() {
+        if (this.errors == null) {
+            this.errors = Collections.unmodifiableList(this.segments.errors());
+        }
+        return this.errors;
+    }
+
+    // Replaces the removed characters at offset with inserted.
+    public void edit(final int offset, final int removed, final String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > this.text.length()) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "edit [%d, %d) out of bounds for length %d", offset, offset + removed, this.text.length()));
+        }
+
+        this.text.replace(offset, removed, inserted);
+        final int delta = inserted.length() - removed;
+
+        // The last segment is always parsed again, so the parse ends where a full one would.
+        final var segments = this.segments;
+        final int kept = Math.min(segments.firstScannedPast(offset), Math.max(segments.count() - 1, 0));
+        final int start = kept == 0 ? 0 : segments.start(kept);
+
+        final var parsed = new ArrayList<Parsed>();
+        final int next = segments.firstStartingFrom(offset + removed);
+        final int resumed = parse(this.text, start, parsed, segments, next, delta);
+        segments.replace(kept, resumed, parsed, delta);
+
+        this.program = null;
+        this.errors = null;
+    }
+
+    // Parses text from offset start into parsed, until it reaches a statement starting where one of old's segments
+    // from index next on now starts. Returns the index of that segment, or old.count() if it got to the end of the
+    // text.
+    private static int parse(final CharSequence text, final int start, final List<Parsed> parsed,
+                             final Segments old, int next, final int delta) {
+        final var parser = new Parser(new Lexer(text, start));
+        final int count = old.count();
+        int ahead = next < count ? old.start(next) + delta : Integer.MAX_VALUE;
+
+        while (!parser.curTokenIs(TokenKind.EOF)) {
+            final int at = parser.curStart();
+            while (ahead < at) {
+                next++;
+                ahead = next < count ? old.start(next) + delta : Integer.MAX_VALUE;
+            }
+            if (ahead == at) {
+                return next;
+            }
+
+            final int errors = parser.errors().size();
+            final var stmt = parser.parseStatement();
+            final var messages = parser.errors().subList(errors, parser.errors().size()).toArray(String[]::new);
+            parsed.add(new Parsed(at, parser.scanned(), stmt, messages));
+
+            parser.nextToken();
+        }
+
+        return count;
+    }
+
+    private record Parsed(int start, int scanned, Statement statement, String[] errors) {}
+
+    private final class Statements extends AbstractList<Statement> implements RandomAccess {
+
+        @Override
+        public Statement get(final int index) {
+            Objects.checkIndex(index, this.size());
+            return IncrementalParser.this.segments.statement(index);
+        }
+
+        @Override
+        public int size() {
+            return IncrementalParser.this.segments.statementCount();
+        }
+    }
+
+    // A treap of segments in text order. Each node holds its segment's start as the distance from the start of the
+    // segment before it, and its scan as the distance from its own start, so the segments after an edit move along
+    // with it without being touched, except for the first one, whose distance to the parsed ones is set again.
+    private static final class Segments {
+
+        private static final String[] NO_ERRORS = {};
+
+        private final Random priorities = new Random(0x5E6);
+        private Node root;
+
+        int count() {
+            return size(this.root);
+        }
+
+        int statementCount() {
+            return statements(this.root);
+        }
+
+        int start(int index) {
+            var node = this.root;
+            int base = 0;
+            while (true) {
+                final int left = size(node.left);
+                if (index < left) {
+                    node = node.left;
+                } else {
+                    base += width(node.left) + node.gap;
+                    if (index == left) {
+                        return base;
+                    }
+                    index -= left + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        // The index-th segment that holds a statement.
+        Statement statement(int index) {
+            var node = this.root;
+            while (true) {
+                final int left = statements(node.left);
+                if (index < left) {
+                    node = node.left;
+                    continue;
+                }
+                index -= left;
+                if (node.statement != null) {
+                    if (index == 0) {
+                        return node.statement;
+                    }
+                    index--;
+                }
+                node = node.right;
+            }
+        }
+
+        // The first segment the lexer read offset for, or count().
+        int firstScannedPast(final int offset) {
+            var node = this.root;
+            int base = 0;
+            int index = 0;
+            while (node != null) {
+                if (base + furthest(node.left) > offset) {
+                    node = node.left;
+                    continue;
+                }
+                final int start = base + width(node.left) + node.gap;
+                if (start + node.reach > offset) {
+                    return index + size(node.left);
+                }
+                index += size(node.left) + 1;
+                base = start;
+                node = node.right;
+            }
+            return index;
+        }
+
+        // The first segment starting at offset or after it, or count().
+        int firstStartingFrom(final int offset) {
+            var node = this.root;
+            int base = 0;
+            int index = 0;
+            int found = this.count();
+            while (node != null) {
+                final int start = base + width(node.left) + node.gap;
+                if (start >= offset) {
+                    found = index + size(node.left);
+                    node = node.left;
+                } else {
+                    index += size(node.left) + 1;
+                    base = start;
+                    node = node.right;
+                }
+            }
+            return found;
+        }
+
+        // Puts parsed in place of the segments [from, to), the ones after them having moved delta characters along.
+        void replace(final int from, final int to, final List<Parsed> parsed, final int delta) {
+            int previous = from == 0 ? 0 : this.start(from - 1);
+            final int resumed = to < this.count() ? this.start(to) + delta : 0;
+
+            final var parts = new Node[2];
+            split(this.root, to, parts);
+            var tail = parts[1];
+            split(parts[0], from, parts);
+            final var head = parts[0];
+
+            Node middle = null;
+            for (final Parsed segment : parsed) {
+                final var errors = segment.errors().length == 0 ? NO_ERRORS : segment.errors();
+                middle = merge(middle, new Node(segment.start() - previous, segment.scanned() - segment.start()
+                        , segment.statement(), errors, this.priorities.nextInt()).update());
+                previous = segment.start();
+            }
+            if (tail != null) {
+                tail = withFirstGap(tail, resumed - previous);
+            }
+
+            this.root = merge(merge(head, middle), tail);
+        }
+
+        List<Statement> statements() {
+            final List<Statement> stmts = new ArrayList<>(this.statementCount());
+            collect(this.root, stmts, null);
+            return stmts;
+        }
+
+        List<String> errors() {
+            final List<String> all = new ArrayList<>();
+            collect(this.root, null, all);
+            return all;
+        }
+
+        private static void collect(final Node node, final List<Statement> stmts, final List<String> errors) {
+            if (node == null) {
+                return;
+            }
+            collect(node.left, stmts, errors);
+            if (stmts != null && node.statement != null) {
+                stmts.add(node.statement);
+            }
+            if (errors != null) {
+                Collections.addAll(errors, node.errors);
+            }
+            collect(node.right, stmts, errors);
+        }
+
+        // Splits the first count segments of node into parts[0], and the rest into parts[1].
+        private static void split(final Node node, final int count, final Node[] parts) {
+            if (node == null) {
+                parts[0] = null;
+                parts[1] = null;
+            } else if (size(node.left) < count) {
+                split(node.right, count - size(node.left) - 1, parts);
+                node.right = parts[0];
+                parts[0] = node.update();
+            } else {
+                split(node.left, count, parts);
+                node.left = parts[1];
+                parts[1] = node.update();
+            }
+        }
+
+        private static Node merge(final Node left, final Node right) {
+            if (left == null) {
+                return right;
+            } else if (right == null) {
+                return left;
+            } else if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                return left.update();
+            } else {
+                right.left = merge(left, right.left);
+                return right.update();
+            }
+        }
+
+        private static Node withFirstGap(final Node node, final int gap) {
+            if (node.left == null) {
+                node.gap = gap;
+            } else {
+                node.left = withFirstGap(node.left, gap);
+            }
+            return node.update();
+        }
+
+        private static int size(final Node node) {
+            return node == null ? 0 : node.size;
+        }
+
+        private static int statements(final Node node) {
+            return node == null ? 0 : node.statements;
+        }
+
+        private static int width(final Node node) {
+            return node == null ? 0 : node.width;
+        }
+
+        private static int furthest(final Node node) {
+            return node == null ? Integer.MIN_VALUE : node.furthest;
+        }
+
+        private static final class Node {
+
+            private int gap;                        // from the start of the segment before, or of the text.
+            private final int reach;                // how far the lexer had looked past the start; see Lexer.scanned().
+            private final Statement statement;      // null where the statement did not parse.
+            private final String[] errors;
+            private final int priority;
+
+            private Node left;
+            private Node right;
+            private int size;                       // the segments below this node, itself included,
+            private int statements;                 // those that hold a statement,
+            private int width;                      // the sum of their gaps,
+            private int furthest;                   // and the furthest any was scanned to, from the same base.
+
+            Node(final int gap, final int reach, final Statement statement, final String[] errors,
+                 final int priority) {
+                this.gap = gap;
+                this.reach = reach;
+                this.statement = statement;
+                this.errors = errors;
+                this.priority = priority;
+            }
+
+            Node update() {
+                final int start = width(this.left) + this.gap;
+                this.size = size(this.left) + 1 + size(this.right);
+                this.statements = statements(this.left) + (this.statement == null ? 0 : 1) + statements(this.right);
+                this.width = start + width(this.right);
+                this.furthest = Math.max(furthest(this.left), start + Math.max(this.reach, furthest(this.right)));
+                return this;
+            }
+        }
+    }
+
+    // The text as a gap buffer: the characters before and after the gap sit at the two ends of one array, and an
+    // edit moves the gap to where it happens before writing into it.
+    private static final class Text implements CharSequence {
+
+        private char[] chars;
+        private int gapStart;
+        private int gapEnd;
+
+        Text(final String text) {
+            this.chars = new char[text.length() + 64];
+            text.getChars(0, text.length(), this.chars, 0);
+            this.gapStart = text.length();
+            this.gapEnd = this.chars.length;
+        }
+
+        @Override
+        public int length() {
+            return this.chars.length - (this.gapEnd - this.gapStart);
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return index < this.gapStart ? this.chars[index] : this.chars[index + this.gapEnd - this.gapStart];
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            Objects.checkFromToIndex(start, end, this.length());
+            final var sub = new char[end - start];
+            this.getChars(start, end, sub);
+            return new String(sub);
+        }
+
+        @Override
+        public String toString() {
+            final var all = new char[this.length()];
+            this.getChars(0, all.length, all);
+            return new String(all);
+        }
+
+        void replace(final int offset, final int removed, final String inserted) {
+            this.moveGap(offset);
+            this.gapEnd += removed;
+
+            final int length = inserted.length();
+            if (this.gapEnd - this.gapStart < length) {
+                final var grown = new char[Math.max(this.chars.length * 2, this.length() + length + 64)];
+                final int after = this.chars.length - this.gapEnd;
+                System.arraycopy(this.chars, 0, grown, 0, this.gapStart);
+                System.arraycopy(this.chars, this.gapEnd, grown, grown.length - after, after);
+                this.chars = grown;
+                this.gapEnd = grown.length - after;
+            }
+
+            inserted.getChars(0, length, this.chars, this.gapStart);
+            this.gapStart += length;
+        }
+
+        private void moveGap(final int offset) {
+            if (offset < this.gapStart) {
+                final int moved = this.gapStart - offset;
+                System.arraycopy(this.chars, offset, this.chars, this.gapEnd - moved, moved);
+                this.gapStart -= moved;
+                this.gapEnd -= moved;
+            } else if (offset > this.gapStart) {
+                final int moved = offset - this.gapStart;
+                System.arraycopy(this.chars, this.gapEnd, this.chars, this.gapStart, moved);
+                this.gapStart += moved;
+                this.gapEnd += moved;
+            }
+        }
+
+        private void getChars(final int start, final int end, final char[] into) {
+            final int before = Math.max(Math.min(end, this.gapStart) - start, 0);
+            System.arraycopy(this.chars, start, into, 0, before);
+            final int from = Math.max(start, this.gapStart);
+            if (from < end) {
+                System.arraycopy(this.chars, from + this.gapEnd - this.gapStart, into, before, end - from);
+            }
+        }
+    }
+
+}
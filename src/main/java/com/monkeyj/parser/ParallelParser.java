@@ -0,0 +1,168 @@
+package com.monkeyj.parser;
+
+import com.monkeyj.ast.Program;
+import com.monkeyj.ast.Statement;
+import com.monkeyj.lexer.Lexer;
+import com.monkeyj.lexer.MappedSource;
+import com.monkeyj.token.TokenKind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Parses a large program in chunks on a fork-join pool, into the same Program and errors as Parser.parseProgram.
+//
+// A pre-scan lexes the input once, without building tokens, and picks chunk boundaries at top-level statements: a let
+// that follows a semicolon outside any parentheses, brackets or braces. Each chunk is parsed from its boundary until
+// the next statement would start at or past the following one. That is only a guess at where the sequential parser
+// starts its statements, so the chunks are checked in order while they are stitched together: a chunk is used if the
+// one before it stopped exactly on its boundary. Otherwise (a statement ran across the boundary, an unclosed brace)
+// the statements from where the previous chunk stopped up to the next boundary are parsed again on the calling
+// thread, and the chunks after that are checked the same way.
+//
+// Chunks read the input from several threads at once. A String allows that; a MappedSource gives each chunk a
+// duplicate with a cursor of its own; any other CharSequence is copied into a String first, since nothing says it can
+// be read concurrently.
+public class ParallelParser {
+
+    // Inputs shorter than two chunks are parsed sequentially.
+    private static final int MIN_CHUNK = 1 << 14;
+
+    private final CharSequence input;
+    private final ForkJoinPool pool;
+    private final int minChunk;
+    private final List<String> errors;
+
+    public ParallelParser(final CharSequence input) {
+        this(input, ForkJoinPool.commonPool());
+    }
+
+    public ParallelParser(final CharSequence input, final ForkJoinPool pool) {
+        this(input, pool, MIN_CHUNK);
+    }
+
+    ParallelParser(final CharSequence input, final ForkJoinPool pool, final int minChunk) {
+        this.input = input instanceof String || input instanceof MappedSource ? input : input.toString();
+        this.pool = pool;
+        this.minChunk = minChunk;
+        this.errors = new ArrayList<>();
+    }
+
+    public Program parseProgram() {
+        final var program = new Program();
+        this.errors.clear();
+
+        final int[] boundaries = this.boundaries();
+        final List<ForkJoinTask<Chunk>> tasks = new ArrayList<>(boundaries.length);
+        for (int i = 0; i < boundaries.length; i++) {
+            final int start = boundaries[i];
+            final int until = until(boundaries, i + 1);
+            final var view = this.view();
+            tasks.add(this.pool.submit(() -> parse(view, start, until)));
+        }
+
+        int at = 0;
+        int next = 0;
+        while (true) {
+            final Chunk chunk;
+            if (next < tasks.size() && boundaries[next] == at) {
+                chunk = tasks.get(next).join();
+                next++;
+            } else {
+                chunk = parse(this.input, at, until(boundaries, next));
+            }
+
+            chunk.statements().forEach(program::addStatement);
+            this.errors.addAll(chunk.errors());
+            if (chunk.ended()) {
+                break;
+            }
+
+            // The chunks this one ran past started in the middle of a statement.
+            at = chunk.stop();
+            while (next < tasks.size() && boundaries[next] < at) {
+                tasks.get(next).cancel(false);
+                next++;
+            }
+        }
+
+        for (int i = next; i < tasks.size(); i++) {
+            tasks.get(i).cancel(false);
+        }
+
+        return program;
+    }
+
+    public List<String> errors() {
+        return Collections.unmodifiableList(this.errors);
+    }
+
+    // Where the chunks start: 0, then the first top-level let at least a chunk's length after the previous boundary.
+    // None when the input is parsed sequentially.
+    private int[] boundaries() {
+        final int parallelism = this.pool.getParallelism();
+        if (parallelism < 2 || this.input.length() < 2 * this.minChunk) {
+            return new int[0];
+        }
+
+        // A few chunks per worker, so one that is slow to parse does not hold the others up.
+        final int length = Math.max(this.minChunk, this.input.length() / (4 * parallelism));
+        final var boundaries = new ArrayList<Integer>();
+        boundaries.add(0);
+
+        final var lexer = new Lexer(this.input);
+        int depth = 0;
+        boolean afterSemicolon = false;
+        for (int kind = lexer.next(); kind != TokenKind.EOF; kind = lexer.next()) {
+            switch (kind) {
+                case TokenKind.LPAREN, TokenKind.LBRACKET, TokenKind.LBRACE -> depth++;
+                case TokenKind.RPAREN, TokenKind.RBRACKET, TokenKind.RBRACE -> depth = Math.max(depth - 1, 0);
+                case TokenKind.LET -> {
+                    final int start = lexer.tokenStart();
+                    if (afterSemicolon && start - boundaries.get(boundaries.size() - 1) >= length) {
+                        boundaries.add(start);
+                    }
+                }
+                default -> {}
+            }
+            afterSemicolon = kind == TokenKind.SEMICOLON && depth == 0;
+        }
+
+        if (boundaries.size() == 1) {
+            return new int[0];
+        }
+
+        return boundaries.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // The input for one chunk to read on its own thread.
+    private CharSequence view() {
+        return this.input instanceof MappedSource mapped ? mapped.duplicate() : this.input;
+    }
+
+    private static int until(final int[] boundaries, final int index) {
+        return index < boundaries.length ? boundaries[index] : Integer.MAX_VALUE;
+    }
+
+    // Parses statements from start, which must be where the sequential parser starts one, until the next one would
+    // start at or past until.
+    private static Chunk parse(final CharSequence input, final int start, final int until) {
+        final var parser = new Parser(new Lexer(input, start));
+        final List<Statement> statements = new ArrayList<>();
+
+        while (!parser.curTokenIs(TokenKind.EOF) && parser.curStart() < until) {
+            final var stmt = parser.parseStatement();
+            if (stmt != null) {
+                statements.add(stmt);
+            }
+            parser.nextToken();
+        }
+
+        return new Chunk(statements, parser.errors(), parser.curStart(), parser.curTokenIs(TokenKind.EOF));
+    }
+
+    private record Chunk(List<Statement> statements, List<String> errors, int stop, boolean ended) {}
+
+}
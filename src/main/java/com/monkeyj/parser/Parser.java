@@ -3,15 +3,14 @@ package com.monkeyj.parser;
 import com.monkeyj.ast.*;
 import com.monkeyj.lexer.Lexer;
 import com.monkeyj.token.Token;
-import com.monkeyj.token.TokenConstants;
+import com.monkeyj.token.TokenKind;
 
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Collections;
-import java.util.function.Function;
-import java.util.function.Supplier;
 
 public class Parser {
 
@@ -19,53 +18,67 @@ public class Parser {
     private final List<String> errors;
     private Token curToken;
     private Token peekToken;
-    private final Map<String, Supplier<Expression>> prefixParseFns;
-    private final Map<String, Function<Expression, Expression>> infixParseFns;
-
-    private static final Map<String, Integer> PRECEDENCES = Map.of(
-        TokenConstants.EQ, Precedence.EQUALS,
-        TokenConstants.NOT_EQ, Precedence.EQUALS,
-        TokenConstants.LT, Precedence.LESS_GREATER,
-        TokenConstants.GT, Precedence.LESS_GREATER,
-        TokenConstants.PLUS, Precedence.SUM,
-        TokenConstants.MINUS, Precedence.SUM,
-        TokenConstants.SLASH, Precedence.PRODUCT,
-        TokenConstants.ASTERISK, Precedence.PRODUCT,
-        TokenConstants.LPAREN, Precedence.CALL,
-        TokenConstants.LBRACKET, Precedence.INDEX
-    );
+    private int curKind;                // the TokenKind of curToken and peekToken.
+    private int peekKind;
+    private int curStart;               // where curToken and peekToken begin in the input.
+    private int peekStart;
+
+    private interface PrefixParseFn {
+        Expression parse(Parser parser);
+    }
+
+    private interface InfixParseFn {
+        Expression parse(Parser parser, Expression left);
+    }
+
+    // Indexed by TokenKind and shared by every parser, so a new one has nothing to set up.
+    private static final PrefixParseFn[] PREFIX_PARSE_FNS = new PrefixParseFn[TokenKind.COUNT];
+    private static final InfixParseFn[] INFIX_PARSE_FNS = new InfixParseFn[TokenKind.COUNT];
+    private static final int[] PRECEDENCES = new int[TokenKind.COUNT];
+
+    static {
+        registerPrefix(TokenKind.IDENT, Parser::parseIdentifier);
+        registerPrefix(TokenKind.INT, Parser::parseIntegerLiteral);
+        registerPrefix(TokenKind.BANG, Parser::parsePrefixExpression);
+        registerPrefix(TokenKind.MINUS, Parser::parsePrefixExpression);
+        registerPrefix(TokenKind.TRUE, Parser::parseBoolean);
+        registerPrefix(TokenKind.FALSE, Parser::parseBoolean);
+        registerPrefix(TokenKind.LPAREN, Parser::parseGroupExpression);
+        registerPrefix(TokenKind.IF, Parser::parseIfExpression);
+        registerPrefix(TokenKind.FUNCTION, Parser::parseFunctionLiteral);
+        registerPrefix(TokenKind.STRING, Parser::parseStringLiteral);
+        registerPrefix(TokenKind.LBRACKET, Parser::parseArrayLiteral);
+
+        registerPrefix(TokenKind.LBRACE, Parser::parseHashLiteral);
+
+        registerInfix(TokenKind.LPAREN, Parser::parseCallExpression);
+        registerInfix(TokenKind.PLUS, Parser::parseInfixExpression);
+        registerInfix(TokenKind.MINUS, Parser::parseInfixExpression);
+        registerInfix(TokenKind.SLASH, Parser::parseInfixExpression);
+        registerInfix(TokenKind.ASTERISK, Parser::parseInfixExpression);
+        registerInfix(TokenKind.EQ, Parser::parseInfixExpression);
+        registerInfix(TokenKind.NOT_EQ, Parser::parseInfixExpression);
+        registerInfix(TokenKind.LT, Parser::parseInfixExpression);
+        registerInfix(TokenKind.GT, Parser::parseInfixExpression);
+
+        registerInfix(TokenKind.LBRACKET, Parser::parseIndexExpression);
+
+        Arrays.fill(PRECEDENCES, Precedence.LOWEST);
+        PRECEDENCES[TokenKind.EQ] = Precedence.EQUALS;
+        PRECEDENCES[TokenKind.NOT_EQ] = Precedence.EQUALS;
+        PRECEDENCES[TokenKind.LT] = Precedence.LESS_GREATER;
+        PRECEDENCES[TokenKind.GT] = Precedence.LESS_GREATER;
+        PRECEDENCES[TokenKind.PLUS] = Precedence.SUM;
+        PRECEDENCES[TokenKind.MINUS] = Precedence.SUM;
+        PRECEDENCES[TokenKind.SLASH] = Precedence.PRODUCT;
+        PRECEDENCES[TokenKind.ASTERISK] = Precedence.PRODUCT;
+        PRECEDENCES[TokenKind.LPAREN] = Precedence.CALL;
+        PRECEDENCES[TokenKind.LBRACKET] = Precedence.INDEX;
+    }
 
     public Parser(final Lexer lexer) {
         this.lexer = lexer;
         this.errors = new ArrayList<>();
-        this.prefixParseFns = new HashMap<>();
-        this.infixParseFns = new HashMap<>();
-
-        this.registerPrefix(TokenConstants.IDENT, this::parseIdentifier);
-        this.registerPrefix(TokenConstants.INT, this::parseIntegerLiteral);
-        this.registerPrefix(TokenConstants.BANG, this::parsePrefixExpression);
-        this.registerPrefix(TokenConstants.MINUS, this::parsePrefixExpression);
-        this.registerPrefix(TokenConstants.TRUE, this::parseBoolean);
-        this.registerPrefix(TokenConstants.FALSE, this::parseBoolean);
-        this.registerPrefix(TokenConstants.LPAREN, this::parseGroupExpression);
-        this.registerPrefix(TokenConstants.IF, this::parseIfExpression);
-        this.registerPrefix(TokenConstants.FUNCTION, this::parseFunctionLiteral);
-        this.registerPrefix(TokenConstants.STRING, this::parseStringLiteral);
-        this.registerPrefix(TokenConstants.LBRACKET, this::parseArrayLiteral);
-
-        this.registerPrefix(TokenConstants.LBRACE, this::parseHashLiteral);
-
-        this.registerInfix(TokenConstants.LPAREN, this::parseCallExpression);
-        this.registerInfix(TokenConstants.PLUS, this::parseInfixExpression);
-        this.registerInfix(TokenConstants.MINUS, this::parseInfixExpression);
-        this.registerInfix(TokenConstants.SLASH, this::parseInfixExpression);
-        this.registerInfix(TokenConstants.ASTERISK, this::parseInfixExpression);
-        this.registerInfix(TokenConstants.EQ, this::parseInfixExpression);
-        this.registerInfix(TokenConstants.NOT_EQ, this::parseInfixExpression);
-        this.registerInfix(TokenConstants.LT, this::parseInfixExpression);
-        this.registerInfix(TokenConstants.GT, this::parseInfixExpression);
-
-        this.registerInfix(TokenConstants.LBRACKET, this::parseIndexExpression);
 
         this.nextToken();
         this.nextToken();
@@ -73,16 +86,17 @@ public class Parser {
 
     private Expression parseHashLiteral() {
         final var hash = new HashLiteral();
-        final Map<Expression, Expression> pairs = new HashMap<>();
+        // In source order, so every engine builds the hash the same way.
+        final Map<Expression, Expression> pairs = new LinkedHashMap<>();
 
         hash.setToken(this.curToken);
         hash.setPairs(pairs);
 
-        while (!this.peekTokenIs(TokenConstants.RBRACE)) {
+        while (!this.peekTokenIs(TokenKind.RBRACE)) {
             this.nextToken();
             final var key = this.parseExpression(Precedence.LOWEST);
 
-            if (!this.expectPeek(TokenConstants.COLON)) {
+            if (!this.expectPeek(TokenKind.COLON)) {
                 return null;
             }
 
@@ -91,12 +105,12 @@ public class Parser {
 
             pairs.put(key, value);
 
-            if (!this.peekTokenIs(TokenConstants.RBRACE) && !this.expectPeek(TokenConstants.COMMA)) {
+            if (!this.peekTokenIs(TokenKind.RBRACE) && !this.expectPeek(TokenKind.COMMA)) {
                 return null;
             }
         }
 
-        if (!this.expectPeek(TokenConstants.RBRACE)) {
+        if (!this.expectPeek(TokenKind.RBRACE)) {
             System.out.println("hmmmm bye 3");
             return null;
         }
@@ -113,7 +127,7 @@ public class Parser {
 
         exp.setIndex(this.parseExpression(Precedence.LOWEST));
 
-        if (!this.expectPeek(TokenConstants.RBRACKET)) {
+        if (!this.expectPeek(TokenKind.RBRACKET)) {
             return null;
         }
 
@@ -123,12 +137,12 @@ public class Parser {
     private Expression parseArrayLiteral() {
         final var array = new ArrayLiteral();
         array.setToken(this.curToken);
-        array.setElements(this.parseExpressionList(TokenConstants.RBRACKET));
+        array.setElements(this.parseExpressionList(TokenKind.RBRACKET));
 
         return array;
     }
 
-    private List<Expression> parseExpressionList(final String end) {
+    private List<Expression> parseExpressionList(final int end) {
         final List<Expression> exprs = new ArrayList<>();
 
         if (this.peekTokenIs(end)) {
@@ -139,7 +153,7 @@ public class Parser {
         this.nextToken();
         exprs.add(this.parseExpression(Precedence.LOWEST));
 
-        while (this.peekTokenIs(TokenConstants.COMMA)) {
+        while (this.peekTokenIs(TokenKind.COMMA)) {
             this.nextToken();
             this.nextToken();
             exprs.add(this.parseExpression(Precedence.LOWEST));
@@ -166,7 +180,7 @@ public class Parser {
         exp.setFunction(function);
         
         // final List<Expression> arguments = this.parseCallArguments();
-        final List<Expression> arguments = this.parseExpressionList(TokenConstants.RPAREN);
+        final List<Expression> arguments = this.parseExpressionList(TokenKind.RPAREN);
         exp.setArguments(arguments);
         
         return exp;
@@ -175,7 +189,7 @@ public class Parser {
     /*private List<Expression> parseCallArguments() {
         final List<Expression> args = new ArrayList<>();
 
-        if (this.peekTokenIs(TokenConstants.RPAREN)) {
+        if (this.peekTokenIs(TokenKind.RPAREN)) {
             this.nextToken();
             return args;
         }
@@ -183,13 +197,13 @@ public class Parser {
         this.nextToken();
         args.add(this.parseExpression(Precedence.LOWEST));
 
-        while (this.peekTokenIs(TokenConstants.COMMA)) {
+        while (this.peekTokenIs(TokenKind.COMMA)) {
             this.nextToken();
             this.nextToken();
             args.add(this.parseExpression(Precedence.LOWEST));
         }
 
-        if (!this.expectPeek(TokenConstants.RPAREN)) {
+        if (!this.expectPeek(TokenKind.RPAREN)) {
             return null;
         }
 
@@ -198,14 +212,15 @@ public class Parser {
 
     private Expression parseFunctionLiteral() {
         final var lit = new FunctionLiteral();
+        lit.setToken(this.curToken);
 
-        if (!this.expectPeek(TokenConstants.LPAREN)) {
+        if (!this.expectPeek(TokenKind.LPAREN)) {
             return null;
         }
 
         lit.setParameters(this.parseFunctionParameters());
 
-        if (!this.expectPeek(TokenConstants.LBRACE)) {
+        if (!this.expectPeek(TokenKind.LBRACE)) {
             return null;
         }
 
@@ -217,7 +232,7 @@ public class Parser {
     private List<Identifier> parseFunctionParameters() {
         final List<Identifier> identifiers = new ArrayList<>();
 
-        if (this.peekTokenIs(TokenConstants.RPAREN)) {
+        if (this.peekTokenIs(TokenKind.RPAREN)) {
             this.nextToken();
             return identifiers;
         }
@@ -230,7 +245,7 @@ public class Parser {
 
         identifiers.add(identifier);
 
-        while (this.peekTokenIs(TokenConstants.COMMA)) {
+        while (this.peekTokenIs(TokenKind.COMMA)) {
             this.nextToken();
             this.nextToken();
 
@@ -241,7 +256,7 @@ public class Parser {
             identifiers.add(ident);
         }
 
-        if (!this.expectPeek(TokenConstants.RPAREN)) {
+        if (!this.expectPeek(TokenKind.RPAREN)) {
             return null;
         }
 
@@ -252,27 +267,27 @@ public class Parser {
         final var expr = new IfExpression();
         expr.setToken(this.curToken);
 
-        if (!this.expectPeek(TokenConstants.LPAREN)) {
+        if (!this.expectPeek(TokenKind.LPAREN)) {
             return null;
         }
 
         this.nextToken();
         expr.setCondition(this.parseExpression(Precedence.LOWEST));
 
-        if (!this.expectPeek(TokenConstants.RPAREN)) {
+        if (!this.expectPeek(TokenKind.RPAREN)) {
             return null;
         }
 
-        if (!this.expectPeek(TokenConstants.LBRACE)) {
+        if (!this.expectPeek(TokenKind.LBRACE)) {
             return null;
         }
 
         expr.setConsequence(this.parseBlockStatement());
 
-        if (this.peekTokenIs(TokenConstants.ELSE)) {
+        if (this.peekTokenIs(TokenKind.ELSE)) {
             this.nextToken();
 
-            if (!this.expectPeek(TokenConstants.LBRACE)) {
+            if (!this.expectPeek(TokenKind.LBRACE)) {
                 return null;
             }
 
@@ -286,7 +301,7 @@ public class Parser {
         final var block = new BlockStatement();
         this.nextToken();
 
-        while (!this.curTokenIs(TokenConstants.RBRACE) && !this.curTokenIs(TokenConstants.EOF)) {
+        while (!this.curTokenIs(TokenKind.RBRACE) && !this.curTokenIs(TokenKind.EOF)) {
             final var stmt = this.parseStatement();
             if (stmt != null) {
                 block.addStatement(stmt);
@@ -302,7 +317,7 @@ public class Parser {
 
         final var expr = this.parseExpression(Precedence.LOWEST);
 
-        if (!this.expectPeek(TokenConstants.RPAREN)) {
+        if (!this.expectPeek(TokenKind.RPAREN)) {
             return null;
         }
 
@@ -312,7 +327,7 @@ public class Parser {
     private Expression parseBoolean() {
         final var bool = new Bool();
         bool.setToken(this.curToken);
-        bool.setValue(this.curTokenIs(TokenConstants.TRUE));
+        bool.setValue(this.curTokenIs(TokenKind.TRUE));
         return bool;
     }
 
@@ -330,23 +345,36 @@ public class Parser {
         return expression;
     }
 
-    private void registerPrefix(final String tokenType, final Supplier<Expression> fn) {
-        this.prefixParseFns.put(tokenType, fn);
+    private static void registerPrefix(final int kind, final PrefixParseFn fn) {
+        PREFIX_PARSE_FNS[kind] = fn;
     }
 
-    private void registerInfix(final String tokenType, final Function<Expression, Expression> fn) {
-        this.infixParseFns.put(tokenType, fn);
+    private static void registerInfix(final int kind, final InfixParseFn fn) {
+        INFIX_PARSE_FNS[kind] = fn;
     }
 
     public void nextToken() {
         this.curToken = this.peekToken;
+        this.curKind = this.peekKind;
+        this.curStart = this.peekStart;
         this.peekToken = this.lexer.nextToken();
+        this.peekKind = this.lexer.kind();
+        this.peekStart = this.lexer.tokenStart();
+    }
+
+    int curStart() {
+        return this.curStart;
+    }
+
+    // Everything parsed so far depends only on the input before this offset; see Lexer.scanned().
+    int scanned() {
+        return this.lexer.scanned();
     }
 
     public Program parseProgram() {
         final var program = new Program();
 
-        while (!this.curToken.type().equals(TokenConstants.EOF)) {
+        while (this.curKind != TokenKind.EOF) {
             final var stmt = this.parseStatement();
             if (stmt != null) {
                 program.addStatement(stmt);
@@ -357,10 +385,10 @@ public class Parser {
         return program;
     }
 
-    private Statement parseStatement() {
-        return switch (this.curToken.type()) {
-            case TokenConstants.LET -> this.parseLetStatement();
-            case TokenConstants.RETURN -> this.parseReturnStatement();
+    Statement parseStatement() {
+        return switch (this.curKind) {
+            case TokenKind.LET -> this.parseLetStatement();
+            case TokenKind.RETURN -> this.parseReturnStatement();
             default -> this.parseExpressionStatement();
         };
     }
@@ -372,7 +400,7 @@ public class Parser {
         final Expression expression = this.parseExpression(Precedence.LOWEST);
         stmt.setExpression(expression);
 
-        if (this.peekTokenIs(TokenConstants.SEMICOLON)) {
+        if (this.peekTokenIs(TokenKind.SEMICOLON)) {
             this.nextToken();
         }
 
@@ -413,25 +441,24 @@ public class Parser {
     }
 
     private Expression parseExpression(final int precedence) {
-        final var currentToken = this.curToken;
-        final var prefix = this.prefixParseFns.get(currentToken.type());
+        final var prefix = PREFIX_PARSE_FNS[this.curKind];
         if (prefix == null) {
-            this.noPrefixParseFnError(currentToken.type());
+            this.noPrefixParseFnError(this.curToken.type());
             return null;
         }
 
-        Expression leftExpression = prefix.get();
+        Expression leftExpression = prefix.parse(this);
 
         // the loop:
-        while (!this.peekTokenIs(TokenConstants.SEMICOLON) && precedence < this.peekPrecedence()) {
-            final var infix = this.infixParseFns.get(this.peekToken.type());
+        while (!this.peekTokenIs(TokenKind.SEMICOLON) && precedence < this.peekPrecedence()) {
+            final var infix = INFIX_PARSE_FNS[this.peekKind];
             if (infix == null) {
                 return leftExpression;
             }
 
             this.nextToken();
 
-            leftExpression = infix.apply(leftExpression);
+            leftExpression = infix.parse(this, leftExpression);
         }
 
         return leftExpression;
@@ -445,12 +472,12 @@ public class Parser {
 
         returnStmt.setReturnValue(this.parseExpression(Precedence.LOWEST));
 
-        if (this.peekTokenIs(TokenConstants.SEMICOLON)) {
+        if (this.peekTokenIs(TokenKind.SEMICOLON)) {
             this.nextToken();
         }
 
         // TODO: We're skipping the expression until we encounter a semicolon.
-//        while (!this.curTokenIs(TokenConstants.SEMICOLON)) {
+//        while (!this.curTokenIs(TokenKind.SEMICOLON)) {
 //            this.nextToken();
 //        }
 
@@ -461,19 +488,19 @@ public class Parser {
         final var letStmt = new LetStatement();
         letStmt.setToken(this.curToken);
 
-        if (!this.expectPeek(TokenConstants.IDENT)) {
+        if (!this.expectPeek(TokenKind.IDENT)) {
             return null;
         }
 
         final Identifier identifier = new Identifier(this.curToken, this.curToken.literal());
         letStmt.setName(identifier);
 
-        if (!this.expectPeek(TokenConstants.ASSIGN)) {
+        if (!this.expectPeek(TokenKind.ASSIGN)) {
             return null;
         }
 
         // TODO: We're skipping the expression until we encounter a semicolon.
-//        while (!this.curTokenIs(TokenConstants.SEMICOLON)) {
+//        while (!this.curTokenIs(TokenKind.SEMICOLON)) {
 //            this.nextToken();
 //        }
 
@@ -481,37 +508,37 @@ public class Parser {
 
         letStmt.setValue(this.parseExpression(Precedence.LOWEST));
 
-        if (this.peekTokenIs(TokenConstants.SEMICOLON)) {
+        if (this.peekTokenIs(TokenKind.SEMICOLON)) {
             this.nextToken();
         }
 
         return letStmt;
     }
 
-    private boolean expectPeek(final String tokenType) {
-        if (this.peekTokenIs(tokenType)) {
+    private boolean expectPeek(final int kind) {
+        if (this.peekTokenIs(kind)) {
             this.nextToken();
             return true;
         }
-        this.peekError(tokenType);
+        this.peekError(kind);
         return false;
     }
 
-    private boolean peekTokenIs(final String tokenType) {
-        return this.peekToken.type().equals(tokenType);
+    private boolean peekTokenIs(final int kind) {
+        return this.peekKind == kind;
     }
 
-    private boolean curTokenIs(final String tokenType) {
-        return this.curToken.type().equals(tokenType);
+    boolean curTokenIs(final int kind) {
+        return this.curKind == kind;
     }
 
     public List<String> errors() {
         return Collections.unmodifiableList(this.errors);
     }
 
-    private void peekError(final String tokenType) {
+    private void peekError(final int kind) {
         final var msg = String.format("expected next token to be %s, got %s instead",
-                tokenType, this.peekToken.type());
+                TokenKind.type(kind), this.peekToken.type());
         this.errors.add(msg);
     }
 
@@ -521,11 +548,11 @@ public class Parser {
     }
 
     private int peekPrecedence() {
-        return PRECEDENCES.getOrDefault(this.peekToken.type(), Precedence.LOWEST);
+        return PRECEDENCES[this.peekKind];
     }
 
     private int curPrecedence() {
-        return PRECEDENCES.getOrDefault(this.curToken.type(), Precedence.LOWEST);
+        return PRECEDENCES[this.curKind];
     }
 
 }
@@ -1,12 +1,28 @@
 package com.monkeyj.repl;
 
+import com.monkeyj.ast.Program;
+import com.monkeyj.compiler.Compiler;
+import com.monkeyj.compiler.SymbolTable;
 import com.monkeyj.evaluator.Evaluator;
+import com.monkeyj.evaluator.StackEvaluator;
+import com.monkeyj.interpreter.Interpreter;
+import com.monkeyj.jit.Jit;
+import com.monkeyj.jit.Promotion;
 import com.monkeyj.lexer.Lexer;
+import com.monkeyj.lexer.MappedSource;
 import com.monkeyj.object.Environment;
+import com.monkeyj.object.Obj;
 import com.monkeyj.parser.Parser;
+import com.monkeyj.vm.VM;
 
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Function;
 
 public class RunEvaluatePrintLoop {
 
@@ -23,16 +39,144 @@ public class RunEvaluatePrintLoop {
                         
             """;
 
-    private static void printParserErrors(final List<String> errors) {
+    private static void printErrors(final List<String> errors) {
         errors.forEach(error -> System.out.printf("\t%s\n", error));
     }
 
+    private static String option(final String[] args, final String name, final String defaultValue) {
+        for (final var arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+
+        return defaultValue;
+    }
+
+    // The value of a count option, which must be a whole number of at least 1; anything else ends with its usage.
+    private static Integer countOption(final String[] args, final String name) {
+        final var value = option(args, name, null);
+        if (value == null) {
+            return null;
+        }
+
+        try {
+            final int count = Integer.parseInt(value);
+            if (count >= 1) {
+                return count;
+            }
+        } catch (final NumberFormatException ignored) {
+            // reported below, like a count below 1
+        }
+
+        System.err.printf("invalid %s: %s (usage: %s=N, where N is a whole number of at least 1)\n", name, value, name);
+        System.exit(1);
+        return null;
+    }
+
+    private static void tracePromotion(final Promotion promotion) {
+        final List<String> params = new ArrayList<>();
+        promotion.function().getParameters().forEach(param -> params.add(param.toString()));
+
+        System.err.printf("[tier] fn(%s) %s after %d invocations, %d loop-backs\n"
+                , String.join(", ", params)
+                , promotion.compiled() ? "compiled" : "kept interpreted (" + promotion.reason() + ")"
+                , promotion.invocations()
+                , promotion.loopBacks());
+    }
+
     public static void main(final String[] args) {
+        final var engine = option(args, "--engine", "evaluator");
+        if (!List.of("evaluator", "tree", "stack", "vm").contains(engine)) {
+            System.err.printf("unknown engine: %s (expected evaluator, tree, stack or vm)\n", engine);
+            System.exit(1);
+        }
+
+        if (Arrays.asList(args).contains("--jit")) {
+            Jit.setEnabled(true);
+        }
+
+        final var threshold = countOption(args, "--jit-threshold");
+        if (threshold != null) {
+            Jit.setThreshold(threshold);
+        }
+
+        if (Arrays.asList(args).contains("--trace-tiers")) {
+            Jit.addPromotionListener(RunEvaluatePrintLoop::tracePromotion);
+        }
+
+        final var maxFrames = countOption(args, "--max-frames");
+        final var stackEvaluator = maxFrames == null
+                ? new StackEvaluator()
+                : new StackEvaluator(maxFrames);
+        final var stackStats = Arrays.asList(args).contains("--stack-stats");
+
+        final var env = new Environment();
+
+        final List<Obj> constants = new ArrayList<>();
+        final var globals = new Obj[VM.GLOBALS_SIZE];
+        final var symbolTable = SymbolTable.withBuiltins();
+
+        final Function<Program, Obj> run = program -> {
+            if (engine.equals("vm")) {
+                final var compiler = Compiler.newWithState(symbolTable, constants);
+                compiler.compile(program);
+                if (!compiler.errors().isEmpty()) {
+                    printErrors(compiler.errors());
+                    return null;
+                }
+
+                final var machine = new VM(compiler.bytecode(), globals);
+                machine.run();
+                return machine.lastPoppedStackElem();
+            } else if (engine.equals("tree")) {
+                return Interpreter.eval(program, env);
+            } else if (engine.equals("stack")) {
+                final var evaluated = stackEvaluator.eval(program, env);
+                if (stackStats) {
+                    System.err.printf("[stack] peak %d frames, %d nested calls\n"
+                            , stackEvaluator.getPeakDepth()
+                            , stackEvaluator.getPeakCallDepth());
+                }
+                return evaluated;
+            }
+
+            return Evaluator.eval(program, env);
+        };
+
+        // A whole file, lexed straight from a memory mapping, instead of the prompt.
+        final var file = option(args, "--file", null);
+        if (file != null) {
+            final Parser parser;
+            try {
+                parser = new Parser(new Lexer(MappedSource.open(Path.of(file))));
+            } catch (final NoSuchFileException ex) {
+                System.err.printf("cannot read %s: no such file\n", file);
+                System.exit(1);
+                return;
+            } catch (final IOException ex) {
+                System.err.printf("cannot read %s: %s\n", file, ex.getMessage());
+                System.exit(1);
+                return;
+            }
+
+            final var program = parser.parseProgram();
+            if (!parser.errors().isEmpty()) {
+                printErrors(parser.errors());
+                System.exit(1);
+            }
+
+            final var evaluated = run.apply(program);
+            if (evaluated != null) {
+                System.out.println(evaluated.inspect());
+            }
+            return;
+        }
+
         System.out.println(BANNER);
         System.out.print(PROMPT);
 
         final Scanner scanner = new Scanner(System.in);
-        final var env = new Environment();
 
         while (scanner.hasNext()) {
             System.out.print(PROMPT);
@@ -44,11 +188,12 @@ public class RunEvaluatePrintLoop {
             final var program = parser.parseProgram();
 
             if (!parser.errors().isEmpty()) {
-                printParserErrors(parser.errors());
+                printErrors(parser.errors());
                 continue;
             }
 
-            final var evaluated = Evaluator.eval(program, env);
+            final var evaluated = run.apply(program);
+
             if (evaluated != null) {
                 System.out.println(evaluated.inspect());
                 System.out.println();
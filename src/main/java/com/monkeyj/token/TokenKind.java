@@ -0,0 +1,101 @@
+package com.monkeyj.token;
+
+// Token types as small ints, for Lexer.next(). Each one stands for the TokenConstants type of the same name.
+public final class TokenKind {
+
+    private TokenKind() {}
+
+    public static final int ILLEGAL = 0;
+    public static final int EOF     = 1;
+
+    // Identifiers + literals.
+    public static final int IDENT  = 2;
+    public static final int INT    = 3;
+    public static final int STRING = 4;
+
+    // Operators.
+    public static final int ASSIGN   = 5;
+    public static final int PLUS     = 6;
+    public static final int EQ       = 7;
+    public static final int NOT_EQ   = 8;
+    public static final int MINUS    = 9;
+    public static final int BANG     = 10;
+    public static final int ASTERISK = 11;
+    public static final int SLASH    = 12;
+    public static final int LT       = 13;
+    public static final int GT       = 14;
+
+    // Delimiters.
+    public static final int COMMA     = 15;
+    public static final int SEMICOLON = 16;
+    public static final int COLON     = 17;
+    public static final int LPAREN    = 18;
+    public static final int RPAREN    = 19;
+    public static final int LBRACE    = 20;
+    public static final int RBRACE    = 21;
+    public static final int LBRACKET  = 22;
+    public static final int RBRACKET  = 23;
+
+    // Keywords.
+    public static final int FUNCTION = 24;
+    public static final int LET      = 25;
+    public static final int TRUE     = 26;
+    public static final int FALSE    = 27;
+    public static final int IF       = 28;
+    public static final int ELSE     = 29;
+    public static final int RETURN   = 30;
+
+    public static final int COUNT = 31;
+
+    private static final String[] TYPES = {
+            TokenConstants.ILLEGAL, TokenConstants.EOF,
+            TokenConstants.IDENT, TokenConstants.INT, TokenConstants.STRING,
+            TokenConstants.ASSIGN, TokenConstants.PLUS, TokenConstants.EQ, TokenConstants.NOT_EQ, TokenConstants.MINUS,
+            TokenConstants.BANG, TokenConstants.ASTERISK, TokenConstants.SLASH, TokenConstants.LT, TokenConstants.GT,
+            TokenConstants.COMMA, TokenConstants.SEMICOLON, TokenConstants.COLON, TokenConstants.LPAREN,
+            TokenConstants.RPAREN, TokenConstants.LBRACE, TokenConstants.RBRACE, TokenConstants.LBRACKET,
+            TokenConstants.RBRACKET,
+            TokenConstants.FUNCTION, TokenConstants.LET, TokenConstants.TRUE, TokenConstants.FALSE, TokenConstants.IF,
+            TokenConstants.ELSE, TokenConstants.RETURN,
+    };
+
+    // The literal of every kind that is always spelled the same way; null for identifiers, numbers and the like.
+    private static final String[] LITERALS = {
+            null, "",
+            null, null, null,
+            "=", "+", "==", "!=", "-", "!", "*", "/", "<", ">",
+            ",", ";", ":", "(", ")", "{", "}", "[", "]",
+            "fn", "let", "true", "false", "if", "else", "return",
+    };
+
+    public static String type(final int kind) {
+        return TYPES[kind];
+    }
+
+    public static String literal(final int kind) {
+        return LITERALS[kind];
+    }
+
+    // The keyword input[start, end) spells, or IDENT. Compares characters in place, so nothing is allocated.
+    public static int keyword(final CharSequence input, final int start, final int end) {
+        for (int kind = FUNCTION; kind <= RETURN; kind++) {
+            final var word = LITERALS[kind];
+            if (word.length() == end - start && matches(input, start, word)) {
+                return kind;
+            }
+        }
+
+        return IDENT;
+    }
+
+    private static boolean matches(final CharSequence input, final int start, final String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (input.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
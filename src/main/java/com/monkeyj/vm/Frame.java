@@ -0,0 +1,48 @@
+package com.monkeyj.vm;
+
+import com.monkeyj.object.Cell;
+import com.monkeyj.object.Closure;
+
+public class Frame {
+
+    private final Closure closure;
+    private final int basePointer;
+    // Indexed by local slot; only the slots of CompiledFunction.getCells() have one. null when there are none.
+    private final Cell[] cells;
+    private int ip;
+
+    public Frame(final Closure closure, final int basePointer) {
+        this(closure, basePointer, null);
+    }
+
+    public Frame(final Closure closure, final int basePointer, final Cell[] cells) {
+        this.closure = closure;
+        this.basePointer = basePointer;
+        this.cells = cells;
+    }
+
+    public Closure getClosure() {
+        return closure;
+    }
+
+    public byte[] instructions() {
+        return this.closure.getFn().getInstructions();
+    }
+
+    public Cell[] getCells() {
+        return cells;
+    }
+
+    public int getBasePointer() {
+        return basePointer;
+    }
+
+    public int getIp() {
+        return ip;
+    }
+
+    public void setIp(final int ip) {
+        this.ip = ip;
+    }
+
+}
@@ -0,0 +1,493 @@
+package com.monkeyj.vm;
+
+import com.monkeyj.compiler.Bytecode;
+import com.monkeyj.compiler.Instructions;
+import com.monkeyj.compiler.OpCode;
+import com.monkeyj.evaluator.Builtins;
+import com.monkeyj.evaluator.Literals;
+import com.monkeyj.object.*;
+import com.monkeyj.object.Error;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.monkeyj.evaluator.Evaluator.newError;
+
+public class VM {
+
+    public static final int STACK_SIZE = 16384;
+    public static final int GLOBALS_SIZE = 65536;
+    public static final int MAX_FRAMES = 4096;
+
+    private static final Builtin[] BUILTINS = Builtins.NAMES.stream()
+            .map(Builtins.BUILTINS::get)
+            .toArray(Builtin[]::new);
+
+    private final Obj[] constants;
+    private final List<String> globalNames;
+    private final Obj[] globals;
+
+    private final Obj[] stack;
+    private int sp;                     // always points to the next free slot; top of stack is stack[sp - 1].
+
+    private final Frame[] frames;
+    private int framesIndex;
+
+    private Obj lastPopped;
+
+    public VM(final Bytecode bytecode) {
+        this(bytecode, new Obj[GLOBALS_SIZE]);
+    }
+
+    public VM(final Bytecode bytecode, final Obj[] globals) {
+        this.constants = bytecode.constants().toArray(new Obj[0]);
+        this.globalNames = bytecode.globalNames();
+        this.globals = globals;
+        this.stack = new Obj[STACK_SIZE];
+        this.frames = new Frame[MAX_FRAMES];
+
+        final var mainFn = new CompiledFunction(bytecode.instructions(), 0, 0, null);
+        this.frames[0] = new Frame(new Closure(mainFn, new Cell[0]), 0);
+        this.framesIndex = 1;
+    }
+
+    public Obj lastPoppedStackElem() {
+        return lastPopped;
+    }
+
+    public void run() {
+        Frame frame = this.frames[this.framesIndex - 1];
+        byte[] ins = frame.instructions();
+        int ip = frame.getIp();
+
+        while (ip < ins.length) {
+            final byte op = ins[ip++];
+
+            switch (op) {
+                case OpCode.CONSTANT -> {
+                    this.push(this.constants[Instructions.readUint16(ins, ip)]);
+                    ip += 2;
+                }
+                case OpCode.POP -> {
+                    final var value = this.pop();
+                    if (value instanceof ReturnValue returnValue) {
+                        // A statement whose value a return inside an expression left ends the function, unwrapped.
+                        if (this.framesIndex == 1) {
+                            this.lastPopped = returnValue.getValue();
+                            return;
+                        }
+                        frame = this.leaveFrame(returnValue.getValue());
+                        ins = frame.instructions();
+                        ip = frame.getIp();
+                    } else {
+                        this.lastPopped = value;
+                    }
+                }
+                case OpCode.EXIT_IF -> {
+                    this.stack[this.sp - 1] = new ReturnValue(this.stack[this.sp - 1]);
+                    ip = Instructions.readUint16(ins, ip);
+                }
+                case OpCode.POP_OR_EXIT_IF -> {
+                    if (this.stack[this.sp - 1] instanceof ReturnValue) {
+                        ip = Instructions.readUint16(ins, ip);
+                    } else {
+                        this.pop();
+                        ip += 2;
+                    }
+                }
+                case OpCode.ADD, OpCode.SUB, OpCode.MUL, OpCode.DIV -> {
+                    final var right = this.pop();
+                    final var left = this.pop();
+                    if (!this.pushOrHalt(this.executeBinaryOperation(op, left, right))) {
+                        return;
+                    }
+                }
+                case OpCode.EQUAL, OpCode.NOT_EQUAL, OpCode.GREATER_THAN, OpCode.LESS_THAN -> {
+                    final var right = this.pop();
+                    final var left = this.pop();
+                    if (!this.pushOrHalt(this.executeComparison(op, left, right))) {
+                        return;
+                    }
+                }
+                case OpCode.BANG -> this.push(executeBangOperator(this.pop()));
+                case OpCode.MINUS -> {
+                    final var operand = this.pop();
+                    if (!(operand instanceof Int integer)) {
+                        this.halt(newError("unknown operator: -%s", operand.type()));
+                        return;
+                    }
+                    this.push(Int.of(-integer.getValue()));
+                }
+                case OpCode.TRUE -> this.push(Literals.TRUE);
+                case OpCode.FALSE -> this.push(Literals.FALSE);
+                case OpCode.NULL -> this.push(Literals.NULL);
+                case OpCode.JUMP -> ip = Instructions.readUint16(ins, ip);
+                case OpCode.JUMP_IF_SET -> {
+                    // A local whose let has not run yet reads as null; the symbol after it is tried instead.
+                    final int target = Instructions.readUint16(ins, ip);
+                    ip += 2;
+                    if (this.stack[this.sp - 1] != null) {
+                        ip = target;
+                    } else {
+                        this.sp--;
+                    }
+                }
+                case OpCode.JUMP_NOT_TRUTHY -> {
+                    final int target = Instructions.readUint16(ins, ip);
+                    ip += 2;
+                    if (!isTruthy(this.pop())) {
+                        ip = target;
+                    }
+                }
+                case OpCode.SET_GLOBAL -> {
+                    this.globals[Instructions.readUint16(ins, ip)] = this.pop();
+                    ip += 2;
+                    // A let statement produces no value, the same as in the Evaluator.
+                    this.lastPopped = null;
+                }
+                case OpCode.GET_GLOBAL -> {
+                    final int globalIndex = Instructions.readUint16(ins, ip);
+                    ip += 2;
+                    final var value = this.globals[globalIndex];
+                    if (value == null) {
+                        this.halt(newError("identifier not found: %s", this.globalNames.get(globalIndex)));
+                        return;
+                    }
+                    this.push(value);
+                }
+                case OpCode.SET_LOCAL -> this.stack[frame.getBasePointer() + Instructions.readUint8(ins, ip++)] = this.pop();
+                case OpCode.GET_LOCAL -> this.push(this.stack[frame.getBasePointer() + Instructions.readUint8(ins, ip++)]);
+                case OpCode.GET_BUILTIN -> this.push(BUILTINS[Instructions.readUint8(ins, ip++)]);
+                case OpCode.SET_CELL -> frame.getCells()[Instructions.readUint8(ins, ip++)].setValue(this.pop());
+                case OpCode.GET_CELL -> this.push(frame.getCells()[Instructions.readUint8(ins, ip++)].getValue());
+                case OpCode.GET_FREE -> this.push(frame.getClosure().getFree()[Instructions.readUint8(ins, ip++)].getValue());
+                case OpCode.CURRENT_CLOSURE -> this.push(frame.getClosure());
+                case OpCode.ARRAY -> {
+                    final int numElements = Instructions.readUint16(ins, ip);
+                    ip += 2;
+                    final List<Obj> elements = new ArrayList<>(Arrays.asList(this.stack).subList(this.sp - numElements, this.sp));
+                    this.sp -= numElements;
+                    this.push(new Array(elements));
+                }
+                case OpCode.HASH -> {
+                    final int numElements = Instructions.readUint16(ins, ip);
+                    ip += 2;
+                    final var hash = this.buildHash(this.sp - numElements, this.sp);
+                    this.sp -= numElements;
+                    if (!this.pushOrHalt(hash)) {
+                        return;
+                    }
+                }
+                case OpCode.INDEX -> {
+                    final var index = this.pop();
+                    final var left = this.pop();
+                    if (!this.pushOrHalt(executeIndexExpression(left, index))) {
+                        return;
+                    }
+                }
+                case OpCode.CALL -> {
+                    final int numArgs = Instructions.readUint8(ins, ip++);
+                    final var callee = this.stack[this.sp - 1 - numArgs];
+
+                    if (callee instanceof Closure closure) {
+                        final var fn = closure.getFn();
+                        if (numArgs != fn.getNumParameters()) {
+                            this.halt(newError("wrong number of arguments: want=%d, got=%d", fn.getNumParameters(), numArgs));
+                            return;
+                        }
+                        if (this.framesIndex == MAX_FRAMES || this.sp - numArgs + fn.getNumLocals() >= STACK_SIZE) {
+                            this.halt(newError("stack overflow"));
+                            return;
+                        }
+
+                        // Locals a previous call left behind would read as set.
+                        final int basePointer = this.sp - numArgs;
+                        Arrays.fill(this.stack, this.sp, basePointer + fn.getNumLocals(), null);
+
+                        frame.setIp(ip);
+                        frame = new Frame(closure, basePointer, this.openCells(fn, basePointer));
+                        this.frames[this.framesIndex++] = frame;
+                        ins = frame.instructions();
+                        ip = 0;
+                        this.sp = frame.getBasePointer() + fn.getNumLocals();
+                    } else if (callee instanceof Builtin builtin) {
+                        final List<Obj> args = new ArrayList<>(Arrays.asList(this.stack).subList(this.sp - numArgs, this.sp));
+                        final var result = builtin.getFn().apply(args);
+                        this.sp -= numArgs + 1;
+                        if (!this.pushOrHalt(result)) {
+                            return;
+                        }
+                    } else {
+                        this.halt(newError("not a function: %s", callee.type()));
+                        return;
+                    }
+                }
+                case OpCode.TAIL_CALL -> {
+                    final int numArgs = Instructions.readUint8(ins, ip++);
+                    final var callee = this.stack[this.sp - 1 - numArgs];
+
+                    if (callee instanceof Closure closure) {
+                        final var fn = closure.getFn();
+                        if (numArgs != fn.getNumParameters()) {
+                            this.halt(newError("wrong number of arguments: want=%d, got=%d", fn.getNumParameters(), numArgs));
+                            return;
+                        }
+                        final int basePointer = frame.getBasePointer();
+                        if (basePointer + fn.getNumLocals() >= STACK_SIZE) {
+                            this.halt(newError("stack overflow"));
+                            return;
+                        }
+
+                        // The callee and its arguments take the place of the returning function's, so tail recursion
+                        // runs in a fixed number of frames like in the Evaluator.
+                        final int top = this.sp;
+                        System.arraycopy(this.stack, this.sp - 1 - numArgs, this.stack, basePointer - 1, numArgs + 1);
+                        this.sp = basePointer + fn.getNumLocals();
+                        Arrays.fill(this.stack, basePointer + numArgs, Math.max(top, this.sp), null);
+
+                        frame = new Frame(closure, basePointer, this.openCells(fn, basePointer));
+                        this.frames[this.framesIndex - 1] = frame;
+                        ins = frame.instructions();
+                        ip = 0;
+                    } else if (callee instanceof Builtin builtin) {
+                        final List<Obj> args = new ArrayList<>(Arrays.asList(this.stack).subList(this.sp - numArgs, this.sp));
+                        final var result = builtin.getFn().apply(args);
+                        if (result instanceof Error error) {
+                            this.halt(error);
+                            return;
+                        }
+                        frame = this.leaveFrame(result);
+                        ins = frame.instructions();
+                        ip = frame.getIp();
+                    } else {
+                        this.halt(newError("not a function: %s", callee.type()));
+                        return;
+                    }
+                }
+                case OpCode.RETURN_VALUE, OpCode.RETURN_STATEMENT, OpCode.RETURN -> {
+                    // The value of a body's last statement is unwrapped like in the Evaluator, a returned one is not.
+                    final var returnValue = switch (op) {
+                        case OpCode.RETURN_VALUE -> {
+                            final var value = this.pop();
+                            yield value instanceof ReturnValue wrapped ? wrapped.getValue() : value;
+                        }
+                        case OpCode.RETURN_STATEMENT -> this.pop();
+                        default -> Literals.NULL;
+                    };
+
+                    if (this.framesIndex == 1) {
+                        // top-level return statement: ends the program, like Evaluator.evalProgram.
+                        this.lastPopped = returnValue;
+                        return;
+                    }
+
+                    frame = this.leaveFrame(returnValue);
+                    ins = frame.instructions();
+                    ip = frame.getIp();
+                }
+                case OpCode.CLOSURE -> {
+                    final int constIndex = Instructions.readUint16(ins, ip);
+                    final int numFree = Instructions.readUint8(ins, ip + 2);
+                    ip += 3;
+
+                    final var fn = (CompiledFunction) this.constants[constIndex];
+                    this.push(new Closure(fn, captureFree(fn, frame, numFree)));
+                }
+                default -> throw new IllegalStateException(String.format("opcode %d undefined", op));
+            }
+        }
+
+        frame.setIp(ip);
+    }
+
+    // Drops the current frame and leaves its result on the caller's stack in place of the callee.
+    private Frame leaveFrame(final Obj returnValue) {
+        final var frame = this.frames[--this.framesIndex];
+        this.frames[this.framesIndex] = null;
+        this.sp = frame.getBasePointer() - 1;
+        this.push(returnValue);
+
+        return this.frames[this.framesIndex - 1];
+    }
+
+    // The cells of the locals fn's closures capture, holding the arguments already on the stack.
+    private Cell[] openCells(final CompiledFunction fn, final int basePointer) {
+        final int[] slots = fn.getCells();
+        if (slots.length == 0) {
+            return null;
+        }
+
+        final var cells = new Cell[fn.getNumLocals()];
+        for (final int slot : slots) {
+            cells[slot] = new Cell(this.stack[basePointer + slot]);
+        }
+        return cells;
+    }
+
+    private static Cell[] captureFree(final CompiledFunction fn, final Frame frame, final int numFree) {
+        final int[] captures = fn.getCaptures();
+        final var free = new Cell[numFree];
+        for (int i = 0; i < numFree; i++) {
+            final int capture = captures[i];
+            if (capture >= 0) {
+                free[i] = frame.getCells()[capture];
+            } else if (capture == CompiledFunction.CURRENT_CLOSURE) {
+                free[i] = new Cell(frame.getClosure());
+            } else {
+                free[i] = frame.getClosure().getFree()[-2 - capture];
+            }
+        }
+        return free;
+    }
+
+    private void push(final Obj obj) {
+        if (this.sp >= STACK_SIZE) {
+            throw new IllegalStateException("stack overflow");
+        }
+
+        this.stack[this.sp++] = obj;
+    }
+
+    private Obj pop() {
+        final var obj = this.stack[--this.sp];
+        this.stack[this.sp] = null;
+        return obj;
+    }
+
+    // Any error aborts the whole program in the Evaluator, so the VM stops and reports it as the result.
+    private boolean pushOrHalt(final Obj obj) {
+        if (obj instanceof Error error) {
+            this.halt(error);
+            return false;
+        }
+
+        this.push(obj);
+        return true;
+    }
+
+    private void halt(final Error error) {
+        this.lastPopped = error;
+    }
+
+    private Obj executeBinaryOperation(final byte op, final Obj left, final Obj right) {
+        if (left instanceof Int l && right instanceof Int r) {
+            final int leftVal = l.getValue();
+            final int rightVal = r.getValue();
+
+            return switch (op) {
+                case OpCode.ADD -> Int.of(leftVal + rightVal);
+                case OpCode.SUB -> Int.of(leftVal - rightVal);
+                case OpCode.MUL -> Int.of(leftVal * rightVal);
+                default -> Int.of(leftVal / rightVal);
+            };
+        }
+
+        if (op == OpCode.ADD && left instanceof Str l && right instanceof Str r) {
+            return Str.concat(l, r);
+        }
+
+        return newError("unknown operator: %s %s %s", left.type(), operatorSymbol(op), right.type());
+    }
+
+    private Obj executeComparison(final byte op, final Obj left, final Obj right) {
+        if (left instanceof Int l && right instanceof Int r) {
+            final int leftVal = l.getValue();
+            final int rightVal = r.getValue();
+
+            return nativeBoolToBooleanObject(switch (op) {
+                case OpCode.EQUAL -> leftVal == rightVal;
+                case OpCode.NOT_EQUAL -> leftVal != rightVal;
+                case OpCode.GREATER_THAN -> leftVal > rightVal;
+                default -> leftVal < rightVal;
+            });
+        }
+
+        if (!(left instanceof Str && right instanceof Str)) {
+            if (op == OpCode.EQUAL) {
+                return nativeBoolToBooleanObject(left == right);
+            }
+            if (op == OpCode.NOT_EQUAL) {
+                return nativeBoolToBooleanObject(left != right);
+            }
+        }
+
+        return newError("unknown operator: %s %s %s", left.type(), operatorSymbol(op), right.type());
+    }
+
+    private Obj buildHash(final int startIndex, final int endIndex) {
+        var pairs = PersistentHashMap.EMPTY;
+
+        for (int i = startIndex; i < endIndex; i += 2) {
+            final var key = this.stack[i];
+            final var value = this.stack[i + 1];
+
+            if (!(key instanceof Hashable)) {
+                return newError("unusable as hash key: %s", key.type());
+            }
+
+            pairs = pairs.put(new HashPair(key, value));
+        }
+
+        return new Hash(pairs);
+    }
+
+    private static Obj executeIndexExpression(final Obj left, final Obj index) {
+        if (left instanceof Array array && index instanceof Int integer) {
+            final int idx = integer.getValue();
+            final var elements = array.getElements();
+            if (idx < 0 || idx > elements.size() - 1) {
+                return Literals.NULL;
+            }
+
+            return elements.get(idx);
+        }
+
+        if (left instanceof Hash hash) {
+            if (!(index instanceof Hashable key)) {
+                return newError("unusable as hash key: %s", index.type());
+            }
+
+            final var pair = hash.get(key);
+            return pair == null ? Literals.NULL : pair.getValue();
+        }
+
+        return newError("index operator not supported: %s", left.type());
+    }
+
+    private static Obj executeBangOperator(final Obj operand) {
+        if (operand.equals(Literals.TRUE)) {
+            return Literals.FALSE;
+        } else if (operand.equals(Literals.FALSE) || operand.equals(Literals.NULL)) {
+            return Literals.TRUE;
+        }
+
+        return Literals.FALSE;
+    }
+
+    private static boolean isTruthy(final Obj obj) {
+        return switch (obj.objType()) {
+            case NULL -> false;
+            case BOOLEAN -> ((Bool) obj).getValue();
+            case INTEGER, STRING, ARRAY, HASH, FUNCTION, BUILTIN, ERROR, RETURN_VALUE, COMPILED_FUNCTION -> true;
+        };
+    }
+
+    private static Bool nativeBoolToBooleanObject(final boolean input) {
+        return input ? Literals.TRUE : Literals.FALSE;
+    }
+
+    private static String operatorSymbol(final byte op) {
+        return switch (op) {
+            case OpCode.ADD -> "+";
+            case OpCode.SUB -> "-";
+            case OpCode.MUL -> "*";
+            case OpCode.DIV -> "/";
+            case OpCode.EQUAL -> "==";
+            case OpCode.NOT_EQUAL -> "!=";
+            case OpCode.GREATER_THAN -> ">";
+            default -> "<";
+        };
+    }
+
+}
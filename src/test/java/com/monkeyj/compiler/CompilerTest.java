@@ -0,0 +1,280 @@
+package com.monkeyj.compiler;
+
+import com.monkeyj.lexer.Lexer;
+import com.monkeyj.object.CompiledFunction;
+import com.monkeyj.object.Int;
+import com.monkeyj.object.Str;
+import com.monkeyj.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompilerTest {
+
+    @Test
+    public void shouldMakeInstructions() {
+        record test(byte op, int[] operands, byte[] expected) {}
+
+        final test[] tests = {
+            new test(OpCode.CONSTANT, new int[]{65534}, new byte[]{OpCode.CONSTANT, (byte) 255, (byte) 254}),
+            new test(OpCode.ADD, new int[]{}, new byte[]{OpCode.ADD}),
+            new test(OpCode.GET_LOCAL, new int[]{255}, new byte[]{OpCode.GET_LOCAL, (byte) 255}),
+            new test(OpCode.CLOSURE, new int[]{65534, 255}, new byte[]{OpCode.CLOSURE, (byte) 255, (byte) 254, (byte) 255}),
+        };
+
+        for (final test test : tests) {
+            assertArrayEquals(test.expected(), Instructions.make(test.op(), test.operands()));
+        }
+    }
+
+    @Test
+    public void shouldRejectOperandsThatDoNotFit() {
+        assertThrows(IllegalArgumentException.class, () -> Instructions.make(OpCode.GET_LOCAL, 256));
+        assertThrows(IllegalArgumentException.class, () -> Instructions.make(OpCode.CONSTANT, 65536));
+    }
+
+    @Test
+    public void shouldDisassembleInstructions() {
+        final byte[] ins = concat(
+                Instructions.make(OpCode.ADD),
+                Instructions.make(OpCode.GET_LOCAL, 1),
+                Instructions.make(OpCode.CONSTANT, 2),
+                Instructions.make(OpCode.CONSTANT, 65535),
+                Instructions.make(OpCode.CLOSURE, 65535, 255));
+
+        final String expected = """
+                0000 OpAdd
+                0001 OpGetLocal 1
+                0003 OpConstant 2
+                0006 OpConstant 65535
+                0009 OpClosure 65535 255
+                """;
+
+        assertEquals(expected, Instructions.toString(ins));
+    }
+
+    @Test
+    public void shouldCompileIntegerArithmetic() {
+        final var bytecode = compile("1 + 2; -3");
+
+        assertEquals(List.of(Int.of(1), Int.of(2), Int.of(3)), bytecode.constants());
+        assertInstructions(bytecode.instructions(),
+                Instructions.make(OpCode.CONSTANT, 0),
+                Instructions.make(OpCode.CONSTANT, 1),
+                Instructions.make(OpCode.ADD),
+                Instructions.make(OpCode.POP),
+                Instructions.make(OpCode.CONSTANT, 2),
+                Instructions.make(OpCode.MINUS),
+                Instructions.make(OpCode.POP));
+    }
+
+    @Test
+    public void shouldKeepOperandOrderForLessThan() {
+        final var bytecode = compile("1 < 2");
+
+        assertInstructions(bytecode.instructions(),
+                Instructions.make(OpCode.CONSTANT, 0),
+                Instructions.make(OpCode.CONSTANT, 1),
+                Instructions.make(OpCode.LESS_THAN),
+                Instructions.make(OpCode.POP));
+    }
+
+    @Test
+    public void shouldCompileConditionals() {
+        final var bytecode = compile("if (true) { 10 }; 3333;");
+
+        assertInstructions(bytecode.instructions(),
+                Instructions.make(OpCode.TRUE),
+                Instructions.make(OpCode.JUMP_NOT_TRUTHY, 10),
+                Instructions.make(OpCode.CONSTANT, 0),
+                Instructions.make(OpCode.JUMP, 11),
+                Instructions.make(OpCode.NULL),
+                Instructions.make(OpCode.POP),
+                Instructions.make(OpCode.CONSTANT, 1),
+                Instructions.make(OpCode.POP));
+    }
+
+    @Test
+    public void shouldCompileGlobalLetStatements() {
+        final var bytecode = compile("let one = 1; let one = 2; one;");
+
+        assertInstructions(bytecode.instructions(),
+                Instructions.make(OpCode.CONSTANT, 0),
+                Instructions.make(OpCode.SET_GLOBAL, 0),
+                Instructions.make(OpCode.CONSTANT, 1),
+                Instructions.make(OpCode.SET_GLOBAL, 0),
+                Instructions.make(OpCode.GET_GLOBAL, 0),
+                Instructions.make(OpCode.POP));
+        assertEquals(List.of("one"), bytecode.globalNames());
+    }
+
+    @Test
+    public void shouldCompileStringsAndBuiltins() {
+        final var bytecode = compile("""
+                len("monkey")
+                """);
+
+        assertEquals("monkey", ((Str) bytecode.constants().get(0)).getValue());
+        assertInstructions(bytecode.instructions(),
+                Instructions.make(OpCode.GET_BUILTIN, com.monkeyj.evaluator.Builtins.NAMES.indexOf("len")),
+                Instructions.make(OpCode.CONSTANT, 0),
+                Instructions.make(OpCode.CALL, 1),
+                Instructions.make(OpCode.POP));
+    }
+
+    @Test
+    public void shouldCompileClosures() {
+        final var bytecode = compile("fn(a) { fn(b) { a + b } }");
+
+        final var inner = (CompiledFunction) bytecode.constants().get(0);
+        assertInstructions(inner.getInstructions(),
+                Instructions.make(OpCode.GET_FREE, 0),
+                Instructions.make(OpCode.GET_LOCAL, 0),
+                Instructions.make(OpCode.ADD),
+                Instructions.make(OpCode.RETURN_VALUE));
+
+        final var outer = (CompiledFunction) bytecode.constants().get(1);
+        assertEquals(1, outer.getNumParameters());
+        assertArrayEquals(new int[] {0}, outer.getCells());
+        assertArrayEquals(new int[] {0}, inner.getCaptures());
+        assertInstructions(outer.getInstructions(),
+                Instructions.make(OpCode.CLOSURE, 0, 1),
+                Instructions.make(OpCode.RETURN_VALUE));
+    }
+
+    @Test
+    public void shouldCompileLocalsDeclaredAfterTheirUse() {
+        final var bytecode = compile("fn() { let g = fn() { y }; let y = 2; let z = y; g() }");
+
+        // y might not be set yet when g runs, so the global of the same name is read when it is not.
+        final var inner = (CompiledFunction) bytecode.constants().get(0);
+        assertInstructions(inner.getInstructions(),
+                Instructions.make(OpCode.GET_FREE, 0),
+                Instructions.make(OpCode.JUMP_IF_SET, 8),
+                Instructions.make(OpCode.GET_GLOBAL, 0),
+                Instructions.make(OpCode.RETURN_VALUE));
+
+        // y is captured, so it lives in a cell; it is surely set by the time z reads it.
+        final var outer = (CompiledFunction) bytecode.constants().get(2);
+        assertArrayEquals(new int[] {1}, outer.getCells());
+        assertInstructions(outer.getInstructions(),
+                Instructions.make(OpCode.CLOSURE, 0, 1),
+                Instructions.make(OpCode.SET_LOCAL, 0),
+                Instructions.make(OpCode.CONSTANT, 1),
+                Instructions.make(OpCode.SET_CELL, 1),
+                Instructions.make(OpCode.GET_CELL, 1),
+                Instructions.make(OpCode.SET_LOCAL, 2),
+                Instructions.make(OpCode.GET_LOCAL, 0),
+                Instructions.make(OpCode.TAIL_CALL, 0),
+                Instructions.make(OpCode.RETURN_VALUE));
+    }
+
+    @Test
+    public void shouldCompileReturnsInsideExpressions() {
+        final var bytecode = compile("fn() { let x = if (true) { return 1; }; 2 }");
+
+        // The return leaves a ReturnValue as the value of the if, which x is bound to; the function carries on.
+        final var fn = (CompiledFunction) bytecode.constants().get(2);
+        assertInstructions(fn.getInstructions(),
+                Instructions.make(OpCode.TRUE),
+                Instructions.make(OpCode.JUMP_NOT_TRUTHY, 14),
+                Instructions.make(OpCode.CONSTANT, 0),
+                Instructions.make(OpCode.EXIT_IF, 15),
+                Instructions.make(OpCode.NULL),
+                Instructions.make(OpCode.JUMP, 15),
+                Instructions.make(OpCode.NULL),
+                Instructions.make(OpCode.SET_LOCAL, 0),
+                Instructions.make(OpCode.CONSTANT, 1),
+                Instructions.make(OpCode.RETURN_VALUE));
+    }
+
+    @Test
+    public void shouldCompileRecursiveFunctionsWithCurrentClosure() {
+        final var bytecode = compile("let countDown = fn(x) { countDown(x - 1); };");
+
+        // The recursive call is in tail position, so it takes over the frame of the call it returns from.
+        final var fn = (CompiledFunction) bytecode.constants().get(1);
+        assertInstructions(fn.getInstructions(),
+                Instructions.make(OpCode.CURRENT_CLOSURE),
+                Instructions.make(OpCode.GET_LOCAL, 0),
+                Instructions.make(OpCode.CONSTANT, 0),
+                Instructions.make(OpCode.SUB),
+                Instructions.make(OpCode.TAIL_CALL, 1),
+                Instructions.make(OpCode.RETURN_VALUE));
+    }
+
+    @Test
+    public void shouldReportTheLimitsOfTheBytecodeAsCompileErrors() {
+        record test(String input, List<String> expected) {}
+
+        // Identifiers have no digits: vaa, vab, ...
+        final var lets = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            lets.append("let v").append((char) ('a' + i / 26)).append((char) ('a' + i % 26)).append(" = 1; ");
+        }
+        final var args = String.join(", ", Collections.nCopies(256, "1"));
+
+        final test[] tests = {
+            new test("fn() { " + lets + "vjv }", List.of()),
+            new test("fn() { " + lets + "let w = 2; w }",
+                    List.of("too many local bindings in a function: at most 256, parameters included")),
+            new test("fn(a) { " + lets + "a }",
+                    List.of("too many local bindings in a function: at most 256, parameters included")),
+            new test("len(" + args + ")", List.of("too many arguments in a call: at most 255")),
+            new test("1 + ;", List.of("cannot compile a program with parse errors")),
+        };
+
+        for (final test test : tests) {
+            final var compiler = new Compiler();
+            compiler.compile(new Parser(new Lexer(test.input())).parseProgram());
+            assertEquals(test.expected(), compiler.errors(), test.input());
+        }
+    }
+
+    @Test
+    public void shouldResolveFreeVariablesThroughNestedScopes() {
+        final var global = new SymbolTable();
+        global.define("a");
+
+        final var firstLocal = SymbolTable.newEnclosedSymbolTable(global);
+        firstLocal.define("c");
+
+        final var secondLocal = SymbolTable.newEnclosedSymbolTable(firstLocal);
+        secondLocal.define("e");
+
+        assertEquals(new Symbol("a", SymbolScope.GLOBAL, 0), secondLocal.resolve("a"));
+        assertEquals(new Symbol("c", SymbolScope.FREE, 0), secondLocal.resolve("c"));
+        assertEquals(new Symbol("e", SymbolScope.LOCAL, 0), secondLocal.resolve("e"));
+        assertEquals(List.of(new Symbol("c", SymbolScope.LOCAL, 0)), secondLocal.getFreeSymbols());
+        assertNull(secondLocal.resolve("unknown"));
+    }
+
+    private static Bytecode compile(final String input) {
+        final var parser = new Parser(new Lexer(input));
+        final var program = parser.parseProgram();
+        assertTrue(parser.errors().isEmpty(), parser.errors().toString());
+
+        final var compiler = new Compiler();
+        compiler.compile(program);
+
+        return compiler.bytecode();
+    }
+
+    private static void assertInstructions(final byte[] actual, final byte[]... expected) {
+        assertEquals(Instructions.toString(concat(expected)), Instructions.toString(actual));
+    }
+
+    private static byte[] concat(final byte[]... instructions) {
+        final var out = new ByteArrayOutputStream();
+        for (final byte[] ins : instructions) {
+            out.writeBytes(ins);
+        }
+
+        return out.toByteArray();
+    }
+
+}
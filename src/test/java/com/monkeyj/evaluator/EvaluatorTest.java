@@ -1,6 +1,7 @@
 package com.monkeyj.evaluator;
 
 import com.monkeyj.ast.Program;
+import com.monkeyj.jit.Jit;
 import com.monkeyj.lexer.Lexer;
 import com.monkeyj.object.*;
 import com.monkeyj.object.Error;
@@ -98,6 +99,10 @@ if (10 > 1) {
         }
     }
 
+    private static Program parse(final String input) {
+        return new Parser(new Lexer(input)).parseProgram();
+    }
+
     private static Obj testEval(final String input) {
         final var lex = new Lexer(input);
         final Parser parser = new Parser(lex);
@@ -298,6 +303,136 @@ addTwo(2);
         assertTrue(isValidIntegerObject(evaluated, 4));
     }
 
+    @Test
+    public void shouldEliminateTailCalls() {
+        record test(String input, Object expected) {}
+
+        final test[] tests = {
+            new test("let count = fn(n, acc) { if (n == 0) { acc } else { count(n - 1, acc + 1) } }; count(100000, 0);"
+                    , 100000),
+            new test("let count = fn(n) { if (n == 0) { return 7; } return count(n - 1); }; count(100000);", 7),
+            new test("""
+                    let even = fn(n) { if (n == 0) { true } else { odd(n - 1) } };
+                    let odd = fn(n) { if (n == 0) { false } else { even(n - 1) } };
+                    even(100001);""", false),
+            new test("""
+                    let sum = fn(arr, acc) { if (len(arr) == 0) { acc } else { sum(rest(arr), acc + first(arr)) } };
+                    sum([1, 2, 3, 4], 0);""", 10),
+            new test("let f = fn(x) { if (x > 0) { return x; } len(\"abc\") }; f(0);", 3),
+            new test("let f = fn(x) { let y = x * 2; y }; let g = fn(x) { f(x) + 1 }; g(5);", 11),
+            new test("let f = fn(x) { x }; let g = fn() { 5(1) }; g();", "not a function: INTEGER"),
+            new test("let g = fn() { f(1) }; g();", "identifier not found: f"),
+            new test("let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + 1) } }; loop(200000, 0)"
+                    , 200000),
+            new test("let loop = fn(n) { return if (n == 0) { 3 } else { loop(n - 1) }; }; loop(200000)", 3),
+        };
+
+        // The JIT compiles the self-recursive ones on their first call, and has to loop as well.
+        for (final boolean jit : new boolean[] {false, true}) {
+            Jit.setEnabled(jit);
+            Jit.setThreshold(0);
+            try {
+                for (final test test : tests) {
+                    final var message = String.format("%s with the JIT %s", test.input(), jit ? "on" : "off");
+                    final Obj[] results = {testEval(test.input()), new StackEvaluator().eval(parse(test.input()), new Environment())};
+                    for (final var evaluated : results) {
+                        if (test.expected() instanceof Integer expected) {
+                            assertTrue(isValidIntegerObject(evaluated, expected), message);
+                        } else if (test.expected() instanceof Boolean expected) {
+                            assertTrue(isValidBooleanObject(evaluated, expected), message);
+                        } else {
+                            assertEquals(test.expected(), ((Error) evaluated).getMessage(), message);
+                        }
+                    }
+                }
+            } finally {
+                Jit.setEnabled(false);
+                Jit.setThreshold(Jit.DEFAULT_THRESHOLD);
+            }
+        }
+    }
+
+    @Test
+    public void shouldEvaluateOnAnExplicitStackLikeTheEvaluator() {
+        final String[] inputs = {
+            "5", "-10", "(5 + 10 * 2 + 15 / 3) * 2 + -10", "1 < 2", "!5", "!!true", "!if (false) { 1 }",
+            "if (1) { 10 }", "if (false) { 10 }", "if (1 > 2) { 10 } else { 20 }",
+            "return 10; 9;", "9; return 2 * 5; 9;", "if (10 > 1) { if (10 > 1) { return 10; } return 1; }",
+            "let a = 5; let b = a; let c = a + b + 5; c;", "let a = 5;", "",
+            "let identity = fn(x) { return x; }; identity(5);", "let add = fn(x, y) { x + y; }; add(5 + 5, add(5, 5));",
+            "let newAdder = fn(x) { fn(y) { x + y }; }; let addTwo = newAdder(2); addTwo(2);", "fn(x) { x + 2; };",
+            "fn() { }()", "\"Hello\" + \" \" + \"World!\"", "len(\"hello world\")", "rest([1, 2, 3, 4])",
+            "let a = [1, 2, 3, 4]; let b = push(a, 98); b", "[1, 2 * 2, 3 + 3]", "[1, 2, 3][3]", "[]",
+            "let two = \"two\"; {\"one\": 10 - 9, two: 1 + 1, \"thr\" + \"ee\": 6 / 2, 4: 4, true: 5, false: 6}",
+            "{\"foo\": 5}[\"bar\"]", "{}", "let f = fn(x) { x }; f == f", "[1] == [1]",
+            "let h = set({1: 1}, \"two\", 2); [keys(delete(h, 1)), values(h), delete(h, 3) == h, set(h, 1)]",
+            "let h = {1: 1, 2: 2}; let g = merge(h, {2: 3, 4: 5}); [g, h, merge(g, h) == h]",
+            "let x = if (true) { return 5; }; x", "let f = fn() { 1 + if (true) { return 2; } }; f()",
+            "let f = fn(x) { if (x > 0) { return x; } 7 }; [f(1), f(0)]",
+            "let f = fn() { return if (true) { return 1; }; }; f()", "let f = fn() { return; }; f()",
+            "let f = fn() { let x = if (true) { return 5; }; let g = fn() { return 9; }; g(); x }; f()",
+            "let f = fn() { return foobar; 1 }; f()", "let f = fn(x) { if (x) { return [1]; } }; [f(true), f(false)]",
+            "5 + true;", "5; true + false; 5", "-true", "\"Hello\" - \"World\"", "foobar", "first(1)",
+            "{fn(x) { x }: 1}", "1[0]", "5()", "[len(1), 2]", "{1: foo}", "let f = fn(x) { x * 2 }; f(1, 2);",
+            "let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } }; fib(15);",
+            "let count = fn(n, acc) { if (n == 0) { acc } else { count(n - 1, acc + 1) } }; count(1000, 0);",
+        };
+
+        for (final String input : inputs) {
+            final var expected = testEval(input);
+            final var actual = new StackEvaluator().eval(parse(input), new Environment());
+
+            assertEquals(expected == null, actual == null, String.format("For input: `%s`", input));
+            if (expected != null) {
+                assertEquals(expected.type(), actual.type(), String.format("For input: `%s`", input));
+                assertEquals(expected.inspect(), actual.inspect(), String.format("For input: `%s`", input));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRecurseDeeplyOnAnExplicitStack() {
+        final String INPUT = "let sum = fn(n) { if (n == 0) { 0 } else { n + sum(n - 1) } }; sum(100000);";
+
+        final var machine = new StackEvaluator();
+        final var evaluated = machine.eval(parse(INPUT), new Environment());
+
+        assertTrue(isValidIntegerObject(evaluated, 705082704));
+        assertEquals(100001, machine.getPeakCallDepth());
+        assertTrue(machine.getPeakDepth() > machine.getPeakCallDepth());
+    }
+
+    @Test
+    public void shouldReportAStackOverflowWhenTheFrameBudgetRunsOut() {
+        final String INPUT = "let f = fn(n) { 1 + f(n + 1) }; f(0);";
+
+        final var machine = new StackEvaluator(1000);
+        final var env = new Environment();
+        final var evaluated = machine.eval(parse(INPUT), env);
+
+        assertTrue(evaluated instanceof Error, String.format("got=%s", evaluated));
+        assertEquals("stack overflow: more than 1000 frames", ((Error) evaluated).getMessage());
+        assertEquals(1000, machine.getPeakDepth());
+
+        // The calls of f that were cut short must not count as running any more.
+        final var literal = ((Function) env.get("f")).getLiteral();
+        final var loopBacks = literal.getLoopBackCount();
+        literal.enter();
+        literal.exit();
+        assertEquals(loopBacks, literal.getLoopBackCount());
+    }
+
+    @Test
+    public void shouldRunTailCallsInConstantStackDepth() {
+        final String INPUT = "let count = fn(n) { if (n == 0) { return 7; } return count(n - 1); }; count(100000);";
+
+        final var machine = new StackEvaluator(100);
+        final var evaluated = machine.eval(parse(INPUT), new Environment());
+
+        assertTrue(isValidIntegerObject(evaluated, 7));
+        assertEquals(1, machine.getPeakCallDepth());
+    }
+
     @Test
     public void shouldEvaluateStringLiteral() {
         final String INPUT = """
@@ -442,6 +577,67 @@ addTwo(2);
         }
     }
 
+    @Test
+    public void shouldEvaluateHashBuiltinFunctions() {
+        record test(String input, String expected) {}
+
+        final test[] tests = {
+                new test("""
+                    let h = {1: "one"}; let g = set(h, 2, "two"); [h[2], g[2], g[1]]
+                """, "[null, two, one]"),
+                new test("""
+                    set({1: 1}, 1, 5)[1]
+                """, "5"),
+                new test("""
+                    let h = {1: 1, 2: 2}; let g = delete(h, 1); [len(keys(h)), len(keys(g)), g[1], g[2]]
+                """, "[2, 1, null, 2]"),
+                new test("""
+                    delete({1: 1}, 2)
+                """, "{1: 1}"),
+                new test("""
+                    keys({1: "a", 2: "b", 3: "c"})
+                """, "[1, 2, 3]"),
+                new test("""
+                    let h = {"b": 1, "a": 2}; [h, set(h, "c", 3), set(h, "b", 4), keys(merge({"z": 0, "a": 0}, h))]
+                """, "[{b: 1, a: 2}, {b: 1, a: 2, c: 3}, {b: 4, a: 2}, [z, a, b]]"),
+                new test("""
+                    values({1: "a", 2: "b", 3: "c"})
+                """, "[a, b, c]"),
+                new test("""
+                    keys({})
+                """, "[]"),
+                new test("""
+                    let h = {1: "a", 2: "b"}; let g = {2: "B", 3: "C"}; [merge(h, g), h, g]
+                """, "[{1: a, 2: B, 3: C}, {1: a, 2: b}, {2: B, 3: C}]"),
+                new test("""
+                    let h = {1: 1}; [merge(h, {}) == h, merge({}, h) == h]
+                """, "[true, true]"),
+                new test("""
+                    set(1, 2, 3)
+                """, "ERROR: argument to `set` must be HASH, got INTEGER"),
+                new test("""
+                    set({}, 1)
+                """, "ERROR: wrong number of arguments. got=2, want=3"),
+                new test("""
+                    delete({}, fn(x) { x })
+                """, "ERROR: unusable as hash key: FUNCTION"),
+                new test("""
+                    values([1])
+                """, "ERROR: argument to `values` must be HASH, got ARRAY"),
+                new test("""
+                    merge({}, [1])
+                """, "ERROR: argument to `merge` must be HASH, got ARRAY"),
+                new test("""
+                    merge({})
+                """, "ERROR: wrong number of arguments. got=1, want=2"),
+        };
+
+        for (final test test : tests) {
+            final var evaluated = testEval(test.input());
+            assertEquals(test.expected(), evaluated.inspect(), test.input());
+        }
+    }
+
     @Test
     public void shouldEvaluateHashLiterals() {
         final String INPUT = """
@@ -524,6 +720,18 @@ addTwo(2);
                             {false: 5}[false]
                             """,
                     5
+            ),
+            new test(
+                    """
+                            {"Aa": 1, "BB": 2}["BB"] - {"Aa": 1, "BB": 2}["Aa"]
+                            """,
+                    1
+            ),
+            new test(
+                    """
+                            {"Aa": 1}["BB"]
+                            """,
+                    null
             )
         };
 
@@ -540,4 +748,43 @@ addTwo(2);
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldRenderErrorMessagesOnlyWhenRead() {
+        final var error = Evaluator.newError("unknown operator: %s %s %s", "INTEGER", "+", "BOOLEAN");
+
+        assertEquals("ERROR: unknown operator: INTEGER + BOOLEAN", error.inspect());
+        assertEquals(new Error("unknown operator: INTEGER + BOOLEAN"), error);
+        assertEquals(new Error("unknown operator: INTEGER + BOOLEAN").hashCode(), error.hashCode());
+        assertEquals("100% wrong", new Error("100% wrong").getMessage());
+
+        final var evaluated = testEval("let f = fn() { missing }; f();");
+        assertTrue(evaluated instanceof Error, String.format("got=%s", evaluated));
+        assertEquals("identifier not found: missing", ((Error) evaluated).getMessage());
+    }
+
+    @Test
+    public void shouldTagEveryObjectWithItsType() {
+        record test(String input, ObjType expected) {}
+
+        final test[] tests = {
+            new test("5", ObjType.INTEGER),
+            new test("true", ObjType.BOOLEAN),
+            new test("if (false) { 1 }", ObjType.NULL),
+            new test("\"a\"", ObjType.STRING),
+            new test("[1]", ObjType.ARRAY),
+            new test("{1: 2}", ObjType.HASH),
+            new test("fn(x) { x }", ObjType.FUNCTION),
+            new test("len", ObjType.BUILTIN),
+            new test("-true", ObjType.ERROR),
+        };
+
+        for (final test test : tests) {
+            final var evaluated = testEval(test.input());
+            assertEquals(test.expected(), evaluated.objType(), test.input());
+            assertEquals(test.expected().getTag(), evaluated.type(), test.input());
+        }
+
+        assertEquals(ObjConstants.RETURN_VALUE_OBJ, new ReturnValue(Int.of(1)).type());
+    }
+
+}
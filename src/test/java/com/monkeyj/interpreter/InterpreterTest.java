@@ -0,0 +1,229 @@
+package com.monkeyj.interpreter;
+
+import com.monkeyj.ast.Program;
+import com.monkeyj.evaluator.Evaluator;
+import com.monkeyj.lexer.Lexer;
+import com.monkeyj.evaluator.Literals;
+import com.monkeyj.object.Array;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Error;
+import com.monkeyj.object.Int;
+import com.monkeyj.object.Obj;
+import com.monkeyj.object.Str;
+import com.monkeyj.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InterpreterTest {
+
+    @Test
+    public void shouldProduceTheSameResultsAsTheEvaluator() {
+        final String[] inputs = {
+            "5", "-10", "5 + 5 + 5 + 5 - 10", "(5 + 10 * 2 + 15 / 3) * 2 + -10",
+            "1 < 2", "1 > 2", "1 == 1", "1 != 2", "(5 > 5 == true) != false", "!5", "!!true", "!0", "!if (false) { 1 }",
+            "if (1) { 10 }", "if (false) { 10 }", "if (1 > 2) { 10 } else { 20 }",
+            "return 10; 9;", "9; return 2 * 5; 9;",
+            "if (10 > 1) { if (10 > 1) { return 10; } return 1; }",
+            "let a = 5; let b = a; let c = a + b + 5; c;",
+            "let a = 5;",
+            "let identity = fn(x) { return x; }; identity(5);",
+            "let add = fn(x, y) { x + y; }; add(5 + 5, add(5, 5));",
+            "fn(x) { x; }(5)",
+            "let newAdder = fn(x) { fn(y) { x + y }; }; let addTwo = newAdder(2); addTwo(2);",
+            "fn(x) { x + 2; };",
+            "\"Hello\" + \" \" + \"World!\"",
+            "len(\"hello world\")", "len([1, 5, 2])", "last([1, 5, 2])", "first([])", "rest([1, 2, 3, 4])",
+            "let a = [1, 2, 3, 4]; let b = push(a, 98); b",
+            "[1, 2 * 2, 3 + 3]", "let myArray = [1, 2, 3]; let i = myArray[0]; myArray[i]", "[1, 2, 3][3]", "[1][-1]",
+            "{\"foo\": 5}[\"foo\"]", "{\"foo\": 5}[\"bar\"]", "{true: 5}[true]", "{}",
+            "let two = \"two\"; {\"one\": 10 - 9, two: 1 + 1, \"thr\" + \"ee\": 6 / 2, 4: 4, true: 5, false: 6}",
+            "let h = set({1: 1}, \"two\", 2); [keys(delete(h, 1)), values(h), delete(h, 3) == h, set(h, 1)]",
+            "let h = {1: 1, 2: 2}; let g = merge(h, {2: 3, 4: 5}); [g, h, merge(g, h) == h]",
+            "let h = {\"b\": 1, \"a\": 2, 3: 3}; [h, set(h, \"b\", 4), keys(merge({\"z\": 0}, h))]",
+            "let people = [{\"name\": \"Alice\", \"age\": 24}, {\"name\": \"Anna\", \"age\": 28}]; people[1][\"age\"];",
+            "let f = fn() { g() }; let g = fn() { 7 }; f();",
+            "let x = 1; let f = fn() { x }; let x = 2; f();",
+            "let len = fn(x) { 42 }; len(\"abc\")",
+            "let f = fn(x) { x }; f == f", "let f = fn(x) { x }; f != fn(x) { x }", "[1] == [1]", "1 == true",
+            "let x = if (true) { return 5; }; x",
+            "5 + true;", "5; true + false; 5", "-true", "\"Hello\" - \"World\"", "\"a\" == \"a\"",
+            "if (10 > 1) { if (10 > 1) { return true + false; } return 1; }",
+            "foobar", "let f = fn() { foobar }; f()", "first(1)", "len(\"one\", \"two\")", "{fn(x) { x }: 1}",
+            "{\"name\": \"Monkey\"}[fn(x) { x }];", "1[0]", "[1, 2][true]", "5()", "[len(1), 2]", "{1: foo}",
+            "let f = fn(x) { x * 2 }; f(1, 2);",
+            "let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } }; fib(15);",
+            "let add = fn(a, b) { a + b }; [add(1, 2), add(\"a\", \"b\"), add(3, 4)]",
+            "let add = fn(a, b) { a * 2 + b }; [add(1, 2), add(3, true)]",
+            "let neg = fn(a) { -a }; [neg(1), neg(2)]; neg(\"a\")",
+            "let x = 1; let f = fn() { let y = x; let x = 2; [y, x] }; f()",
+            "let f = fn() { if (true) { let z = 3; }; z }; f()",
+            "let f = fn() { let g = fn() { y }; let y = 2; g() }; f()",
+            "let f = fn(x, x) { x }; f(1, 2)",
+            "let f = fn() { let a = 1; fn() { let b = 2; fn() { a + b + c } } }; let c = 3; f()()()",
+            "let f = fn(len) { len }; f(5)",
+            "let f = fn() { let r = len; let len = 3; [r, len] }; f()",
+            "if (true) { let q = 4 }; q",
+            "let f = fn() { let g = fn() { puts(1) }; let n = g(); n }; f()",
+            "let get = fn(c, i) { c[i] }; [get([1, 2], 1), get({\"a\": 1}, \"a\"), get([3], 0), get([3], \"x\")]",
+        };
+
+        for (final String input : inputs) {
+            final var expected = Evaluator.eval(parse(input), new Environment());
+            final var actual = Interpreter.eval(parse(input), new Environment());
+
+            assertEquals(expected == null, actual == null, String.format("For input: `%s`", input));
+            if (expected != null) {
+                assertEquals(expected.type(), actual.type(), String.format("For input: `%s`", input));
+                assertEquals(expected.inspect(), actual.inspect(), String.format("For input: `%s`", input));
+            }
+        }
+    }
+
+    @Test
+    public void shouldEliminateTailCallsLikeTheEvaluator() {
+        final String[] inputs = {
+            """
+            let counter = fn(x) { if (x > 5000) { return true; } else { let foobar = 9999; counter(x + 1); } };
+            counter(0);""",
+            """
+            let even = fn(n) { if (n == 0) { true } else { odd(n - 1) } };
+            let odd = fn(n) { if (n == 0) { false } else { even(n - 1) } };
+            even(100001);""",
+            "let f = fn(n) { if (n == 0) { return 7; } return f(n - 1); }; f(100000);",
+            "let f = fn(n) { return if (n == 0) { 8 } else { f(n - 1) }; }; f(100000);",
+            "let f = fn(n, acc) { if (n == 0) { acc } else { f(n - 1, acc + 1) } }; f(100000, 0);",
+            "let f = fn(n) { if (n == 0) { len(\"abc\") } else { f(n - 1) } }; f(100000);",
+            "let f = fn(n) { if (n == 0) { 1 } else { 1 + f(n - 1) } }; f(100);",
+            "let f = fn() { let x = if (true) { return g(); }; 2 }; let g = fn() { 5 }; f()",
+            "let f = fn() { 5(1) }; f()",
+        };
+
+        for (final String input : inputs) {
+            final var expected = Evaluator.eval(parse(input), new Environment());
+            final var actual = Interpreter.eval(parse(input), new Environment());
+
+            assertEquals(expected.type(), actual.type(), String.format("For input: `%s`", input));
+            assertEquals(expected.inspect(), actual.inspect(), String.format("For input: `%s`", input));
+        }
+    }
+
+    @Test
+    public void shouldSpecializeOnTypeFeedback() {
+        record test(String input, String[] names, Obj[][] bindings, String[] expected, int[] states) {}
+
+        final test[] tests = {
+            new test("a + b", new String[] {"a", "b"}
+                , new Obj[][] {{Int.of(1), Int.of(2)}, {Int.of(3), Int.of(4)}, {Str.of("x"), Str.of("y")}, {Int.of(1), Int.of(1)}}
+                , new String[] {"3", "7", "xy", "2"}
+                , new int[] {Specialization.INTS, Specialization.INTS, Specialization.GENERIC, Specialization.GENERIC}),
+            new test("a + b", new String[] {"a", "b"}
+                , new Obj[][] {{Str.of("x"), Str.of("y")}, {Int.of(1), Int.of(2)}}
+                , new String[] {"xy", "3"}
+                , new int[] {Specialization.STRINGS, Specialization.GENERIC}),
+            new test("a * b + c", new String[] {"a", "b", "c"}
+                , new Obj[][] {{Int.of(2), Int.of(3), Int.of(4)}, {Int.of(2), Int.of(3), Literals.TRUE}}
+                , new String[] {"10", "ERROR: unknown operator: INTEGER + BOOLEAN"}
+                , new int[] {Specialization.INTS, Specialization.GENERIC}),
+            new test("a < b", new String[] {"a", "b"}
+                , new Obj[][] {{Int.of(1), Int.of(2)}, {Int.of(1), Literals.NULL}}
+                , new String[] {"true", "ERROR: unknown operator: INTEGER < NULL"}
+                , new int[] {Specialization.INTS, Specialization.GENERIC}),
+            new test("-a", new String[] {"a"}
+                , new Obj[][] {{Int.of(1)}, {Literals.TRUE}}
+                , new String[] {"-1", "ERROR: unknown operator: -BOOLEAN"}
+                , new int[] {Specialization.INTS, Specialization.GENERIC}),
+            new test("a[b]", new String[] {"a", "b"}
+                , new Obj[][] {{new Array(List.of(Int.of(5))), Int.of(0)}, {new Array(List.of(Int.of(5))), Int.of(1)}, {new Array(List.of(Int.of(5))), Str.of("k")}}
+                , new String[] {"5", "null", "ERROR: index operator not supported: ARRAY"}
+                , new int[] {Specialization.ARRAY_INT, Specialization.ARRAY_INT, Specialization.GENERIC}),
+        };
+
+        for (final test test : tests) {
+            final var node = Interpreter.compile(parse(test.input()).getStatements().get(0));
+
+            for (int i = 0; i < test.bindings().length; i++) {
+                final var env = new Environment();
+                for (int j = 0; j < test.names().length; j++) {
+                    env.set(test.names()[j], test.bindings()[i][j]);
+                }
+
+                final var result = node.execute(env);
+                final var actual = result instanceof Error error ? "ERROR: " + error.getMessage() : result.inspect();
+                assertEquals(test.expected()[i], actual, String.format("For input: `%s`, run %d", test.input(), i));
+                assertEquals(test.states()[i], state(node), String.format("For input: `%s`, run %d", test.input(), i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRunACompiledProgramMoreThanOnce() {
+        final var program = Interpreter.compile(parse("let counter = fn(x) { if (x > 100) { x } else { counter(x + 1) } }; counter(0);"));
+
+        for (int i = 0; i < 3; i++) {
+            final var result = program.execute(new Environment());
+            assertEquals(101, ((Int) result).getValue());
+        }
+    }
+
+    @Test
+    public void shouldShareTheEnvironmentWithTheEvaluator() {
+        final var env = new Environment();
+
+        Evaluator.eval(parse("let double = fn(x) { x * 2 };"), env);
+        Interpreter.eval(parse("let quad = fn(x) { double(double(x)) };"), env);
+
+        assertEquals("12", Interpreter.eval(parse("quad(3)"), env).inspect());
+        assertEquals("20", Evaluator.eval(parse("quad(5)"), env).inspect());
+
+        final var enclosed = Environment.newEnclosedEnvironment(env);
+        assertEquals("8", Interpreter.eval(parse("let double = fn(x) { x }; quad(2)"), enclosed).inspect());
+        assertEquals("2", Interpreter.eval(parse("double(2)"), enclosed).inspect());
+        assertEquals("4", Interpreter.eval(parse("double(2)"), env).inspect());
+    }
+
+    @Test
+    public void shouldLeaveTheEnvironmentAloneWhenReadingGlobals() {
+        final var env = new Environment();
+        final var expected = new Environment();
+        Evaluator.eval(parse("let a = 1;"), env);
+        Evaluator.eval(parse("let a = 1;"), expected);
+
+        Interpreter.eval(parse("len(\"ab\"); a; misspelled"), env);
+
+        assertEquals(expected, env);
+        assertEquals(expected.hashCode(), env.hashCode());
+        assertEquals(expected.toString(), env.toString());
+
+        Interpreter.eval(parse("let f = fn() { later };"), env);
+        assertEquals("ERROR: identifier not found: later", Interpreter.eval(parse("f()"), env).inspect());
+        Interpreter.eval(parse("let later = 5;"), env);
+        assertEquals("5", Interpreter.eval(parse("f()"), env).inspect());
+    }
+
+    @Test
+    public void shouldFailLikeTheEvaluatorWithMissingArguments() {
+        assertThrows(IndexOutOfBoundsException.class, () -> Interpreter.eval(parse("fn(x, y) { x }(1)"), new Environment()));
+    }
+
+    private static int state(final ExecutableNode node) {
+        if (node instanceof InfixNode infix) {
+            return infix.state;
+        } else if (node instanceof NegateNode negate) {
+            return negate.state;
+        }
+
+        return ((IndexNode) node).state;
+    }
+
+    private static Program parse(final String input) {
+        final var parser = new Parser(new Lexer(input));
+        final var program = parser.parseProgram();
+        assertTrue(parser.errors().isEmpty(), parser.errors().toString());
+
+        return program;
+    }
+
+}
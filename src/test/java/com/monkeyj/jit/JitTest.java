@@ -0,0 +1,178 @@
+package com.monkeyj.jit;
+
+import com.monkeyj.evaluator.Evaluator;
+import com.monkeyj.lexer.Lexer;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Function;
+import com.monkeyj.object.Obj;
+import com.monkeyj.parser.Parser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JitTest {
+
+    @BeforeEach
+    public void enableJit() {
+        Jit.setEnabled(true);
+        Jit.setThreshold(0);
+    }
+
+    @AfterEach
+    public void disableJit() {
+        Jit.setEnabled(false);
+        Jit.setThreshold(Jit.DEFAULT_THRESHOLD);
+    }
+
+    @Test
+    public void shouldCompileIntegerFunctions() {
+        record test(String input, String fn) {}
+
+        final test[] tests = {
+            new test("let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } };", "fib"),
+            new test("let max = fn(a, b) { if (a > b) { return a; } b };", "max"),
+            new test("let isEven = fn(n) { if (n == 0) { true } else { !isEven(n - 1) } };", "isEven"),
+            new test("let f = fn(x) { let y = x * 2; let y = y + 1; -y / 3 };", "f"),
+            new test("let k = fn() { 1000000 };", "k"),
+            new test("let loop = fn(n, acc) { if (n == 0) { acc } else { loop(n - 1, acc + 1) } };", "loop"),
+            new test("let loop = fn(n) { return if (n == 0) { true } else { loop(n - 1) }; };", "loop"),
+        };
+
+        for (final test test : tests) {
+            final var env = new Environment();
+            eval(test.input(), env);
+
+            final var fn = (Function) env.get(test.fn());
+            assertTrue(Jit.isCompiled(fn), String.format("expected %s to be compiled", test.input()));
+        }
+    }
+
+    @Test
+    public void shouldNotCompileUnsupportedFunctions() {
+        final String[] inputs = {
+            "let f = fn(x) { x + \"a\" };",
+            "let f = fn(x) { if (x > 1) { 1 } };",
+            "let f = fn(x) { [x] };",
+            "let f = fn(x) { let g = fn(y) { y }; g(x) };",
+            "let f = fn(x) { if (x > 1) { true } else { 1 } };",
+            "let f = fn(x) { let a = 1; };",
+            "let f = fn(x) { -true };",
+        };
+
+        for (final String input : inputs) {
+            final var env = new Environment();
+            eval(input, env);
+
+            final var fn = (Function) env.get("f");
+            assertFalse(Jit.isCompiled(fn), String.format("expected %s to stay interpreted", input));
+        }
+    }
+
+    @Test
+    public void shouldProduceTheSameResultsAsTheEvaluator() {
+        final String[] inputs = {
+            "let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } }; fib(20);",
+            "let max = fn(a, b) { if (a > b) { return a; } b }; max(3, 9) + max(9, 3);",
+            "let isEven = fn(n) { if (n == 0) { true } else { !isEven(n - 1) } }; isEven(10);",
+            "let f = fn(x) { let y = x * 2; let y = y + 1; -y / 3 }; f(10);",
+            "let f = fn(x) { if (x) { 1 } else { 2 } }; f(0);",
+            "let f = fn(x) { x != 3 == true }; f(3);",
+            "let f = fn(x) { 2147483647 + x }; f(1);",
+            "let f = fn(x) { x * 2 }; f(\"a\");",
+            "let f = fn(x) { x * 2 }; f(true);",
+            "let f = fn(x) { x * 2 }; f(1, 2);",
+            "let f = fn(x) { len(x) }; f(3);",
+            "let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } }; let g = fib; let fib = 5; g(3);",
+        };
+
+        for (final String input : inputs) {
+            final var compiled = eval(input, new Environment());
+
+            Jit.setEnabled(false);
+            final var interpreted = eval(input, new Environment());
+            Jit.setEnabled(true);
+
+            assertEquals(interpreted.inspect(), compiled.inspect(), String.format("For input: `%s`", input));
+        }
+    }
+
+    @Test
+    public void shouldCountInvocationsAndLoopBacks() {
+        record test(String input, String fn, long invocations, long loopBacks) {}
+
+        final test[] tests = {
+            new test("let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } }; fib(10);", "fib", 177, 176),
+            new test("let f = fn(x) { x }; f(1); f(2); f(3);", "f", 3, 0),
+            new test("let f = fn(x) { x }; let g = fn(x) { f(x) + f(x) }; g(1); g(2);", "f", 4, 0),
+            new test("let f = fn(x) { x }; let g = fn(x) { f(x) + f(x) }; g(1); g(2);", "g", 2, 0),
+            new test("let f = fn(x) { x };", "f", 0, 0),
+        };
+
+        Jit.setEnabled(false);
+        for (final test test : tests) {
+            final var env = new Environment();
+            eval(test.input(), env);
+
+            final var literal = ((Function) env.get(test.fn())).getLiteral();
+            assertEquals(test.invocations(), literal.getInvocationCount(), test.input());
+            assertEquals(test.loopBacks(), literal.getLoopBackCount(), test.input());
+        }
+    }
+
+    @Test
+    public void shouldPromoteOnlyOnceTheThresholdIsCrossed() {
+        final List<Promotion> promotions = new ArrayList<>();
+        final Consumer<Promotion> listener = promotions::add;
+        Jit.addPromotionListener(listener);
+        Jit.setThreshold(100);
+
+        try {
+            final var env = new Environment();
+            eval("let fib = fn(x) { if (x < 2) { x } else { fib(x - 1) + fib(x - 2) } }; let f = fn(x) { [x] };", env);
+
+            assertEquals("3", eval("fib(4);", env).inspect());
+            assertTrue(promotions.isEmpty());
+
+            assertEquals("6765", eval("fib(20);", env).inspect());
+            assertEquals(1, promotions.size());
+
+            final var promotion = promotions.get(0);
+            assertSame(((Function) env.get("fib")).getLiteral(), promotion.function());
+            assertTrue(promotion.compiled());
+            assertTrue(promotion.invocations() + promotion.loopBacks() >= 100);
+            // fib(20) alone is 21891 calls, so most of them must have run natively.
+            assertTrue(promotion.invocations() < 100, String.valueOf(promotion.invocations()));
+
+            eval("f(1); f(2);", env);
+            assertEquals(1, promotions.size());
+
+            Jit.setThreshold(2);
+            eval("f(3);", env);
+            assertEquals(2, promotions.size());
+            assertFalse(promotions.get(1).compiled());
+            assertNotNull(promotions.get(1).reason());
+        } finally {
+            Jit.removePromotionListener(listener);
+        }
+    }
+
+    @Test
+    public void shouldThrowTheSameExceptionOnDivisionByZero() {
+        assertThrows(ArithmeticException.class, () -> eval("let f = fn(x) { 1 / x }; f(0);", new Environment()));
+    }
+
+    private static Obj eval(final String input, final Environment env) {
+        final var parser = new Parser(new Lexer(input));
+        final var program = parser.parseProgram();
+        assertTrue(parser.errors().isEmpty(), parser.errors().toString());
+
+        return Evaluator.eval(program, env);
+    }
+
+}
@@ -1,6 +1,14 @@
 package com.monkeyj.lexer;
 
+import com.monkeyj.token.TokenKind;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static com.monkeyj.token.TokenConstants.*;
 
@@ -530,4 +538,113 @@ if (5 < 10) {
         }
     }
 
+    @Test
+    public void shouldStreamTheSameTokensOverAnyCharSequence() {
+        final String INPUT = """
+let add = fn(x, y) { x + y; };
+let result = add(5, 10) != 9 == !true;
+{"foo bar": [1, 2]}["foo bar"] @ "unterminated""";
+
+        final var tokens = new Lexer(INPUT);
+        final var chars = new Lexer(INPUT.toCharArray());
+        final var builder = new Lexer(new StringBuilder(INPUT));
+
+        while (true) {
+            final var tok = tokens.nextToken();
+            for (final var lex : new Lexer[] {chars, builder}) {
+                final int kind = lex.next();
+
+                assertEquals(tok.type(), TokenKind.type(kind));
+                assertEquals(kind, lex.kind());
+                assertEquals(tok.literal(), lex.literal());
+                assertEquals(tok.literal(), INPUT.substring(lex.start(), lex.end()), tok.type());
+            }
+
+            if (tok.type().equals(EOF)) {
+                break;
+            }
+        }
+    }
+
+    @Test
+    public void shouldShareTheLiteralsOfFixedTokens() {
+        final var lex = new Lexer("let x = fn() { x == y };");
+
+        record test(int expectedKind, String expectedLiteral, boolean shared) {}
+
+        final test[] tests = {
+                new test(TokenKind.LET, "let", true),
+                new test(TokenKind.IDENT, "x", false),
+                new test(TokenKind.ASSIGN, "=", true),
+                new test(TokenKind.FUNCTION, "fn", true),
+                new test(TokenKind.LPAREN, "(", true),
+                new test(TokenKind.RPAREN, ")", true),
+                new test(TokenKind.LBRACE, "{", true),
+                new test(TokenKind.IDENT, "x", false),
+                new test(TokenKind.EQ, "==", true),
+                new test(TokenKind.IDENT, "y", false),
+                new test(TokenKind.RBRACE, "}", true),
+                new test(TokenKind.SEMICOLON, ";", true),
+                new test(TokenKind.EOF, "", true),
+        };
+
+        for (final test test : tests) {
+            assertEquals(test.expectedKind(), lex.next());
+            assertEquals(test.expectedLiteral(), lex.literal());
+            if (test.shared()) {
+                assertSame(TokenKind.literal(test.expectedKind()), lex.literal());
+            }
+        }
+    }
+
+    @Test
+    public void shouldLexAMappedFileLikeTheSameString(@TempDir final Path dir) throws IOException {
+        final String INPUT = """
+let greet = fn(name) { "héllo, " + name + " 😀" };
+let places = {"Zürich": 1, "東京": 2};
+greet("wörld") + places["東京"];
+""";
+        final var file = dir.resolve("unicode.mnk");
+        Files.writeString(file, INPUT, StandardCharsets.UTF_8);
+
+        final var expected = new Lexer(INPUT);
+        final var mapped = new Lexer(MappedSource.open(file));
+
+        while (true) {
+            final var tok = expected.nextToken();
+            assertEquals(tok, mapped.nextToken());
+            if (tok.type().equals(EOF)) {
+                break;
+            }
+        }
+    }
+
+    @Test
+    public void shouldDecodeMappedBytesWhereverTheyAreRead() {
+        final byte[] bytes = {
+                'a',
+                (byte) 0xC3, (byte) 0xA9,                           // é
+                (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80, // 😀, two chars
+                (byte) 0xE2, (byte) 0x82,                           // cut short
+                'b',
+                (byte) 0x80,                                        // stray continuation byte
+                (byte) 0xED, (byte) 0xA0, (byte) 0x80,              // an encoded surrogate
+                'c',
+        };
+        final String expected = "aé😀\uFFFD\uFFFDb\uFFFD\uFFFD\uFFFD\uFFFDc";
+
+        final var source = new MappedSource(ByteBuffer.wrap(bytes));
+
+        assertEquals(expected.length(), source.length());
+        assertEquals(expected, source.toString());
+        for (int i = expected.length() - 1; i >= 0; i--) {
+            assertEquals(expected.charAt(i), source.charAt(i), String.format("char %d", i));
+        }
+        for (int i = 0; i < expected.length(); i += 3) {
+            assertEquals(expected.charAt(i), source.charAt(i), String.format("char %d", i));
+            assertEquals(expected.substring(i / 2, i), source.subSequence(i / 2, i).toString());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> source.charAt(expected.length()));
+    }
+
 }
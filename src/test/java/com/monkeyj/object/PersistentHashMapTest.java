@@ -0,0 +1,234 @@
+package com.monkeyj.object;
+
+import com.monkeyj.evaluator.Literals;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentHashMapTest {
+
+    @Test
+    public void shouldLookUpKeysByValue() {
+        final var map = PersistentHashMap.EMPTY
+                .put(new HashPair(Int.of(1), Str.of("int")))
+                .put(new HashPair(Literals.TRUE, Str.of("bool")))
+                .put(new HashPair(Str.of("one"), Str.of("str")));
+
+        record test(Obj key, String expected) {}
+
+        final test[] tests = {
+                new test(Int.of(1), "int"),
+                new test(Bool.of(true), "bool"),
+                new test(Str.of("one"), "str"),
+                new test(Int.of(2), null),
+                new test(Literals.FALSE, null),
+                new test(Str.of("two"), null),
+        };
+
+        for (final test tt : tests) {
+            final var pair = map.lookup((Hashable) tt.key());
+            if (tt.expected() == null) {
+                assertNull(pair, tt.key().inspect());
+            } else {
+                assertEquals(tt.expected(), pair.getValue().inspect(), tt.key().inspect());
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepStringsWithTheSameHashCodeApart() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        final var map = PersistentHashMap.EMPTY
+                .put(new HashPair(Str.of("Aa"), Int.of(1)))
+                .put(new HashPair(Str.of("BB"), Int.of(2)))
+                .put(new HashPair(Str.of("AaAa"), Int.of(3)));
+
+        assertEquals(3, map.size());
+        assertEquals(Int.of(1), map.lookup(Str.of("Aa")).getValue());
+        assertEquals(Int.of(2), map.lookup(Str.of("BB")).getValue());
+        assertNotEquals(Str.of("Aa").hashKey(), Str.of("BB").hashKey());
+        assertEquals(Str.of("Aa").hashKey(), Str.of("Aa").hashKey());
+        assertEquals(Int.of(1), map.get(Str.of("Aa").hashKey()).getValue());
+        assertEquals(Int.of(2), map.get(Str.of("BB").hashKey()).getValue());
+
+        final var removed = map.remove(Str.of("Aa"));
+        assertEquals(2, removed.size());
+        assertNull(removed.get(Str.of("Aa").hashKey()));
+        assertNull(removed.lookup(Str.of("Aa")));
+        assertEquals(Int.of(2), removed.lookup(Str.of("BB")).getValue());
+        assertEquals(Int.of(3), removed.lookup(Str.of("AaAa")).getValue());
+        assertSame(removed, removed.remove(Str.of("Aa")));
+    }
+
+    @Test
+    public void shouldLeaveEveryVersionUnchanged() {
+        final var random = new Random(17);
+        final Map<Integer, Integer> expected = new HashMap<>();
+        final List<Map<Integer, Integer>> expectedVersions = new ArrayList<>();
+        final List<PersistentHashMap> versions = new ArrayList<>();
+
+        var map = PersistentHashMap.EMPTY;
+        for (int i = 0; i < 20000; i++) {
+            // Negative and widely spread keys fill every level of the trie.
+            final int key = random.nextInt(5000) * (random.nextBoolean() ? 1 : -65537);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(Int.of(key));
+            } else {
+                expected.put(key, i);
+                map = map.put(new HashPair(Int.of(key), Int.of(i)));
+            }
+
+            if (i % 1000 == 0) {
+                expectedVersions.add(new HashMap<>(expected));
+                versions.add(map);
+            }
+        }
+        expectedVersions.add(expected);
+        versions.add(map);
+
+        for (int v = 0; v < versions.size(); v++) {
+            final var version = versions.get(v);
+            final var values = expectedVersions.get(v);
+
+            assertEquals(values.size(), version.size());
+            assertEquals(values.size(), version.values().size());
+            values.forEach((key, value) -> assertEquals(Int.of(value), version.lookup(Int.of(key)).getValue()));
+            version.values().forEach(pair -> assertTrue(values.containsKey(((Int) pair.getKey()).getValue())));
+        }
+    }
+
+    @Test
+    public void shouldMergeWithoutChangingEitherMap() {
+        final var random = new Random(23);
+
+        for (int i = 0; i < 200; i++) {
+            final Map<Integer, Integer> expectedLeft = new HashMap<>();
+            final Map<Integer, Integer> expectedRight = new HashMap<>();
+            var leftMap = PersistentHashMap.EMPTY;
+            var rightMap = PersistentHashMap.EMPTY;
+            final int size = random.nextInt(i < 100 ? 40 : 4000);
+            for (int j = 0; j < size; j++) {
+                final int key = random.nextInt(3 * size + 1) * (random.nextBoolean() ? 1 : -65537);
+                if (random.nextBoolean()) {
+                    expectedLeft.put(key, j);
+                    leftMap = leftMap.put(new HashPair(Int.of(key), Int.of(j)));
+                } else {
+                    expectedRight.put(key, -j);
+                    rightMap = rightMap.put(new HashPair(Int.of(key), Int.of(-j)));
+                }
+            }
+
+            final var left = leftMap;
+            final var right = rightMap;
+            final Map<Integer, Integer> expected = new HashMap<>(expectedLeft);
+            expected.putAll(expectedRight);
+            final var merged = left.merge(right);
+
+            assertEquals(expected.size(), merged.size());
+            assertEquals(expected.size(), merged.values().size());
+            expected.forEach((key, value) -> assertEquals(Int.of(value), merged.lookup(Int.of(key)).getValue()));
+            assertEquals(expectedLeft.size(), left.size());
+            expectedLeft.forEach((key, value) -> assertEquals(Int.of(value), left.lookup(Int.of(key)).getValue()));
+            assertEquals(expectedRight.size(), right.size());
+            expectedRight.forEach((key, value) -> assertEquals(Int.of(value), right.lookup(Int.of(key)).getValue()));
+        }
+    }
+
+    @Test
+    public void shouldMergeStringsWithTheSameHashCode() {
+        final var left = PersistentHashMap.EMPTY
+                .put(new HashPair(Str.of("Aa"), Int.of(1)))
+                .put(new HashPair(Str.of("BB"), Int.of(2)))
+                .put(new HashPair(Str.of("x"), Int.of(3)));
+        final var right = PersistentHashMap.EMPTY
+                .put(new HashPair(Str.of("BB"), Int.of(20)))
+                .put(new HashPair(Str.of("AaBB"), Int.of(40)));
+
+        final var merged = left.merge(right);
+        assertEquals(4, merged.size());
+        assertEquals(Int.of(1), merged.lookup(Str.of("Aa")).getValue());
+        assertEquals(Int.of(20), merged.lookup(Str.of("BB")).getValue());
+        assertEquals(Int.of(3), merged.lookup(Str.of("x")).getValue());
+        assertEquals(Int.of(40), merged.lookup(Str.of("AaBB")).getValue());
+
+        final var reversed = right.merge(left);
+        assertEquals(4, reversed.size());
+        assertEquals(Int.of(2), reversed.lookup(Str.of("BB")).getValue());
+
+        assertEquals(Int.of(2), left.lookup(Str.of("BB")).getValue());
+        assertEquals(3, left.size());
+        assertEquals(Int.of(20), right.lookup(Str.of("BB")).getValue());
+        assertEquals(2, right.size());
+
+        assertSame(left, left.merge(PersistentHashMap.EMPTY));
+        assertSame(right, PersistentHashMap.EMPTY.merge(right));
+        assertEquals(left, left.merge(left));
+    }
+
+    @Test
+    public void shouldKeepInsertionOrder() {
+        final var map = PersistentHashMap.EMPTY
+                .put(new HashPair(Str.of("b"), Int.of(1)))
+                .put(new HashPair(Str.of("a"), Int.of(2)))
+                .put(new HashPair(Int.of(3), Int.of(3)))
+                .put(new HashPair(Str.of("Aa"), Int.of(4)))
+                .put(new HashPair(Str.of("BB"), Int.of(5)))
+                .put(new HashPair(Str.of("b"), Int.of(6)));
+
+        assertEquals("[b: 6, a: 2, 3: 3, Aa: 4, BB: 5]", inspect(map));
+        assertEquals("[a: 2, 3: 3, Aa: 4, BB: 5, b: 7]",
+                inspect(map.remove(Str.of("b")).put(new HashPair(Str.of("b"), Int.of(7)))));
+
+        final var small = PersistentHashMap.EMPTY
+                .put(new HashPair(Str.of("z"), Int.of(8)))
+                .put(new HashPair(Str.of("a"), Int.of(9)));
+        // The keys only the second map has come last, whichever map is the larger one.
+        assertEquals("[b: 6, a: 9, 3: 3, Aa: 4, BB: 5, z: 8]", inspect(map.merge(small)));
+        assertEquals("[z: 8, a: 2, b: 6, 3: 3, Aa: 4, BB: 5]", inspect(small.merge(map)));
+        assertEquals("[z: 8, a: 2, b: 6, 3: 3, Aa: 4, BB: 5, y: 0]",
+                inspect(small.merge(map).put(new HashPair(Str.of("y"), Int.of(0)))));
+
+        final var random = new Random(31);
+        var large = PersistentHashMap.EMPTY;
+        final List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final int key = random.nextInt();
+            if (large.lookup(Int.of(key)) == null) {
+                keys.add(key);
+            }
+            large = large.put(new HashPair(Int.of(key), Int.of(i)));
+        }
+        final List<Integer> actual = new ArrayList<>();
+        large.values().forEach(pair -> actual.add(((Int) pair.getKey()).getValue()));
+        assertEquals(keys, actual);
+    }
+
+    private static String inspect(final PersistentHashMap map) {
+        final List<String> pairs = new ArrayList<>();
+        map.values().forEach(pair -> pairs.add(pair.getKey().inspect() + ": " + pair.getValue().inspect()));
+        return pairs.toString();
+    }
+
+    @Test
+    public void shouldStillBeAMapOfHashKeys() {
+        final var map = PersistentHashMap.EMPTY
+                .put(new HashPair(Int.of(4), Int.of(40)))
+                .put(new HashPair(Literals.FALSE, Int.of(0)));
+
+        assertEquals(Int.of(40), map.get(Int.of(4).hashKey()).getValue());
+        assertEquals(Int.of(0), map.get(Literals.FALSE.hashKey()).getValue());
+        assertNull(map.get(Int.of(0).hashKey()));
+        assertTrue(map.containsKey(Literals.FALSE.hashKey()));
+        assertEquals(2, map.keySet().size());
+        assertEquals(map, PersistentHashMap.of(Map.copyOf(map)));
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.monkeyj.object;
+
+import com.monkeyj.evaluator.Literals;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentVectorTest {
+
+    @Test
+    public void shouldPushAcrossSeveralLevelsOfTheTrie() {
+        final int[] sizes = {0, 1, 31, 32, 33, 64, 1024, 1056, 1057, 40000};
+
+        for (final int size : sizes) {
+            var vector = PersistentVector.EMPTY;
+            final List<Obj> expected = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                vector = vector.push(Int.of(i));
+                expected.add(Int.of(i));
+            }
+
+            assertEquals(expected, vector, String.format("pushing %d elements", size));
+            assertEquals(expected, PersistentVector.of(expected), String.format("building %d elements", size));
+        }
+    }
+
+    @Test
+    public void shouldKeepEveryVersionUnchanged() {
+        final var base = PersistentVector.of(List.of(Int.of(1), Int.of(2), Int.of(3)));
+
+        final var pushed = base.push(Int.of(4));
+        final var other = base.push(Int.of(5));
+        final var rest = base.rest();
+
+        assertEquals(List.of(Int.of(1), Int.of(2), Int.of(3)), base);
+        assertEquals(List.of(Int.of(1), Int.of(2), Int.of(3), Int.of(4)), pushed);
+        assertEquals(List.of(Int.of(1), Int.of(2), Int.of(3), Int.of(5)), other);
+        assertEquals(List.of(Int.of(2), Int.of(3)), rest);
+        assertEquals(List.of(Int.of(2), Int.of(3), Int.of(6)), rest.push(Int.of(6)));
+        assertThrows(IndexOutOfBoundsException.class, () -> rest.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> rest.get(-1));
+    }
+
+    @Test
+    public void shouldDropElementsFromTheFrontWithRest() {
+        final List<Obj> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            expected.add(Int.of(i));
+        }
+
+        var vector = PersistentVector.of(expected);
+        for (int dropped = 1; dropped < expected.size(); dropped++) {
+            vector = vector.rest().push(Int.of(-dropped));
+            expected.remove(0);
+            expected.add(Int.of(-dropped));
+
+            if (dropped % 97 == 0) {
+                assertEquals(expected, vector, String.format("after %d rests", dropped));
+            }
+        }
+
+        assertEquals(expected, vector);
+        assertEquals(0, PersistentVector.of(List.of(Int.of(1))).rest().size());
+    }
+
+    @Test
+    public void shouldStoreIntegersAsPrimitivesUntilSomethingElseIsPushed() {
+        final List<Obj> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add(Int.of(i * 100000));
+        }
+
+        final var ints = PersistentVector.of(values);
+        assertTrue(ints.isIntegerOnly());
+        assertTrue(PersistentVector.EMPTY.push(Int.of(1)).isIntegerOnly());
+        assertEquals(values, ints);
+
+        final var str = Str.of("a");
+        final var mixed = ints.rest().push(str);
+        values.remove(0);
+        values.add(str);
+        assertFalse(mixed.isIntegerOnly());
+        assertEquals(values, mixed);
+        assertTrue(ints.isIntegerOnly());
+        assertEquals(Int.of(0), ints.get(0));
+
+        assertFalse(PersistentVector.EMPTY.push(Literals.NULL).isIntegerOnly());
+        assertFalse(PersistentVector.of(List.of(Int.of(1), Literals.TRUE)).isIntegerOnly());
+    }
+
+}
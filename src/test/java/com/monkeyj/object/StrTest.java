@@ -0,0 +1,71 @@
+package com.monkeyj.object;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StrTest {
+
+    @Test
+    public void shouldConcatenateIntoTheSameCharactersAsStrings() {
+        record test(String left, String right) {}
+
+        final test[] tests = {
+                new test("", ""),
+                new test("Hello", " World!"),
+                new test("", "a".repeat(100)),
+                new test("a".repeat(100), ""),
+                new test("a".repeat(31), "b"),
+                new test("a".repeat(100), "b".repeat(100)),
+        };
+
+        for (final test tt : tests) {
+            final var concatenated = Str.concat(Str.of(tt.left()), Str.of(tt.right()));
+
+            assertEquals(tt.left().length() + tt.right().length(), concatenated.length());
+            assertEquals(tt.left() + tt.right(), concatenated.getValue());
+            assertEquals(tt.left() + tt.right(), concatenated.inspect());
+        }
+    }
+
+    @Test
+    public void shouldFlattenDeepRopesInEitherDirection() {
+        final int pieces = 200_000;
+        final var piece = Str.of("x".repeat(40));
+
+        var leftDeep = Str.of("");
+        var rightDeep = Str.of("");
+        for (int i = 0; i < pieces; i++) {
+            leftDeep = Str.concat(leftDeep, piece);
+            rightDeep = Str.concat(piece, rightDeep);
+        }
+
+        assertEquals(40 * pieces, leftDeep.length());
+        assertEquals("x".repeat(40 * pieces), leftDeep.getValue());
+        assertEquals("x".repeat(40 * pieces), rightDeep.getValue());
+        assertEquals("x".repeat(40), piece.getValue());
+    }
+
+    @Test
+    public void shouldLeaveTheRopesItWasBuiltFromAlone() {
+        final var hello = Str.concat(Str.of("Hello, "), Str.of("x".repeat(40)));
+        final var first = Str.concat(hello, Str.of("!"));
+        final var second = Str.concat(hello, Str.of("?"));
+
+        assertEquals("Hello, " + "x".repeat(40) + "!", first.getValue());
+        assertEquals("Hello, " + "x".repeat(40) + "?", second.getValue());
+        assertEquals("Hello, " + "x".repeat(40), hello.getValue());
+    }
+
+    @Test
+    public void shouldBeTheSameHashKeyAsTheFlatString() {
+        final var rope = Str.concat(Str.concat(Str.of("a".repeat(20)), Str.of("b".repeat(20))), Str.of("c"));
+        final var flat = Str.of("a".repeat(20) + "b".repeat(20) + "c");
+
+        assertEquals(flat.keyHash(), rope.keyHash());
+        assertTrue(rope.keyEquals(flat));
+        assertTrue(flat.keyEquals(rope));
+        assertEquals(flat.hashKey(), rope.hashKey());
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.monkeyj.parser;
+
+import com.monkeyj.ast.Program;
+import com.monkeyj.ast.Statement;
+import com.monkeyj.lexer.Lexer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalParserTest {
+
+    private static final String INPUT = """
+let five = 5;
+let add = fn(x, y) {
+    x + y;
+};
+let result = add(five, 10);
+"hello" + " " + "world";
+let map = {"one": 1, "two": 2};
+if (result > 10) { return true; } else { return false; }
+""";
+
+    @Test
+    public void shouldParseEditsLikeTheWholeText() {
+        record test(int offset, int removed, String inserted) {}
+
+        final test[] tests = {
+                new test(INPUT.indexOf("10)"), 2, "12"),                  // inside a statement
+                new test(0, 0, "let zero = 0;\n"),                        // before the first one
+                new test(0, 0, "   "),                                    // leading whitespace only
+                new test(INPUT.indexOf(";\nlet add") + 17, 1, ""),        // a semicolon, joining two statements
+                new test(INPUT.indexOf("let map") + 16, 0, "\""),         // a string that never ends
+                new test(INPUT.indexOf("let map") + 16, 1, ""),           // and is closed again
+                new test(INPUT.indexOf("let map") + 16, 0, "let = ;"),    // statements that do not parse
+                new test(INPUT.indexOf("let map") + 16, 7, ""),
+                new test(INPUT.length() + 16, 0, "five"),                 // at the end
+                new test(INPUT.length() + 20, 0, " * 2"),
+                new test(INPUT.length() + 16, 8, ""),
+                new test(0, INPUT.length() + 16, ""),                     // everything
+                new test(0, 0, "let a = 1; a"),
+                new test(12, 0, "b"),                                     // an identifier growing at the end
+        };
+
+        final var parser = new IncrementalParser(INPUT);
+        assertParsedLikeTheWholeText(parser);
+
+        var text = INPUT;
+        for (final test tt : tests) {
+            text = text.substring(0, tt.offset()) + tt.inserted() + text.substring(tt.offset() + tt.removed());
+            parser.edit(tt.offset(), tt.removed(), tt.inserted());
+
+            assertEquals(text, parser.text());
+            assertParsedLikeTheWholeText(parser);
+        }
+    }
+
+    @Test
+    public void shouldReuseTheStatementsAnEditDoesNotTouch() {
+        final var input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append(String.format("let x = %d;\n", i));
+        }
+
+        final var parser = new IncrementalParser(input.toString());
+        final var before = parser.program().getStatements();
+
+        parser.edit(input.indexOf("= 50;") + 2, 2, "fn(a) { a * 2 }(25)");
+        final var after = parser.program().getStatements();
+
+        assertEquals(100, after.size());
+        for (int i = 0; i < 100; i++) {
+            if (i == 50) {
+                assertNotSame(before.get(i), after.get(i));
+                final var expected = new Parser(new Lexer("let x = fn(a) { a * 2 }(25);")).parseProgram();
+                assertEquals(expected.toString(), after.get(i).toString());
+            } else {
+                assertSame(before.get(i), after.get(i), String.format("statement %d", i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldParseRandomEditsLikeTheWholeText() {
+        final String[] pieces = {
+                "", " ", "\n", ";", "let", "let x = ", "fn(a, b) {", "}", "{", "(", ")", "[1, 2]", "\"", "\"s\"",
+                "1", "x", "+", "==", "=", "!", "if (x) { 1 } else { 2 }", "return", ":", ",", "{\"k\": 1}",
+        };
+        final var random = new Random(42);
+        final var parser = new IncrementalParser(INPUT);
+
+        for (int i = 0; i < 2000; i++) {
+            final var text = parser.text();
+            final int offset = random.nextInt(text.length() + 1);
+            final int removed = random.nextInt(Math.min(4, text.length() - offset) + 1);
+            final var inserted = pieces[random.nextInt(pieces.length)];
+
+            parser.edit(offset, removed, inserted);
+            assertParsedLikeTheWholeText(parser);
+        }
+    }
+
+    @Test
+    public void shouldParseEditsFarApartInALargeText() {
+        final var input = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            input.append(String.format("let x = %d;\n", i));
+        }
+        final var random = new Random(7);
+        final var parser = new IncrementalParser(input.toString());
+
+        for (int i = 0; i < 200; i++) {
+            final int offset = parser.text().lastIndexOf("let", random.nextInt(parser.text().length()));
+            parser.edit(Math.max(offset, 0), 0, i % 2 == 0 ? "let y = fn(a) { a };\n" : "y(");
+        }
+        assertParsedLikeTheWholeText(parser);
+    }
+
+    @Test
+    public void shouldRejectEditsOutsideTheText() {
+        final var parser = new IncrementalParser("let a = 1;");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.edit(-1, 0, "x"));
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.edit(5, 6, ""));
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.edit(11, 0, "x"));
+    }
+
+    private static void assertParsedLikeTheWholeText(final IncrementalParser incremental) {
+        final var parser = new Parser(new Lexer(incremental.text()));
+        final Program program = parser.parseProgram();
+
+        final var message = String.format("parsing [%s]", incremental.text());
+        final var expected = program.getStatements();
+        final var actual = incremental.program().getStatements();
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(describe(expected.get(i)), describe(actual.get(i)), message);
+        }
+        assertEquals(actual, incremental.statements(), message);
+        assertEquals(parser.errors(), incremental.errors(), message);
+    }
+
+    // A statement that only partly parsed can hold nulls its toString() does not expect.
+    private static String describe(final Statement stmt) {
+        try {
+            return stmt.toString();
+        } catch (final NullPointerException ex) {
+            return String.format("%s with missing parts", stmt.getClass().getSimpleName());
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.monkeyj.parser;
+
+import com.monkeyj.ast.Statement;
+import com.monkeyj.lexer.Lexer;
+import com.monkeyj.lexer.MappedSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelParserTest {
+
+    private static final String INPUT = """
+let five = 5;
+let add = fn(x, y) {
+    x + y;
+};
+let result = add(five, 10);
+"hello" + " " + "world";
+let map = {"one": 1, "two": 2};
+if (result > 10) { return true; } else { return false; }
+""";
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void shouldParseLikeTheSequentialParser() {
+        final String[] tests = {
+                "",
+                INPUT,
+                INPUT.repeat(50),
+                "let a = 1;;let b = 2;".repeat(20),                             // an empty statement on a boundary
+                "let x = let y = 1; let z = 2;".repeat(20),                      // a let that is not a statement
+                INPUT.repeat(5) + "let f = fn() { let a = 1;" + INPUT.repeat(5), // never closed
+                INPUT.repeat(5) + "}}}" + INPUT.repeat(5),                       // closed too often
+                INPUT.repeat(5) + "let s = \"" + INPUT.repeat(5),                // a string that never ends
+                INPUT.repeat(5) + "let a = 1;\0" + INPUT.repeat(5),              // the end of input, early
+                INPUT.repeat(5) + "let a = 1; let",
+                "let a = 1\nlet b = 2\n".repeat(40),                             // no semicolons at all
+        };
+
+        for (final String tt : tests) {
+            assertParsedLikeTheSequentialParser(tt);
+        }
+    }
+
+    @Test
+    public void shouldParseRandomProgramsLikeTheSequentialParser() {
+        final String[] pieces = {
+                " ", "\n", ";", "let", "let x = ", "let x = 1;", "fn(a, b) {", "}", "{", "(", ")", "[1, 2]", "\"",
+                "\"s\"", "1", "x", "+", "==", "=", "!", "if (x) { 1 } else { 2 }", "return", ":", ",", "{\"k\": 1}",
+        };
+        final var random = new Random(42);
+
+        for (int i = 0; i < 300; i++) {
+            final var input = new StringBuilder();
+            while (input.length() < 400) {
+                input.append(random.nextInt(4) == 0 ? pieces[random.nextInt(pieces.length)] : "let a = [1, 2];\n");
+            }
+
+            assertParsedLikeTheSequentialParser(input.toString());
+        }
+    }
+
+    @Test
+    public void shouldParseAMappedFileInParallel(@TempDir final Path dir) throws IOException {
+        // Not ASCII, so every chunk decodes through the cursor of its own MappedSource.
+        final var input = (INPUT + "let greeting = \"héllo, wörld 😀\";\nlet 東京 = \"東京\";\n").repeat(40);
+        final var file = dir.resolve("program.mnk");
+        Files.writeString(file, input, StandardCharsets.UTF_8);
+
+        for (int i = 0; i < 20; i++) {
+            assertParsedLikeTheSequentialParser(input, MappedSource.open(file));
+        }
+    }
+
+    private static void assertParsedLikeTheSequentialParser(final String input) {
+        assertParsedLikeTheSequentialParser(input, input);
+    }
+
+    private static void assertParsedLikeTheSequentialParser(final String input, final CharSequence source) {
+        final var sequential = new Parser(new Lexer(input));
+        final var expected = sequential.parseProgram().getStatements();
+
+        final var parallel = new ParallelParser(source, pool, 16);
+        final var actual = parallel.parseProgram().getStatements();
+
+        final var message = String.format("parsing [%s]", input);
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(describe(expected.get(i)), describe(actual.get(i)), message);
+        }
+        assertEquals(sequential.errors(), parallel.errors(), message);
+    }
+
+    // A statement that only partly parsed can hold nulls its toString() does not expect.
+    private static String describe(final Statement stmt) {
+        try {
+            return stmt.toString();
+        } catch (final NullPointerException ex) {
+            return String.format("%s with missing parts", stmt.getClass().getSimpleName());
+        }
+    }
+
+}
@@ -965,4 +965,27 @@ return 993322;
         }
     }
 
+    @Test
+    public void shouldReportParseErrors() {
+        record test(String input, List<String> expectedErrors) {}
+
+        final test[] tests = {
+                new test("let = 5;", List.of(
+                        "expected next token to be IDENT, got = instead", "no prefix parse function for = found")),
+                new test("let x 5;", List.of("expected next token to be =, got INT instead")),
+                new test("fn(x { x }", List.of("expected next token to be ), got { instead")),
+                new test("[1, 2", List.of("expected next token to be ], got EOF instead")),
+                new test("let x = ;", List.of("no prefix parse function for ; found")),
+                new test("} + 1", List.of(
+                        "no prefix parse function for } found", "no prefix parse function for + found")),
+        };
+
+        for (final test tt : tests) {
+            final var parser = new Parser(new Lexer(tt.input()));
+            parser.parseProgram();
+
+            assertEquals(tt.expectedErrors(), parser.errors(), tt.input());
+        }
+    }
+
 }
@@ -0,0 +1,189 @@
+package com.monkeyj.vm;
+
+import com.monkeyj.ast.Program;
+import com.monkeyj.compiler.Compiler;
+import com.monkeyj.evaluator.Evaluator;
+import com.monkeyj.lexer.Lexer;
+import com.monkeyj.object.Environment;
+import com.monkeyj.object.Error;
+import com.monkeyj.object.Int;
+import com.monkeyj.object.Obj;
+import com.monkeyj.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VMTest {
+
+    @Test
+    public void shouldProduceTheSameResultsAsTheEvaluator() {
+        final String[] inputs = {
+            "5", "-10", "5 + 5 + 5 + 5 - 10", "(5 + 10 * 2 + 15 / 3) * 2 + -10",
+            "1 < 2", "1 > 2", "1 == 1", "1 != 2", "(5 > 5 == true) != false", "!5", "!!true",
+            "if (1) { 10 }", "if (false) { 10 }", "if (1 > 2) { 10 } else { 20 }",
+            "return 10; 9;", "9; return 2 * 5; 9;",
+            "if (10 > 1) { if (10 > 1) { return 10; } return 1; }",
+            "let a = 5; let b = a; let c = a + b + 5; c;",
+            "let a = 5;",
+            "let identity = fn(x) { return x; }; identity(5);",
+            "let add = fn(x, y) { x + y; }; add(5 + 5, add(5, 5));",
+            "fn(x) { x; }(5)",
+            "let newAdder = fn(x) { fn(y) { x + y }; }; let addTwo = newAdder(2); addTwo(2);",
+            "fn(x) { x + 2; };",
+            "\"Hello\" + \" \" + \"World!\"",
+            "len(\"hello world\")", "len([1, 5, 2])", "last([1, 5, 2])", "first([])", "rest([1, 2, 3, 4])",
+            "let a = [1, 2, 3, 4]; let b = push(a, 98); b",
+            "[1, 2 * 2, 3 + 3]", "let myArray = [1, 2, 3]; let i = myArray[0]; myArray[i]", "[1, 2, 3][3]",
+            "{\"foo\": 5}[\"foo\"]", "{\"foo\": 5}[\"bar\"]", "{true: 5}[true]", "{}",
+            "let two = \"two\"; {\"one\": 10 - 9, two: 1 + 1, \"thr\" + \"ee\": 6 / 2, 4: 4, true: 5, false: 6}",
+            "let h = set({1: 1}, \"two\", 2); [keys(delete(h, 1)), values(h), delete(h, 3) == h, set(h, 1)]",
+            "let h = {1: 1, 2: 2}; let g = merge(h, {2: 3, 4: 5}); [g, h, merge(g, h) == h]",
+            "let h = {\"b\": 1, \"a\": 2, 3: 3}; [h, set(h, \"b\", 4), keys(merge({\"z\": 0}, h))]",
+            "let people = [{\"name\": \"Alice\", \"age\": 24}, {\"name\": \"Anna\", \"age\": 28}]; people[1][\"age\"];",
+            "let f = fn() { g() }; let g = fn() { 7 }; f();",
+            "let x = 1; let f = fn() { x }; let x = 2; f();",
+            "let outer = fn() { let g = fn() { y }; let y = 2; g() }; outer()",
+            "let f = fn() { let x = 1; let g = fn() { x }; let x = 2; g() }; f()",
+            "let f = fn() { let g = fn() { y }; let a = g(); let y = 2; a }; f()",
+            "let y = 5; let f = fn() { let g = fn() { y }; let a = g(); let y = 2; [a, g()] }; f()",
+            "let f = fn(x) { let g = fn() { x }; let x = x + 1; g() }; f(1)",
+            "let f = fn(c) { if (c) { let v = 1; } v }; [f(true), f(false)]",
+            "let f = fn() { let n = 1; let g = fn() { fn() { n } }; let h = g(); let n = 3; h() }; f()",
+            "let f = fn() { let a = b; let b = 1; a }; f()",
+            "let len = fn(x) { 42 }; len(\"abc\")",
+            "5 + true;", "5; true + false; 5", "-true", "\"Hello\" - \"World\"", "\"a\" == \"a\"",
+            "if (10 > 1) { if (10 > 1) { return true + false; } return 1; }",
+            "foobar", "let f = fn() { foobar }; f()", "first(1)", "len(\"one\", \"two\")", "{fn(x) { x }: 1}",
+            "{\"name\": \"Monkey\"}[fn(x) { x }];", "1[0]", "5()", "[len(1), 2]",
+            "let f = fn() { let x = if (true) { return 1; }; 2 }; f()",
+            "let f = fn() { let x = if (true) { return 1; }; x; 2 }; f()",
+            "let f = fn() { let x = if (true) { return 5; }; let g = fn() { return 9; }; g(); x }; f()",
+            "let f = fn(c) { let x = if (c) { if (c) { return 1; } 3 } else { 4 }; [x, 9] }; [f(true), f(false)]",
+            "let f = fn() { let a = [if (true) { return 3; }]; a[0] }; f()",
+            "let f = fn() { let x = if (true) { return len([1]); }; 2 }; f()",
+            "let f = fn() { 1 + if (true) { return 2; } }; f()",
+            "let f = fn() { return if (true) { return 1; }; }; f()",
+            "let x = if (true) { return 5; }; x", "return if (true) { return 5; }",
+            "if (true) { let x = if (true) { return 1; }; 2 }",
+        };
+
+        for (final String input : inputs) {
+            final var expected = evaluate(input);
+            final var actual = run(input);
+
+            assertEquals(expected == null, actual == null, String.format("For input: `%s`", input));
+            if (expected != null) {
+                assertEquals(expected.type(), actual.type(), String.format("For input: `%s`", input));
+                if (!(expected instanceof com.monkeyj.object.Function)) {
+                    assertEquals(expected.inspect(), actual.inspect(), String.format("For input: `%s`", input));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldRunRecursiveFunctions() {
+        final String INPUT = """
+                let fibonacci = fn(x) {
+                    if (x == 0) {
+                        return 0;
+                    } else {
+                        if (x == 1) {
+                            return 1;
+                        } else {
+                            fibonacci(x - 1) + fibonacci(x - 2);
+                        }
+                    }
+                };
+                fibonacci(15);
+                """;
+
+        final var result = run(INPUT);
+        assertTrue(result instanceof Int, String.format("object is not Int, got=%s", result));
+        assertEquals(610, ((Int) result).getValue());
+    }
+
+    @Test
+    public void shouldRunRecursiveClosuresDefinedInsideFunctions() {
+        final String INPUT = """
+                let wrapper = fn() {
+                    let countDown = fn(x) {
+                        if (x == 0) {
+                            return 0;
+                        } else {
+                            countDown(x - 1);
+                        }
+                    };
+                    countDown(1);
+                };
+                wrapper();
+                """;
+
+        final var result = run(INPUT);
+        assertTrue(result instanceof Int);
+        assertEquals(0, ((Int) result).getValue());
+    }
+
+    @Test
+    public void shouldRunTailCallsWithoutGrowingTheFrames() {
+        final String[] inputs = {
+            "let counter = fn(x) { if (x > 5000) { return x; } counter(x + 1) }; counter(0)",
+            "let f = fn(n) { if (n == 0) { 0 } else { f(n - 1) } }; f(100000)",
+            "let f = fn(n) { if (n == 0) { return 0; } return f(n - 1); }; f(100000)",
+            "let even = fn(n) { if (n == 0) { true } else { odd(n - 1) } };"
+                    + " let odd = fn(n) { if (n == 0) { false } else { even(n - 1) } }; even(100001)",
+            "let sum = fn(n, acc) { if (n == 0) { acc } else { sum(n - 1, acc + n) } }; sum(10000, 0)",
+            "let f = fn(n, g) { if (n == 0) { g() } else { f(n - 1, fn() { n }) } }; f(5000, fn() { 0 })",
+            "let g = fn(a, b) { let c = a + b; c }; let f = fn(x) { let y = x * 2; g(y, 1) }; f(1)",
+            "let f = fn(n) { if (n == 0) { len([1, 2]) } else { f(n - 1) } }; f(5000)",
+            "let f = fn() { return first(1); }; f()",
+            "let f = fn() { 5(1) }; f()",
+        };
+
+        for (final String input : inputs) {
+            final var expected = evaluate(input);
+            final var actual = run(input);
+
+            assertEquals(expected.type(), actual.type(), String.format("For input: `%s`", input));
+            assertEquals(expected.inspect(), actual.inspect(), String.format("For input: `%s`", input));
+        }
+    }
+
+    @Test
+    public void shouldReportCallsWithWrongArguments() {
+        final var result = run("fn(a, b) { a + b; }(1);");
+        assertTrue(result instanceof Error, String.format("object is not Error, got=%s", result));
+        assertEquals("wrong number of arguments: want=2, got=1", ((Error) result).getMessage());
+    }
+
+    @Test
+    public void shouldReportStackOverflowAsError() {
+        final var result = run("let f = fn(x) { 1 + f(x + 1) }; f(0);");
+        assertTrue(result instanceof Error, String.format("object is not Error, got=%s", result));
+        assertEquals("stack overflow", ((Error) result).getMessage());
+    }
+
+    private static Program parse(final String input) {
+        final var parser = new Parser(new Lexer(input));
+        final var program = parser.parseProgram();
+        assertTrue(parser.errors().isEmpty(), parser.errors().toString());
+
+        return program;
+    }
+
+    private static Obj evaluate(final String input) {
+        return Evaluator.eval(parse(input), new Environment());
+    }
+
+    private static Obj run(final String input) {
+        final var compiler = new Compiler();
+        compiler.compile(parse(input));
+        assertTrue(compiler.errors().isEmpty(), compiler.errors().toString());
+
+        final var vm = new VM(compiler.bytecode());
+        vm.run();
+
+        return vm.lastPoppedStackElem();
+    }
+
+}